@@ -0,0 +1,104 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.websocket.BroadcastStompEncoder;
+import com.chatapp.chat.websocket.ShardedBrokerMessageHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One broadcast to a room of {@code subscribers} sessions through {@link ShardedBrokerMessageHandler}, including
+ * the STOMP encoding each session's frame goes through before it is written to the socket. {@code broadcast}
+ * encodes with {@link BroadcastStompEncoder}, {@code regular} with Spring's {@link StompEncoder} on the same
+ * messages, i.e. as every header would be encoded per session without the shared frame.
+ * Run with {@code -prof gc} to see the allocation per fan-out as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastFanOutBenchmark {
+
+    private static final String DESTINATION = "/topic/chat.room-1";
+
+    @Param({"10", "1000", "10000"})
+    int subscribers;
+
+    @Param({"broadcast", "regular"})
+    String encoder;
+
+    private ShardedBrokerMessageHandler broker;
+    private Message<byte[]> broadcast;
+    private volatile CountDownLatch delivered;
+    private long encodedBytes;
+
+    @Setup
+    public void setUp() {
+        StompEncoder stompEncoder = "broadcast".equals(encoder) ? new BroadcastStompEncoder() : new StompEncoder();
+        MessageChannel clientOutboundChannel = (message, timeout) -> {
+            // the STOMP handler wraps the message the same way before it encodes it
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+            encodedBytes += stompEncoder.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload()).length;
+            delivered.countDown();
+            return true;
+        };
+
+        SubscribableChannel unused = new ExecutorSubscribableChannel();
+        broker = new ShardedBrokerMessageHandler(unused, clientOutboundChannel, unused, List.of("/topic"), 1);
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(DESTINATION);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+
+        SimpMessageHeaderAccessor publish = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        publish.setDestination(DESTINATION);
+        publish.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        broadcast = MessageBuilder.createMessage(
+                Payloads.chatMessageJson().getBytes(StandardCharsets.UTF_8), publish.getMessageHeaders()
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long fanOut() throws InterruptedException {
+        delivered = new CountDownLatch(subscribers);
+        broker.handleMessage(broadcast);
+        delivered.await();
+        return encodedBytes;
+    }
+}
@@ -0,0 +1,74 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.ChatController;
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessageService;
+import com.chatapp.chat.chat.message.MessageWriteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatController#sendMessage} with the write-behind buffer running against a no-op store and a broker
+ * channel that drops the broadcast: what remains is entity creation, queueing and the JSON conversion of
+ * {@code convertAndSend}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatControllerBenchmark {
+
+    private MessageWriteBuffer writeBuffer;
+    private ChatController controller;
+    private ChatMessage message;
+
+    @Setup
+    public void setUp() {
+        MessageService discardingService = new MessageService(null, null, null) {
+            @Override
+            public Message save(Message message) {
+                return message;
+            }
+
+            @Override
+            public List<Message> saveAll(List<Message> messages) {
+                return messages;
+            }
+        };
+        writeBuffer = new MessageWriteBuffer(discardingService, 100_000, 200, 50, 100);
+        writeBuffer.start();
+
+        SimpMessagingTemplate template = new SimpMessagingTemplate((broadcast, timeout) -> true);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+
+        controller = new ChatController(template, writeBuffer);
+        message = Payloads.chatMessage();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        writeBuffer.stop();
+    }
+
+    @Benchmark
+    public void sendMessage() {
+        controller.sendMessage(message);
+    }
+}
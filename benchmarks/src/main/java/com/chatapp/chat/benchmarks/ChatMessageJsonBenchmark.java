@@ -0,0 +1,69 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.websocket.ChatIdResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatMessage} JSON binding in both directions, and the streaming {@code chatId} lookup that orders
+ * inbound messages per chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageJsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatIdResolver chatIdResolver = new ChatIdResolver();
+
+    private ChatMessage chatMessage;
+    private byte[] json;
+    private Message<byte[]> frame;
+
+    @Setup
+    public void setUp() {
+        chatMessage = Payloads.chatMessage();
+        json = Payloads.chatMessageJson().getBytes(StandardCharsets.UTF_8);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/app/chat.sendMessage");
+        frame = MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(chatMessage);
+    }
+
+    @Benchmark
+    public ChatMessage deserialize() throws IOException {
+        return objectMapper.readValue(json, ChatMessage.class);
+    }
+
+    @Benchmark
+    public String resolveChatId() {
+        return chatIdResolver.apply(frame);
+    }
+}
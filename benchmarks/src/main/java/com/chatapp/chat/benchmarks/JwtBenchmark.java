@@ -0,0 +1,67 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.security.JwtUtils;
+import com.chatapp.chat.security.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and validation. {@code verifyCached} is the steady state of a session reusing its token,
+ * {@code verifyUncached} the full signature check and claim parsing of a token seen for the first time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+    static final long EXPIRATION_MS = 3_600_000;
+
+    private static final List<GrantedAuthority> ROLES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private JwtUtils cached;
+    private JwtUtils uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtils(SECRET, EXPIRATION_MS, Clock.systemUTC());
+        // a cache of size 0 never remembers a token, so every call parses and verifies the signature
+        uncached = new JwtUtils(SECRET, EXPIRATION_MS, Clock.systemUTC(), 0);
+        token = cached.generateToken("alice", ROLES);
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken("alice", ROLES);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyCached() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyUncached() {
+        return uncached.verify(token);
+    }
+}
@@ -0,0 +1,73 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.security.JwtUtils;
+import com.chatapp.chat.websocket.JwtChannelInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtChannelInterceptor#preSend} for an authenticated CONNECT and for a SEND, which every chat message
+ * passes through without authentication work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtChannelInterceptorBenchmark {
+
+    private final MessageChannel channel = (message, timeout) -> true;
+
+    private JwtChannelInterceptor interceptor;
+    private Message<byte[]> connect;
+    private Message<byte[]> send;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils(JwtBenchmark.SECRET, JwtBenchmark.EXPIRATION_MS, Clock.systemUTC());
+        interceptor = new JwtChannelInterceptor(jwtUtils);
+
+        String token = jwtUtils.generateToken("alice", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        StompHeaderAccessor connectHeaders = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connectHeaders.setSessionId("s1");
+        connectHeaders.addNativeHeader("Authorization", "Bearer " + token);
+        connect = MessageBuilder.createMessage(new byte[0], connectHeaders.getMessageHeaders());
+
+        StompHeaderAccessor sendHeaders = StompHeaderAccessor.create(StompCommand.SEND);
+        sendHeaders.setSessionId("s1");
+        sendHeaders.setDestination("/app/chat.sendMessage");
+        send = MessageBuilder.createMessage(
+                Payloads.chatMessageJson().getBytes(StandardCharsets.UTF_8), sendHeaders.getMessageHeaders()
+        );
+    }
+
+    @Benchmark
+    public Message<?> connect() {
+        return interceptor.preSend(connect, channel);
+    }
+
+    @Benchmark
+    public Message<?> send() {
+        return interceptor.preSend(send, channel);
+    }
+}
@@ -0,0 +1,120 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessageRepository;
+import com.chatapp.chat.chat.message.MessageService;
+import com.chatapp.chat.chat.message.RecentMessagesCache;
+import com.chatapp.chat.config.PersistenceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of {@link MessageService#saveAll} against a real PostgreSQL, for JDBC batch sizes from 1 to 500,
+ * with and without the driver's {@code reWriteBatchedInserts}. Each invocation inserts {@value #ROWS} messages.
+ * <p>
+ * Needs a database with the application schema, by default the one from {@code docker-compose.yml}; any
+ * {@code spring.datasource.*} property can be overridden with {@code -jvmArgsAppend "-D..."}. The table is
+ * truncated before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageInsertBenchmark {
+
+    static final int ROWS = 500;
+
+    @Param({"1", "10", "50", "100", "200", "500"})
+    public int batchSize;
+
+    @Param({"true", "false"})
+    public boolean reWriteBatchedInserts;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(InsertContext.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "spring.datasource.url", "jdbc:postgresql://localhost:5432/chatdb",
+                        "spring.datasource.username", "chatuser",
+                        "spring.datasource.password", "chatpass",
+                        "spring.jpa.hibernate.ddl-auto", "validate",
+                        "app.messages.write-behind.batch-size", batchSize,
+                        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", reWriteBatchedInserts
+                ))
+                .run();
+        messageService = context.getBean(MessageService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE messages");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Message> insert() {
+        Instant now = Instant.now();
+        List<Message> messages = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            messages.add(Message.builder()
+                    .chatId("room-" + (i % 20))
+                    .sender("alice")
+                    .content(Payloads.CONTENT)
+                    .createdAt(now)
+                    .build());
+        }
+        return messageService.saveAll(messages);
+    }
+
+    /**
+     * Only the message persistence slice of the application: data source, Flyway, JPA and {@link MessageService}.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Message.class)
+    @EnableJpaRepositories(basePackageClasses = MessageRepository.class)
+    @Import({MessageService.class, RecentMessagesCache.class, PersistenceConfig.class})
+    public static class InsertContext {
+    }
+}
@@ -0,0 +1,57 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Entity to DTO mapping of one page of chat history, as {@code MessageService#getChatHistory} returns it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageResponseBenchmark {
+
+    @Param({"50", "500"})
+    int pageSize;
+
+    private List<Message> page;
+
+    @Setup
+    public void setUp() {
+        Instant start = Instant.now();
+        page = IntStream.range(0, pageSize)
+                .mapToObj(i -> Message.builder()
+                        .id(UUID.randomUUID())
+                        .chatId("room-1")
+                        .sender("alice")
+                        .content("message " + i)
+                        .createdAt(start.plusMillis(i))
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public List<MessageResponse> fromEntity() {
+        return page.stream().map(MessageResponse::fromEntity).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.websocket.CborMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatMessage} payload encoding as JSON and as CBOR through the STOMP message converters, and the JSON to CBOR
+ * transcoding the broker does once per broadcast for CBOR subscribers. Payload and STOMP frame sizes of both
+ * encodings are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    @Param({"json", "cbor"})
+    public String encoding;
+
+    private MappingJackson2MessageConverter converter;
+    private CborMessageConverter cborConverter;
+    private MessageHeaders headers;
+    private ChatMessage chatMessage;
+    private Message<?> encoded;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        cborConverter = new CborMessageConverter(new Jackson2ObjectMapperBuilder());
+        converter = "cbor".equals(encoding) ? cborConverter : new MappingJackson2MessageConverter();
+        MimeType contentType = "cbor".equals(encoding)
+                ? CborMessageConverter.APPLICATION_CBOR
+                : MimeTypeUtils.APPLICATION_JSON;
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/chat.room-1");
+        accessor.setContentType(contentType);
+        headers = accessor.getMessageHeaders();
+
+        chatMessage = Payloads.chatMessage();
+        encoded = converter.toMessage(chatMessage, headers);
+        json = new MappingJackson2MessageConverter().getObjectMapper().writeValueAsBytes(chatMessage);
+    }
+
+    @TearDown(Level.Trial)
+    public void printSizes() {
+        byte[] payload = (byte[]) encoded.getPayload();
+        StompHeaderAccessor frameHeaders = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        frameHeaders.setDestination("/topic/chat.room-1");
+        frameHeaders.setSubscriptionId("sub-0");
+        frameHeaders.setMessageId("session-0");
+        frameHeaders.setContentType(converter.getSupportedMimeTypes().getFirst());
+        byte[] frame = new StompEncoder().encode(frameHeaders.getMessageHeaders(), payload);
+        System.out.printf("%n%s: payload %d bytes, STOMP MESSAGE frame %d bytes%n", encoding, payload.length, frame.length);
+    }
+
+    @Benchmark
+    public Message<?> encode() {
+        return converter.toMessage(chatMessage, headers);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return converter.fromMessage(encoded, ChatMessage.class);
+    }
+
+    /**
+     * Broker-side cost of serving a CBOR subscriber from a JSON broadcast; independent of {@link #encoding}.
+     */
+    @Benchmark
+    public byte[] transcodeJsonToCbor() throws IOException {
+        return cborConverter.fromJson(json);
+    }
+}
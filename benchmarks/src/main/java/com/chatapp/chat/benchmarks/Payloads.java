@@ -0,0 +1,29 @@
+package com.chatapp.chat.benchmarks;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+
+/**
+ * Sample payloads shared by the benchmarks.
+ */
+final class Payloads {
+
+    static final String CONTENT = "Hello everyone, the deploy finished and all checks are green.";
+
+    private Payloads() {
+    }
+
+    static ChatMessage chatMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setChatId("room-1");
+        message.setSender("alice");
+        message.setContent(CONTENT);
+        message.setType(ChatMessageType.CHAT);
+        return message;
+    }
+
+    static String chatMessageJson() {
+        return "{\"chatId\":\"room-1\",\"sender\":\"alice\","
+                + "\"content\":\"Hello everyone, the deploy finished and all checks are green.\",\"type\":\"CHAT\"}";
+    }
+}
@@ -46,7 +46,7 @@ public class AuthService {
                 )
         );
 
-        String token = jwtUtils.generateToken(authentication.getName());
+        String token = jwtUtils.generateToken(authentication.getName(), authentication.getAuthorities());
 
         return new LoginResponse(token);
     }
@@ -1,48 +1,66 @@
 package com.chatapp.chat.chat;
 
 import com.chatapp.chat.chat.message.Message;
-import com.chatapp.chat.chat.message.MessageService;
+import com.chatapp.chat.chat.message.MessageWriteBuffer;
+import com.chatapp.chat.chat.presence.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+import java.time.Instant;
+
 @Slf4j
 @Controller
 @RequiredArgsConstructor
 public class ChatController {
 
+    public static final String ROOM_DESTINATION_PREFIX = "/topic/chat.";
+
     private final SimpMessagingTemplate messagingTemplate;
 
-    private final MessageService messageService;
+    private final MessageWriteBuffer messageWriteBuffer;
+
+    private final ObjectProvider<PresenceService> presenceService;
 
     @MessageMapping("/chat.sendMessage")
     public void sendMessage(@Payload ChatMessage message) {
 
         log.debug("Received WS message: {}", message);
 
-        Message saved = messageService.save(
+        // createdAt is taken on receipt so history order matches broadcast order,
+        // even though the row is inserted later by the write-behind flusher
+        messageWriteBuffer.submit(
                 Message.builder()
                         .chatId(message.getChatId())
                         .sender(message.getSender())
                         .content(message.getContent())
+                        .createdAt(Instant.now())
                         .build()
         );
 
         messagingTemplate.convertAndSend(
-                "/topic/chat." + saved.getChatId(),
+                ROOM_DESTINATION_PREFIX + message.getChatId(),
                 message
         );
     }
 
     @MessageMapping("/chat.addUser")
-    public void addUser(@Payload ChatMessage chatMessage) {
+    public void addUser(@Payload ChatMessage chatMessage, Principal user) {
         chatMessage.setType(ChatMessageType.JOIN);
 
+        // presence tracking announces authenticated users in the next coalesced presence diff instead,
+        // so a mass reconnect does not send every member a frame per returning user
+        if (user != null && presenceService.getIfAvailable() != null) {
+            return;
+        }
+
         messagingTemplate.convertAndSend(
-                "/topic/chat." + chatMessage.getChatId(),
+                ROOM_DESTINATION_PREFIX + chatMessage.getChatId(),
                 chatMessage
         );
     }
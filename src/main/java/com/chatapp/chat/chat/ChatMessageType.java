@@ -3,6 +3,9 @@ package com.chatapp.chat.chat;
 public enum ChatMessageType {
     CHAT,
     JOIN,
-    LEAVE
+    LEAVE,
+    /**
+     * A member is typing. Never persisted, throttled per sender and dropped first by slow consumers.
+     */
+    TYPING
 }
-
@@ -1,23 +1,72 @@
 package com.chatapp.chat.chat.message;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
 public class MessageController {
 
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
     private final MessageService messageService;
+    private final RecentMessagesCache recentMessages;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{chatId}")
-    public List<MessageResponse> getChatHistory(@PathVariable String chatId) {
-        return messageService.getChatHistory(chatId)
+    public List<MessageResponse> getChatHistory(
+            @PathVariable String chatId,
+            @RequestParam(required = false) UUID before,
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "" + MessageService.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        if (before == null && after == null) {
+            int pageSize = Math.clamp(limit, 1, MessageService.MAX_PAGE_SIZE);
+            return recentMessages.latest(chatId, pageSize, () -> history(chatId, null, null, pageSize));
+        }
+        return history(chatId, before, after, limit);
+    }
+
+    /**
+     * The cursor is checked before the response starts, so an unknown one is a 400 like on the paged endpoint
+     * rather than a body cut off after the status has been sent.
+     */
+    @GetMapping("/{chatId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamChatHistory(
+            @PathVariable String chatId,
+            @RequestParam(required = false) UUID after
+    ) {
+        Message anchor = after == null ? null : messageService.findAnchor(chatId, after);
+        StreamingResponseBody body = out -> messageService.streamChatHistory(chatId, anchor, response -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(response));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private List<MessageResponse> history(String chatId, UUID before, UUID after, int limit) {
+        return messageService.getChatHistory(chatId, before, after, limit)
                 .stream()
                 .map(MessageResponse::fromEntity)
                 .toList();
@@ -0,0 +1,16 @@
+package com.chatapp.chat.chat.message;
+
+import java.util.List;
+
+/**
+ * Insert-only write path for new messages, mixed into {@link MessageRepository}.
+ */
+public interface MessageInsertRepository {
+
+    /**
+     * Persists new messages in JDBC batches and returns them with their generated ids. Unlike
+     * {@code saveAll} it never merges: a message that already has an id is rejected instead of being
+     * looked up first.
+     */
+    List<Message> insertAll(List<Message> messages);
+}
@@ -0,0 +1,63 @@
+package com.chatapp.chat.chat.message;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Persists messages and flushes every {@code batchSize} of them, the same size Hibernate uses for JDBC batches,
+ * so each flush sends whole batches. Flushed messages are detached right away; the persistence context never
+ * holds more than one batch, whatever the size of the list.
+ * <p>
+ * Hibernate assigns ids on {@code persist}, and a rollback does not take them back. When the insert fails, the ids
+ * are cleared again, so the same messages can be retried, e.g. one by one by {@link MessageWriteBuffer}.
+ */
+class MessageInsertRepositoryImpl implements MessageInsertRepository {
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    MessageInsertRepositoryImpl(
+            EntityManager entityManager,
+            @Value("${app.messages.write-behind.batch-size:200}") int batchSize
+    ) {
+        this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    @Transactional
+    public List<Message> insertAll(List<Message> messages) {
+        for (Message message : messages) {
+            if (message.getId() != null) {
+                throw new IllegalArgumentException("Message " + message.getId() + " is not new");
+            }
+        }
+
+        try {
+            int flushed = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                entityManager.persist(messages.get(i));
+
+                if (i + 1 - flushed == batchSize) {
+                    flush(messages.subList(flushed, i + 1));
+                    flushed = i + 1;
+                }
+            }
+            if (flushed < messages.size()) {
+                flush(messages.subList(flushed, messages.size()));
+            }
+        } catch (RuntimeException e) {
+            messages.forEach(message -> message.setId(null));
+            throw e;
+        }
+        return messages;
+    }
+
+    private void flush(List<Message> batch) {
+        entityManager.flush();
+        batch.forEach(entityManager::detach);
+    }
+}
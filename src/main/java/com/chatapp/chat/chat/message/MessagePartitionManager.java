@@ -0,0 +1,215 @@
+package com.chatapp.chat.chat.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code messages} (see {@code V3__partition_messages_by_month.sql}) in shape:
+ * creates the current month and {@code premake-months} ahead so inserts never fall into the default partition,
+ * and drops whole months once they are older than {@code retention-months}. Dropping a partition is a metadata
+ * change, so expiring a month of history costs the same as expiring an empty one.
+ * <p>
+ * A month whose rows already landed in {@code messages_default} cannot be created as a partition of its own:
+ * PostgreSQL refuses while the default partition holds rows of its range. Such a month is built as a plain table,
+ * the rows are moved over from the default partition and the table is attached, all in one transaction.
+ * <p>
+ * Runs once the application is ready and then daily. With a retention of 0 messages are kept forever. Databases
+ * where {@code messages} is not partitioned (H2 in tests, schemas not migrated yet) are left alone. Every step that
+ * fails is counted in {@code chat.messages.partitions.failures}, tagged with the operation, so a month that keeps
+ * falling into the default partition shows up on a dashboard and not only in the log.
+ */
+@Slf4j
+@Component
+public class MessagePartitionManager {
+
+    static final String TABLE = "messages";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile(TABLE + "_(\\d{4})_(0[1-9]|1[0-2])");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final MeterRegistry registry;
+    private final Clock clock;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public MessagePartitionManager(
+            JdbcTemplate jdbcTemplate,
+            TransactionOperations transactionOperations,
+            MeterRegistry registry,
+            Clock clock,
+            @Value("${app.messages.partitions.premake-months:3}") int premakeMonths,
+            @Value("${app.messages.partitions.retention-months:0}") int retentionMonths
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.registry = registry;
+        this.clock = clock;
+        this.premakeMonths = Math.max(premakeMonths, 0);
+        this.retentionMonths = Math.max(retentionMonths, 0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.messages.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!isPartitioned()) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        for (int i = 0; i <= premakeMonths; i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        if (retentionMonths > 0) {
+            dropExpired(current.minusMonths(retentionMonths));
+        }
+    }
+
+    private boolean isPartitioned() {
+        try {
+            Boolean partitioned = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                    Boolean.class, TABLE);
+            if (!Boolean.TRUE.equals(partitioned)) {
+                log.info("Table {} is not partitioned, skipping partition maintenance", TABLE);
+            }
+            return Boolean.TRUE.equals(partitioned);
+        } catch (DataAccessException e) {
+            log.info("Partition maintenance is not supported by this database: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        try {
+            if (hasDefaultRows(month)) {
+                movePartitionOutOfDefault(month);
+            } else {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')"
+                        .formatted(partitionName(month), TABLE, start(month), start(month.plusMonths(1))));
+            }
+        } catch (DataAccessException e) {
+            failed("create");
+            log.error("Could not create partition {}", partitionName(month), e);
+        }
+    }
+
+    private boolean hasDefaultRows(YearMonth month) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+                        + " WHERE created_at >= ?::timestamptz AND created_at < ?::timestamptz)",
+                Boolean.class, start(month).toString(), start(month.plusMonths(1)).toString());
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Creates the partition of {@code month} from the rows the default partition holds for it. The default partition
+     * stays locked until the transaction ends, so no row of the month can slip in between the move and the attach.
+     * Attaching copies the primary key and the history index of {@code messages} onto the new table.
+     */
+    private void movePartitionOutOfDefault(YearMonth month) {
+        String partition = partitionName(month);
+        String range = "created_at >= '%s' AND created_at < '%s'".formatted(start(month), start(month.plusMonths(1)));
+        transactionOperations.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update(
+                    "INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+            jdbcTemplate.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(TABLE, partition, start(month), start(month.plusMonths(1))));
+            log.warn("Created partition {} from {} rows of {}", partition, moved, DEFAULT_PARTITION);
+        });
+    }
+
+    /**
+     * Drops every monthly partition that ends on or before the start of {@code oldestKept} and deletes the rows
+     * of the same age that ended up in the default partition.
+     */
+    private void dropExpired(YearMonth oldestKept) {
+        List<String> partitions;
+        try {
+            partitions = jdbcTemplate.queryForList(
+                    "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                            + "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname",
+                    String.class, TABLE);
+        } catch (DataAccessException e) {
+            failed("list");
+            log.error("Could not list partitions of {}", TABLE, e);
+            return;
+        }
+
+        for (String partition : partitions) {
+            Optional<YearMonth> month = monthOf(partition);
+            if (month.isPresent() && month.get().isBefore(oldestKept)) {
+                try {
+                    jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                    log.info("Dropped expired partition {}", partition);
+                } catch (DataAccessException e) {
+                    failed("drop");
+                    log.error("Could not drop partition {}", partition, e);
+                }
+            }
+        }
+
+        if (partitions.contains(DEFAULT_PARTITION)) {
+            try {
+                jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at < ?::timestamptz",
+                        start(oldestKept).toString());
+            } catch (DataAccessException e) {
+                failed("delete");
+                log.error("Could not delete expired messages from {}", DEFAULT_PARTITION, e);
+            }
+        }
+    }
+
+    private void failed(String operation) {
+        Counter.builder("chat.messages.partitions.failures")
+                .description("Partition maintenance steps that failed")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+
+    static Optional<YearMonth> monthOf(String partitionName) {
+        Matcher matcher = MONTHLY_PARTITION.matcher(partitionName);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -1,11 +1,60 @@
 package com.chatapp.chat.chat.message;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface MessageRepository extends JpaRepository<Message, UUID> {
+public interface MessageRepository extends JpaRepository<Message, UUID>, MessageInsertRepository {
 
-    List<Message> findAllByChatIdOrderByCreatedAtAsc(String chatId);
+    /**
+     * Looks a message up by id within a {@code createdAt} range, so the database only probes the partitions
+     * covering that range instead of the primary key index of every month.
+     */
+    Optional<Message> findByIdAndCreatedAtBetween(UUID id, Instant from, Instant to);
+
+    List<Message> findByChatIdOrderByCreatedAtDescIdDesc(String chatId, Limit limit);
+
+    @Query("""
+            select m from Message m
+            where m.chatId = :chatId
+              and (m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<Message> findPageBefore(String chatId, Instant createdAt, UUID id, Limit limit);
+
+    @Query("""
+            select m from Message m
+            where m.chatId = :chatId
+              and (m.createdAt > :createdAt or (m.createdAt = :createdAt and m.id > :id))
+            order by m.createdAt asc, m.id asc
+            """)
+    List<Message> findPageAfter(String chatId, Instant createdAt, UUID id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.chatapp.chat.chat.message.MessageResponse(m.id, m.chatId, m.sender, m.content, m.createdAt)
+            from Message m
+            where m.chatId = :chatId
+            order by m.createdAt asc, m.id asc
+            """)
+    Stream<MessageResponse> streamHistory(String chatId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.chatapp.chat.chat.message.MessageResponse(m.id, m.chatId, m.sender, m.content, m.createdAt)
+            from Message m
+            where m.chatId = :chatId
+              and (m.createdAt > :createdAt or (m.createdAt = :createdAt and m.id > :id))
+            order by m.createdAt asc, m.id asc
+            """)
+    Stream<MessageResponse> streamHistoryAfter(String chatId, Instant createdAt, UUID id);
 }
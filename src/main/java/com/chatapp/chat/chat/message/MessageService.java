@@ -1,21 +1,127 @@
 package com.chatapp.chat.chat.message;
 
+import com.chatapp.chat.chat.message.exception.InvalidHistoryCursorException;
+import com.chatapp.chat.common.id.TimeOrderedUuidGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class MessageService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * How far {@code createdAt} of a message may lie before and after the time in its id. The id is generated
+     * when the message is written, which can be a while after it was received.
+     */
+    static final Duration ANCHOR_WRITTEN_WITHIN = Duration.ofHours(1);
+    static final Duration ANCHOR_CLOCK_SKEW = Duration.ofMinutes(1);
+
     private final MessageRepository messageRepository;
+    private final RecentMessagesCache recentMessages;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * Inserts a new message. Messages are never updated, so this skips the merge check of {@code save}.
+     */
     public Message save(Message message) {
-        return messageRepository.save(message);
+        return saveAll(List.of(message)).getFirst();
+    }
+
+    /**
+     * Inserts new messages and, once they are committed and have their ids, adds them to the recent history of
+     * cached rooms and publishes a {@link MessagesPersistedEvent}.
+     */
+    public List<Message> saveAll(List<Message> messages) {
+        List<Message> saved = messageRepository.insertAll(messages);
+        recentMessages.addAll(saved);
+        eventPublisher.publishEvent(new MessagesPersistedEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Returns one page of chat history in chronological order using keyset pagination on
+     * (createdAt, id). {@code before} and {@code after} are ids of messages the client already
+     * has; with neither set the latest page is returned.
+     */
+    public List<Message> getChatHistory(String chatId, UUID before, UUID after, int limit) {
+        if (before != null && after != null) {
+            throw new InvalidHistoryCursorException("Only one of 'before' and 'after' can be used");
+        }
+
+        Limit pageSize = Limit.of(Math.clamp(limit, 1, MAX_PAGE_SIZE));
+
+        if (after != null) {
+            Message anchor = findAnchor(chatId, after);
+            return messageRepository.findPageAfter(chatId, anchor.getCreatedAt(), anchor.getId(), pageSize);
+        }
+
+        List<Message> newestFirst = before != null
+                ? pageBefore(chatId, findAnchor(chatId, before), pageSize)
+                : messageRepository.findByChatIdOrderByCreatedAtDescIdDesc(chatId, pageSize);
+
+        return newestFirst.reversed();
+    }
+
+    /**
+     * Streams the whole chat history (or everything after {@code after}) in chronological order
+     * straight off a database cursor, so memory use does not depend on the size of the chat.
+     * {@code after} is resolved up front with {@link #findAnchor}, while an error can still be
+     * answered with a status code.
+     */
+    @Transactional(readOnly = true)
+    public void streamChatHistory(String chatId, Message after, Consumer<MessageResponse> sink) {
+        Stream<MessageResponse> history = after == null
+                ? messageRepository.streamHistory(chatId)
+                : messageRepository.streamHistoryAfter(chatId, after.getCreatedAt(), after.getId());
+
+        try (history) {
+            history.forEach(sink);
+        }
+    }
+
+    private List<Message> pageBefore(String chatId, Message anchor, Limit pageSize) {
+        return messageRepository.findPageBefore(chatId, anchor.getCreatedAt(), anchor.getId(), pageSize);
+    }
+
+    /**
+     * The message a history cursor points at.
+     *
+     * @throws InvalidHistoryCursorException when there is no such message in {@code chatId}
+     */
+    public Message findAnchor(String chatId, UUID messageId) {
+        return findById(messageId)
+                .filter(message -> chatId.equals(message.getChatId()))
+                .orElseThrow(() -> new InvalidHistoryCursorException(
+                        "Message " + messageId + " does not belong to chat " + chatId));
     }
 
-    public List<Message> getChatHistory(String chatId) {
-        return messageRepository.findAllByChatIdOrderByCreatedAtAsc(chatId);
+    /**
+     * Ids of version 7 carry their creation time, which narrows the lookup to the partitions around it. Ids that
+     * are not, or messages written outside the expected window, fall back to a lookup across all partitions.
+     */
+    public Optional<Message> findById(UUID messageId) {
+        if (messageId.version() == 7) {
+            Instant generatedAt = TimeOrderedUuidGenerator.timestampOf(messageId);
+            Optional<Message> message = messageRepository.findByIdAndCreatedAtBetween(messageId,
+                    generatedAt.minus(ANCHOR_WRITTEN_WITHIN), generatedAt.plus(ANCHOR_CLOCK_SKEW));
+            if (message.isPresent()) {
+                return message;
+            }
+        }
+        return messageRepository.findById(messageId);
     }
 }
@@ -0,0 +1,213 @@
+package com.chatapp.chat.chat.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for chat messages.
+ * <p>
+ * Messages are accepted into a bounded queue and persisted by a single background
+ * flusher in batches, either when {@code batchSize} messages are pending or when the
+ * oldest pending message has waited {@code flushInterval}. When the queue is full the
+ * caller persists its message synchronously, which throttles producers to the speed of
+ * the database. On shutdown every pending message is flushed before the bean is destroyed.
+ * <p>
+ * Insert latency is timed as {@code chat.messages.persist}, tagged {@code mode=batch} for the flusher and
+ * {@code mode=direct} for synchronous and retried single inserts.
+ */
+@Slf4j
+@Component
+public class MessageWriteBuffer implements MeterBinder {
+
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_JOIN_MS = 10_000;
+
+    private final MessageService messageService;
+    private final BlockingQueue<Message> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public MessageWriteBuffer(
+            MessageService messageService,
+            @Value("${app.messages.write-behind.capacity:10000}") int capacity,
+            @Value("${app.messages.write-behind.batch-size:200}") int batchSize,
+            @Value("${app.messages.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${app.messages.write-behind.offer-timeout-ms:100}") long offerTimeoutMs
+    ) {
+        this.messageService = messageService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("message-write-behind")
+                .daemon(true)
+                .start(this::runFlusher);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.join(SHUTDOWN_JOIN_MS);
+
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+        log.info("Write-behind buffer stopped, all pending messages persisted");
+    }
+
+    /**
+     * Queues a message for persistence. Falls back to a synchronous insert when the buffer
+     * is stopped or stays full for longer than the configured offer timeout.
+     * <p>
+     * A message offered while {@link #stop()} runs may land after its final drain. It is then
+     * taken back and persisted here; whichever of the two removes it from the queue saves it.
+     */
+    public void submit(Message message) {
+        if (running) {
+            try {
+                if (queue.offer(message, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    if (running || !queue.remove(message)) {
+                        return;
+                    }
+                    log.debug("Write-behind buffer stopped while queueing, persisting message synchronously");
+                } else {
+                    log.warn("Write-behind queue full ({} pending), persisting message synchronously", queue.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        meters.direct().record(() -> messageService.save(message));
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.messages.write.pending", queue, BlockingQueue::size)
+                .description("Messages accepted but not yet persisted")
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    private void runFlusher() {
+        List<Message> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Message> batch) throws InterruptedException {
+        Message first = queue.poll(Math.min(flushIntervalNanos, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize && running) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            Message next = queue.poll(Math.min(remaining, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<Message> batch) {
+        Meters meters = this.meters;
+        meters.batchSize().record(batch.size());
+        try {
+            meters.batch().record(() -> messageService.saveAll(List.copyOf(batch)));
+            log.debug("Persisted batch of {} messages", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Batch insert of {} messages failed, retrying one by one", batch.size(), e);
+            for (Message message : batch) {
+                try {
+                    meters.direct().record(() -> messageService.save(message));
+                } catch (RuntimeException ex) {
+                    meters.failures().increment();
+                    log.error("Could not persist message for chatId={}", message.getChatId(), ex);
+                }
+            }
+        }
+    }
+
+    private record Meters(Timer batch, Timer direct, DistributionSummary batchSize, Counter failures) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    persist(registry, "batch"),
+                    persist(registry, "direct"),
+                    DistributionSummary.builder("chat.messages.persist.batch.size")
+                            .description("Messages per batch insert")
+                            .register(registry),
+                    Counter.builder("chat.messages.persist.failures")
+                            .description("Messages that could not be persisted, even one by one")
+                            .register(registry)
+            );
+        }
+
+        private static Timer persist(MeterRegistry registry, String mode) {
+            return Timer.builder("chat.messages.persist")
+                    .description("Insert latency of chat messages")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.chatapp.chat.chat.message;
+
+import java.util.List;
+
+/**
+ * Published after new messages are committed, with their ids and timestamps assigned.
+ */
+public record MessagesPersistedEvent(List<Message> messages) {
+}
@@ -0,0 +1,273 @@
+package com.chatapp.chat.chat.message;
+
+import com.chatapp.chat.websocket.BrokerRelayConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the latest {@code room-capacity} messages of recently used chats in memory, so opening a busy room
+ * ("give me the last 50 messages") does not query the database.
+ * <p>
+ * A room is cached the first time its latest page is loaded and then kept current by {@link #addAll} after every
+ * insert. Rooms nobody reads or writes for {@code idle-ttl-ms} are dropped, and when the estimated size of all rooms
+ * exceeds {@code max-bytes} the least valuable rooms are evicted.
+ * <p>
+ * Only messages persisted by this instance reach the cache, so a room cached on one instance misses what the others
+ * write. {@code app.messages.recent-cache.enabled} therefore defaults to off when the deployment runs several
+ * instances, that is with {@code app.cluster.fanout.enabled} or {@code app.websocket.broker.type=relay}, and to on
+ * otherwise. Setting it to {@code true} there (e.g. behind routing that pins each chat to one instance) is allowed,
+ * with a warning.
+ */
+@Slf4j
+@Component
+public class RecentMessagesCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "recentMessages";
+
+    static final Comparator<MessageResponse> ORDER =
+            Comparator.comparing(MessageResponse::createdAt).thenComparing(MessageResponse::id);
+
+    private static final int WRITE_STRIPES = 1024;
+
+    private final int roomCapacity;
+    private final Cache<String, RoomHistory> rooms;
+
+    /**
+     * Write sequence, and the last sequence per stripe of chat ids. A page loaded from the database is only cached
+     * when no message of its chat was inserted while it was loading, otherwise the page could miss that message.
+     */
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLongArray lastWrite = new AtomicLongArray(WRITE_STRIPES);
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    public RecentMessagesCache(
+            @Value("${app.messages.recent-cache.room-capacity:100}") int roomCapacity,
+            @Value("${app.messages.recent-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${app.messages.recent-cache.idle-ttl-ms:1800000}") long idleTtlMs,
+            @Value("${app.messages.recent-cache.enabled:}") Boolean enabled,
+            @Value("${app.cluster.fanout.enabled:false}") boolean clusterFanout,
+            @Value("${app.websocket.broker.type:}") String brokerType
+    ) {
+        boolean multiInstance = clusterFanout || BrokerRelayConfig.RELAY.equals(brokerType);
+        if (enabled == null && multiInstance && roomCapacity > 0) {
+            log.info("The recent messages cache is disabled because several instances write to the same chats "
+                    + "(cluster fan-out or broker relay); set app.messages.recent-cache.enabled to override");
+        } else if (Boolean.TRUE.equals(enabled) && multiInstance && roomCapacity > 0) {
+            log.warn("app.messages.recent-cache.enabled is set together with cluster fan-out or the broker relay; "
+                    + "latest pages will miss messages written by other instances until their room goes idle");
+        }
+        boolean active = enabled != null ? enabled : !multiInstance;
+        this.roomCapacity = active ? Math.max(roomCapacity, 0) : 0;
+        this.rooms = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String chatId, RoomHistory room) -> room.weight())
+                .expireAfterAccess(Duration.ofMillis(idleTtlMs))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the latest {@code limit} messages of the chat in chronological order, from memory when the room is
+     * cached with enough history, otherwise from {@code loader}, whose result then seeds the cache.
+     */
+    public List<MessageResponse> latest(String chatId, int limit, Supplier<List<MessageResponse>> loader) {
+        Meters meters = this.meters;
+        if (limit > roomCapacity) {
+            meters.misses().increment();
+            return loader.get();
+        }
+
+        RoomHistory room = rooms.getIfPresent(chatId);
+        List<MessageResponse> cached = room == null ? null : room.latest(limit);
+        if (cached != null) {
+            meters.hits().increment();
+            return cached;
+        }
+        meters.misses().increment();
+
+        long seen = writes.get();
+        List<MessageResponse> loaded = loader.get();
+        boolean complete = loaded.size() < limit;
+
+        rooms.asMap().compute(chatId, (key, current) -> {
+            if (lastWrite.get(stripe(key)) > seen) {
+                return current;
+            }
+            if (current != null && !complete && current.size() >= loaded.size()) {
+                return current;
+            }
+            return new RoomHistory(roomCapacity, loaded, complete);
+        });
+        return loaded;
+    }
+
+    /**
+     * Adds persisted messages to the rooms that are cached; messages of other rooms are ignored.
+     */
+    public void addAll(List<Message> messages) {
+        if (roomCapacity == 0) {
+            return;
+        }
+
+        Map<String, List<Message>> byChat = messages.stream()
+                .collect(Collectors.groupingBy(Message::getChatId, LinkedHashMap::new, Collectors.toList()));
+
+        byChat.forEach((chatId, chatMessages) -> rooms.asMap().compute(chatId, (key, room) -> {
+            lastWrite.set(stripe(key), writes.incrementAndGet());
+            if (room != null) {
+                chatMessages.forEach(message -> room.add(MessageResponse.fromEntity(message)));
+            }
+            return room;
+        }));
+    }
+
+    public void evict(String chatId) {
+        rooms.invalidate(chatId);
+    }
+
+    /**
+     * Publishes whether pages were served from memory as {@code cache.gets}, like the Caffeine caches, plus the
+     * number of cached rooms and rooms evicted for size or idleness.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", rooms, Cache::estimatedSize)
+                .description("Number of chats whose recent messages are cached")
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", rooms, cache -> cache.stats().evictionCount())
+                .description("Chats evicted because the cache was full or they were idle")
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    private static int stripe(String chatId) {
+        return Math.floorMod(chatId.hashCode(), WRITE_STRIPES);
+    }
+
+    /**
+     * Latest messages of one chat in a ring buffer, ordered by (createdAt, id). Appends are O(1); the few messages
+     * that arrive slightly out of order are moved into place from the newest end.
+     */
+    static final class RoomHistory {
+
+        private static final int ROOM_OVERHEAD = 96;
+        private static final int ENTRY_OVERHEAD = 160;
+
+        private final MessageResponse[] ring;
+        private int head;
+        private int size;
+        private long bytes = ROOM_OVERHEAD;
+
+        /**
+         * Whether the buffer holds every message of the chat, so requests for more than {@link #size} can be served.
+         */
+        private boolean complete;
+
+        RoomHistory(int capacity, List<MessageResponse> latest, boolean complete) {
+            this.ring = new MessageResponse[capacity];
+            latest.forEach(this::add);
+            this.complete = complete && latest.size() <= capacity;
+        }
+
+        synchronized void add(MessageResponse message) {
+            int position = size;
+            while (position > 0 && ORDER.compare(get(position - 1), message) > 0) {
+                position--;
+            }
+            if (position > 0 && ORDER.compare(get(position - 1), message) == 0) {
+                return;
+            }
+
+            if (size == ring.length) {
+                complete = false;
+                if (position == 0) {
+                    return;
+                }
+                bytes -= weigh(get(0));
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                position--;
+            }
+
+            for (int i = size; i > position; i--) {
+                set(i, get(i - 1));
+            }
+            set(position, message);
+            size++;
+            bytes += weigh(message);
+        }
+
+        /**
+         * The latest {@code limit} messages, oldest first, or {@code null} when the buffer cannot tell what they are.
+         */
+        synchronized List<MessageResponse> latest(int limit) {
+            if (size < limit && !complete) {
+                return null;
+            }
+            int count = Math.min(limit, size);
+            List<MessageResponse> page = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                page.add(get(i));
+            }
+            return page;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int weight() {
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        private MessageResponse get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void set(int index, MessageResponse message) {
+            ring[(head + index) % ring.length] = message;
+        }
+
+        private static long weigh(MessageResponse message) {
+            return ENTRY_OVERHEAD + 2L * (message.content().length() + message.sender().length());
+        }
+    }
+
+    private record Meters(Counter hits, Counter misses) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(cacheGets(registry, "hit"), cacheGets(registry, "miss"));
+        }
+
+        private static Counter cacheGets(MeterRegistry registry, String result) {
+            return Counter.builder("cache.gets")
+                    .description("Latest-page lookups of recent chat messages")
+                    .tags("cache", CACHE_NAME, "result", result)
+                    .register(registry);
+        }
+    }
+}
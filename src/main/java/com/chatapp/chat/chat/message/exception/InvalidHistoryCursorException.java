@@ -0,0 +1,7 @@
+package com.chatapp.chat.chat.message.exception;
+
+public class InvalidHistoryCursorException extends RuntimeException {
+    public InvalidHistoryCursorException(String message) {
+        super(message);
+    }
+}
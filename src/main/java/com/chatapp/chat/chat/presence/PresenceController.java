@@ -0,0 +1,24 @@
+package com.chatapp.chat.chat.presence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+@Controller
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.chat.presence.enabled", havingValue = "true", matchIfMissing = true)
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    /**
+     * Answers a subscription to {@code /app/presence.{chatId}} with the current roster, sent to the subscribing
+     * session only; the broker is not involved and the subscription ends with that reply.
+     */
+    @SubscribeMapping("/presence.{chatId}")
+    public PresenceRoster roster(@DestinationVariable String chatId) {
+        return presenceService.roster(chatId);
+    }
+}
@@ -0,0 +1,14 @@
+package com.chatapp.chat.chat.presence;
+
+import java.util.Set;
+
+/**
+ * Users who entered or left a room since the previous diff, broadcast to {@code /topic/presence.{chatId}}.
+ * A user who both joined and left within one interval is in neither set.
+ */
+public record PresenceDiff(
+        String chatId,
+        Set<String> joined,
+        Set<String> left
+) {
+}
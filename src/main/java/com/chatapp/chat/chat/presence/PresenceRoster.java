@@ -0,0 +1,12 @@
+package com.chatapp.chat.chat.presence;
+
+import java.util.Set;
+
+/**
+ * Everybody currently in a room, sent once to a session that subscribes to {@code /app/presence.{chatId}}.
+ */
+public record PresenceRoster(
+        String chatId,
+        Set<String> members
+) {
+}
@@ -0,0 +1,225 @@
+package com.chatapp.chat.chat.presence;
+
+import com.chatapp.chat.chat.ChatController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the roster of every room with local subscribers and broadcasts its changes as one {@link PresenceDiff} per
+ * room every {@code flush-interval-ms}, instead of a JOIN frame per user.
+ * <p>
+ * A user is in a room while at least one of their sessions subscribes to {@code /topic/chat.{chatId}}; sessions
+ * without an authenticated user are not counted. A user who leaves and comes back within one interval, as on a
+ * reconnect, is in neither set of the next diff. Rosters only cover the sessions of this instance.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.presence.enabled", havingValue = "true", matchIfMissing = true)
+public class PresenceService implements MeterBinder {
+
+    public static final String PRESENCE_DESTINATION_PREFIX = "/topic/presence.";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Map<String, Map<String, Membership>> membershipsBySession = new HashMap<>();
+    private final Map<String, Map<String, Integer>> rosters = new HashMap<>();
+    private final Map<String, Changes> pending = new LinkedHashMap<>();
+    private int members;
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        Principal user = event.getUser();
+        if (user == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null
+                || destination == null || !destination.startsWith(ChatController.ROOM_DESTINATION_PREFIX)) {
+            return;
+        }
+        subscribe(accessor.getSessionId(), accessor.getSubscriptionId(),
+                destination.substring(ChatController.ROOM_DESTINATION_PREFIX.length()), user.getName());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        removeSession(event.getSessionId());
+    }
+
+    public synchronized PresenceRoster roster(String chatId) {
+        Map<String, Integer> roster = rosters.get(chatId);
+        return new PresenceRoster(chatId, roster == null ? Set.of() : Set.copyOf(roster.keySet()));
+    }
+
+    /**
+     * Broadcasts the changes of every room since the previous run. Rooms whose changes cancelled each other out get
+     * no diff.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence.flush-interval-ms:1000}")
+    public void flush() {
+        Meters meters = this.meters;
+        for (PresenceDiff diff : drain()) {
+            messagingTemplate.convertAndSend(PRESENCE_DESTINATION_PREFIX + diff.chatId(), diff);
+            meters.diffs().increment();
+            meters.joined().increment(diff.joined().size());
+            meters.left().increment(diff.left().size());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.presence.rooms", this, PresenceService::roomCount)
+                .description("Rooms with at least one local member")
+                .register(registry);
+        Gauge.builder("chat.presence.members", this, PresenceService::memberCount)
+                .description("Users in a room, counted once per room they are in")
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    synchronized void subscribe(String sessionId, String subscriptionId, String chatId, String user) {
+        Membership previous = membershipsBySession.computeIfAbsent(sessionId, id -> new HashMap<>())
+                .put(subscriptionId, new Membership(chatId, user));
+        if (previous != null) {
+            leave(previous);
+        }
+        join(new Membership(chatId, user));
+    }
+
+    synchronized void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, Membership> memberships = membershipsBySession.get(sessionId);
+        Membership membership = memberships == null ? null : memberships.remove(subscriptionId);
+        if (membership == null) {
+            return;
+        }
+        if (memberships.isEmpty()) {
+            membershipsBySession.remove(sessionId);
+        }
+        leave(membership);
+    }
+
+    synchronized void removeSession(String sessionId) {
+        Map<String, Membership> memberships = membershipsBySession.remove(sessionId);
+        if (memberships != null) {
+            memberships.values().forEach(this::leave);
+        }
+    }
+
+    private synchronized List<PresenceDiff> drain() {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<PresenceDiff> diffs = new ArrayList<>(pending.size());
+        // the sets are handed over as they are: once drained, nothing changes them any more
+        pending.forEach((chatId, changes) -> {
+            if (!changes.joined().isEmpty() || !changes.left().isEmpty()) {
+                diffs.add(new PresenceDiff(chatId, changes.joined(), changes.left()));
+            }
+        });
+        pending.clear();
+        return diffs;
+    }
+
+    private void join(Membership membership) {
+        Map<String, Integer> roster = rosters.computeIfAbsent(membership.chatId(), id -> new HashMap<>());
+        if (roster.merge(membership.user(), 1, Integer::sum) > 1) {
+            return;
+        }
+        members++;
+        Changes changes = pending.computeIfAbsent(membership.chatId(), id -> new Changes());
+        if (changes.left().remove(membership.user())) {
+            meters.coalesced().increment();
+        } else {
+            changes.joined().add(membership.user());
+        }
+    }
+
+    private void leave(Membership membership) {
+        Map<String, Integer> roster = rosters.get(membership.chatId());
+        if (roster == null
+                || roster.computeIfPresent(membership.user(), (user, count) -> count > 1 ? count - 1 : null) != null) {
+            return;
+        }
+        members--;
+        if (roster.isEmpty()) {
+            rosters.remove(membership.chatId());
+        }
+        Changes changes = pending.computeIfAbsent(membership.chatId(), id -> new Changes());
+        if (changes.joined().remove(membership.user())) {
+            meters.coalesced().increment();
+        } else {
+            changes.left().add(membership.user());
+        }
+    }
+
+    private synchronized int roomCount() {
+        return rosters.size();
+    }
+
+    private synchronized int memberCount() {
+        return members;
+    }
+
+    private record Membership(String chatId, String user) {
+    }
+
+    private record Changes(Set<String> joined, Set<String> left) {
+
+        Changes() {
+            this(new LinkedHashSet<>(), new LinkedHashSet<>());
+        }
+    }
+
+    private record Meters(Counter diffs, Counter joined, Counter left, Counter coalesced) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    Counter.builder("chat.presence.diffs")
+                            .description("Presence diffs broadcast, at most one per room and interval")
+                            .register(registry),
+                    change(registry, "joined"),
+                    change(registry, "left"),
+                    Counter.builder("chat.presence.coalesced")
+                            .description("Joins and leaves of the same user that cancelled out within one interval")
+                            .register(registry)
+            );
+        }
+
+        private static Counter change(MeterRegistry registry, String change) {
+            return Counter.builder("chat.presence.changes")
+                    .description("Users reported as joined or left in presence diffs")
+                    .tag("change", change)
+                    .register(registry);
+        }
+    }
+}
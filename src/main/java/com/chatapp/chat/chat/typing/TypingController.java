@@ -0,0 +1,48 @@
+package com.chatapp.chat.chat.typing;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class TypingController {
+
+    public static final String TYPING_DESTINATION_PREFIX = "/topic/typing.";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final TypingThrottle typingThrottle;
+
+    /**
+     * Relays a typing signal to {@code /topic/typing.{chatId}} without persisting it. The throttle is keyed by the
+     * authenticated user where there is one, so a client cannot get around it by changing {@code sender}.
+     */
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload ChatMessage message, Principal user) {
+        if (message.getChatId() == null) {
+            return;
+        }
+        String sender = user != null ? user.getName() : message.getSender();
+        if (!typingThrottle.tryAcquire(message.getChatId(), String.valueOf(sender))) {
+            log.trace("Throttled typing signal of {} in {}", sender, message.getChatId());
+            return;
+        }
+
+        message.setType(ChatMessageType.TYPING);
+        message.setContent(null);
+
+        messagingTemplate.convertAndSend(
+                TYPING_DESTINATION_PREFIX + message.getChatId(),
+                message
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.chatapp.chat.chat.typing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Lets through at most one typing signal per sender and room every {@code interval-ms}; the others are dropped, not
+ * delayed, as the next keystroke sends a fresh one anyway.
+ * <p>
+ * A sender is remembered for one interval after their last broadcast. At most {@code max-senders} are remembered;
+ * beyond that the least recent are forgotten early, which can only let a signal through sooner.
+ */
+@Component
+public class TypingThrottle implements MeterBinder {
+
+    private final Cache<String, Boolean> recentSenders;
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    public TypingThrottle(
+            @Value("${app.chat.typing.interval-ms:2000}") long intervalMs,
+            @Value("${app.chat.typing.max-senders:100000}") long maxSenders
+    ) {
+        this.recentSenders = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(intervalMs))
+                .maximumSize(maxSenders)
+                .build();
+    }
+
+    /**
+     * Whether a typing signal of {@code sender} in {@code chatId} may be broadcast now.
+     */
+    public boolean tryAcquire(String chatId, String sender) {
+        boolean acquired = recentSenders.asMap().putIfAbsent(chatId + '\n' + sender, Boolean.TRUE) == null;
+        Meters meters = this.meters;
+        (acquired ? meters.broadcast() : meters.throttled()).increment();
+        return acquired;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters = Meters.register(registry);
+    }
+
+    private record Meters(Counter broadcast, Counter throttled) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(signals(registry, "broadcast"), signals(registry, "throttled"));
+        }
+
+        private static Counter signals(MeterRegistry registry, String result) {
+            return Counter.builder("chat.typing.signals")
+                    .description("Typing signals received, by whether they were broadcast or throttled")
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
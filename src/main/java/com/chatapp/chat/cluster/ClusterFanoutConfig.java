@@ -0,0 +1,77 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.message.MessageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.UUID;
+
+/**
+ * Fans chat messages out to the other instances behind the load balancer when {@code app.cluster.fanout.enabled}
+ * is set. Every instance gets a random node id at startup, so it can recognise and skip its own notifications.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.fanout.enabled", havingValue = "true")
+@EnableConfigurationProperties(ClusterFanoutProperties.class)
+public class ClusterFanoutConfig {
+
+    private final String node = UUID.randomUUID().toString();
+
+    @Bean
+    public RoomChannels roomChannels(ClusterFanoutProperties properties) {
+        return new RoomChannels(properties.channelPrefix());
+    }
+
+    @Bean
+    public RoomSubscriptions roomSubscriptions() {
+        return new RoomSubscriptions();
+    }
+
+    @Bean
+    public ClusterFanoutPublisher clusterFanoutPublisher(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            RoomChannels roomChannels,
+            ClusterFanoutProperties properties
+    ) {
+        return new ClusterFanoutPublisher(jdbcTemplate, objectMapper, roomChannels, node, properties.inlineLimit());
+    }
+
+    /**
+     * The listener opens its connection outside the pool: it keeps it for the lifetime of the application, and a
+     * connection that is still listening must never be handed to anybody else.
+     */
+    @Bean
+    public ClusterFanoutListener clusterFanoutListener(
+            DataSourceProperties dataSourceProperties,
+            RoomSubscriptions roomSubscriptions,
+            RoomChannels roomChannels,
+            ObjectMapper objectMapper,
+            MessageService messageService,
+            SimpMessagingTemplate messagingTemplate,
+            ClusterFanoutProperties properties
+    ) {
+        DriverManagerDataSource listenerDataSource = new DriverManagerDataSource(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+        return new ClusterFanoutListener(
+                listenerDataSource,
+                roomSubscriptions,
+                roomChannels,
+                objectMapper,
+                messageService,
+                messagingTemplate,
+                node,
+                properties
+        );
+    }
+}
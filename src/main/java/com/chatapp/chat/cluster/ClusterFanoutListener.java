@@ -0,0 +1,268 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.ChatController;
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receives the room notifications of other instances and broadcasts their messages to the local subscribers of the
+ * room, the same way {@link ChatController} broadcasts messages it received itself.
+ * <p>
+ * A single thread holds one dedicated connection, listens to the channel of every room with local subscribers and
+ * waits for notifications. The connection is not thread-safe while it waits, so rooms subscribed in the meantime
+ * are listened to after at most {@code poll-interval-ms}; messages persisted before that only reach the new
+ * subscriber through the history. A lost connection is reopened after {@code reconnect-delay-ms} and listens to all
+ * current rooms again.
+ */
+@Slf4j
+public class ClusterFanoutListener implements MeterBinder {
+
+    private static final long SHUTDOWN_JOIN_MS = 10_000;
+
+    private final DataSource dataSource;
+    private final RoomSubscriptions subscriptions;
+    private final RoomChannels channels;
+    private final ObjectMapper objectMapper;
+    private final MessageService messageService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final String node;
+    private final int pollIntervalMs;
+    private final long reconnectDelayMs;
+
+    /**
+     * Channels listened to on the current connection; only changed by the listener thread.
+     */
+    private final Set<String> listening = ConcurrentHashMap.newKeySet();
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+    private volatile boolean running;
+    private Thread listener;
+
+    public ClusterFanoutListener(
+            DataSource dataSource,
+            RoomSubscriptions subscriptions,
+            RoomChannels channels,
+            ObjectMapper objectMapper,
+            MessageService messageService,
+            SimpMessagingTemplate messagingTemplate,
+            String node,
+            ClusterFanoutProperties properties
+    ) {
+        this.dataSource = dataSource;
+        this.subscriptions = subscriptions;
+        this.channels = channels;
+        this.objectMapper = objectMapper;
+        this.messageService = messageService;
+        this.messagingTemplate = messagingTemplate;
+        this.node = node;
+        this.pollIntervalMs = Math.max(1, properties.pollIntervalMs());
+        this.reconnectDelayMs = properties.reconnectDelayMs();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform()
+                .name("cluster-fanout-listener")
+                .daemon(true)
+                .start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        listener.join(SHUTDOWN_JOIN_MS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cluster.fanout.rooms", listening, Set::size)
+                .description("Room channels this instance listens to")
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                listening.clear();
+                subscriptions.drainChanged();
+                for (String chatId : subscriptions.rooms()) {
+                    sync(connection, chatId);
+                }
+                log.info("Cluster fan-out listening to {} rooms as node {}", listening.size(), node);
+
+                while (running) {
+                    for (String chatId : subscriptions.drainChanged()) {
+                        sync(connection, chatId);
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(pollIntervalMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            try {
+                                receive(notification);
+                            } catch (RuntimeException e) {
+                                log.warn("Could not deliver notification on channel {}", notification.getName(), e);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                listening.clear();
+                if (running) {
+                    log.warn("Cluster fan-out connection failed, reconnecting in {} ms", reconnectDelayMs, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    /**
+     * Listens to the room's channel when it has local subscribers and stops listening when it has none.
+     */
+    private void sync(Connection connection, String chatId) throws SQLException {
+        String channel = channels.channel(chatId);
+        boolean wanted = subscriptions.hasSubscribers(chatId);
+        if (wanted == listening.contains(channel)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute((wanted ? "LISTEN " : "UNLISTEN ") + RoomChannels.quoted(channel));
+        }
+        if (wanted) {
+            listening.add(channel);
+        } else {
+            listening.remove(channel);
+        }
+    }
+
+    void receive(PGNotification notification) {
+        Meters meters = this.meters;
+        RoomNotification room;
+        try {
+            room = objectMapper.readValue(notification.getParameter(), RoomNotification.class);
+        } catch (JsonProcessingException e) {
+            meters.invalid().increment();
+            log.warn("Ignoring malformed notification on channel {}", notification.getName(), e);
+            return;
+        }
+
+        if (node.equals(room.node())) {
+            meters.own().increment();
+            return;
+        }
+        if (!subscriptions.hasSubscribers(room.chatId())) {
+            meters.unsubscribed().increment();
+            return;
+        }
+
+        Optional<ChatMessage> message = room.inline() ? Optional.of(chatMessage(room)) : load(room);
+        if (message.isEmpty()) {
+            meters.missing().increment();
+            log.warn("Message {} of chat {} notified by node {} was not found", room.id(), room.chatId(), room.node());
+            return;
+        }
+
+        messagingTemplate.convertAndSend(ChatController.ROOM_DESTINATION_PREFIX + room.chatId(), message.get());
+        meters.delivered().increment();
+        if (room.createdAt() != null) {
+            meters.delay().record(Duration.between(room.createdAt(), Instant.now()));
+        }
+    }
+
+    private Optional<ChatMessage> load(RoomNotification room) {
+        return messageService.findById(room.id())
+                .filter(message -> room.chatId().equals(message.getChatId()))
+                .map(ClusterFanoutListener::chatMessage);
+    }
+
+    private static ChatMessage chatMessage(RoomNotification room) {
+        return chatMessage(room.chatId(), room.sender(), room.content());
+    }
+
+    private static ChatMessage chatMessage(Message message) {
+        return chatMessage(message.getChatId(), message.getSender(), message.getContent());
+    }
+
+    private static ChatMessage chatMessage(String chatId, String sender, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setChatId(chatId);
+        message.setSender(sender);
+        message.setContent(content);
+        message.setType(ChatMessageType.CHAT);
+        return message;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record Meters(
+            Counter delivered,
+            Counter own,
+            Counter unsubscribed,
+            Counter missing,
+            Counter invalid,
+            Timer delay
+    ) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    received(registry, "delivered"),
+                    received(registry, "own"),
+                    received(registry, "unsubscribed"),
+                    received(registry, "missing"),
+                    received(registry, "invalid"),
+                    Timer.builder("cluster.fanout.delay")
+                            .description("Time from receipt of a message by another instance to its local broadcast")
+                            .publishPercentileHistogram()
+                            .register(registry)
+            );
+        }
+
+        private static Counter received(MeterRegistry registry, String result) {
+            return Counter.builder("cluster.fanout.received")
+                    .description("Notifications received from the room channels")
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
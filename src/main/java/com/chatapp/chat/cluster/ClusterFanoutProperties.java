@@ -0,0 +1,25 @@
+package com.chatapp.chat.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Fan-out of chat messages to the other instances of the application over PostgreSQL {@code LISTEN/NOTIFY}
+ * ({@code app.cluster.fanout.*}).
+ *
+ * @param enabled          publish persisted messages to, and receive them from, other instances sharing the database
+ * @param channelPrefix    prefix of the notification channel of each room
+ * @param inlineLimit      notifications up to this many bytes carry the message itself; larger ones only its id and
+ *                         the receiving instances load it. PostgreSQL rejects payloads of 8000 bytes and more
+ * @param pollIntervalMs   longest wait for notifications before rooms subscribed in the meantime are listened to
+ * @param reconnectDelayMs wait before the listening connection is opened again after it failed
+ */
+@ConfigurationProperties(prefix = "app.cluster.fanout")
+public record ClusterFanoutProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("chat:") String channelPrefix,
+        @DefaultValue("7900") int inlineLimit,
+        @DefaultValue("250") int pollIntervalMs,
+        @DefaultValue("5000") long reconnectDelayMs
+) {
+}
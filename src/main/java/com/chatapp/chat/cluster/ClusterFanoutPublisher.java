@@ -0,0 +1,116 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessagesPersistedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Notifies the channel of each room about its persisted messages, one statement per batch. Messages that do not fit
+ * into {@code inline-limit} are only referenced by id.
+ * <p>
+ * Runs on the thread that persisted the batch, after the commit. A failed notification is logged and counted but
+ * never fails the write, which would otherwise be retried and inserted twice; instances that missed the notification
+ * only show the message once their clients load the history.
+ */
+@Slf4j
+public class ClusterFanoutPublisher implements MeterBinder {
+
+    static final String NOTIFY_SQL =
+            "SELECT pg_notify(n.channel, n.payload) FROM unnest(?::text[], ?::text[]) AS n(channel, payload)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RoomChannels channels;
+    private final String node;
+    private final int inlineLimit;
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    public ClusterFanoutPublisher(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            RoomChannels channels,
+            String node,
+            int inlineLimit
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.channels = channels;
+        this.node = node;
+        this.inlineLimit = inlineLimit;
+    }
+
+    @EventListener
+    public void onPersisted(MessagesPersistedEvent event) {
+        List<Message> messages = event.messages();
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Meters meters = this.meters;
+        String[] channelNames = new String[messages.size()];
+        String[] payloads = new String[messages.size()];
+        int inline = 0;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                RoomNotification notification = RoomNotification.of(node, message);
+                String payload = objectMapper.writeValueAsString(notification);
+                if (payload.getBytes(StandardCharsets.UTF_8).length <= inlineLimit) {
+                    inline++;
+                } else {
+                    payload = objectMapper.writeValueAsString(notification.reference());
+                }
+                channelNames[i] = channels.channel(message.getChatId());
+                payloads[i] = payload;
+            }
+            jdbcTemplate.query(NOTIFY_SQL, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("text", channelNames));
+                ps.setArray(2, ps.getConnection().createArrayOf("text", payloads));
+            }, rs -> {
+            });
+        } catch (RuntimeException | JsonProcessingException e) {
+            meters.failures().increment(messages.size());
+            log.warn("Could not notify other instances of {} messages", messages.size(), e);
+            return;
+        }
+        meters.inline().increment(inline);
+        meters.reference().increment(messages.size() - inline);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters = Meters.register(registry);
+    }
+
+    private record Meters(Counter inline, Counter reference, Counter failures) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    published(registry, "inline"),
+                    published(registry, "reference"),
+                    Counter.builder("cluster.fanout.publish.failures")
+                            .description("Persisted messages other instances could not be notified of")
+                            .register(registry)
+            );
+        }
+
+        private static Counter published(MeterRegistry registry, String payload) {
+            return Counter.builder("cluster.fanout.published")
+                    .description("Messages other instances were notified of")
+                    .tag("payload", payload)
+                    .register(registry);
+        }
+    }
+}
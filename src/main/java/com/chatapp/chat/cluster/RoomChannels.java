@@ -0,0 +1,57 @@
+package com.chatapp.chat.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Names the notification channel of a room. PostgreSQL truncates channel names to 63 bytes, so chat ids that do not
+ * fit behind the prefix are replaced by 240 bits of their SHA-256 hash. Receivers still check the chat named in each
+ * notification.
+ */
+public class RoomChannels {
+
+    static final int MAX_CHANNEL_BYTES = 63;
+
+    private static final int HASH_BYTES = 30;
+    /**
+     * {@code #} and {@link #HASH_BYTES} in unpadded base64.
+     */
+    private static final int HASHED_CHAT_ID_LENGTH = 1 + 40;
+
+    private final String prefix;
+
+    public RoomChannels(String prefix) {
+        if (prefix.getBytes(StandardCharsets.UTF_8).length + HASHED_CHAT_ID_LENGTH > MAX_CHANNEL_BYTES) {
+            throw new IllegalArgumentException("Channel prefix '" + prefix + "' is too long");
+        }
+        this.prefix = prefix;
+    }
+
+    public String channel(String chatId) {
+        String channel = prefix + chatId;
+        if (channel.getBytes(StandardCharsets.UTF_8).length <= MAX_CHANNEL_BYTES) {
+            return channel;
+        }
+        return prefix + hash(chatId);
+    }
+
+    /**
+     * The channel as a quoted identifier for {@code LISTEN} and {@code UNLISTEN}, which take no bind parameters.
+     */
+    static String quoted(String channel) {
+        return '"' + channel.replace("\"", "\"\"") + '"';
+    }
+
+    private static String hash(String chatId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(chatId.getBytes(StandardCharsets.UTF_8));
+            byte[] truncated = new byte[HASH_BYTES];
+            System.arraycopy(digest, 0, truncated, 0, HASH_BYTES);
+            return '#' + Base64.getUrlEncoder().withoutPadding().encodeToString(truncated);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.message.Message;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Payload of a room notification: a persisted message and the instance that received it from its sender. A
+ * notification without {@code content} only references the message, which is then loaded by its id.
+ *
+ * @param node instance that published the notification; it ignores its own notifications
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoomNotification(
+        String node,
+        UUID id,
+        String chatId,
+        String sender,
+        String content,
+        Instant createdAt
+) {
+
+    static RoomNotification of(String node, Message message) {
+        return new RoomNotification(
+                node,
+                message.getId(),
+                message.getChatId(),
+                message.getSender(),
+                message.getContent(),
+                message.getCreatedAt()
+        );
+    }
+
+    RoomNotification reference() {
+        return new RoomNotification(node, id, chatId, null, null, createdAt);
+    }
+
+    boolean inline() {
+        return content != null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.ChatController;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the subscriptions of local WebSocket sessions to each room ({@code /topic/chat.<chatId>}), so this
+ * instance only listens to the notifications of rooms somebody on it has open.
+ * <p>
+ * Rooms whose count went from or to zero are collected until the listener takes them with {@link #drainChanged()}.
+ */
+public class RoomSubscriptions {
+
+    private final Map<String, Map<String, String>> roomsBySession = new HashMap<>();
+    private final Map<String, Integer> subscribers = new HashMap<>();
+    private final Set<String> changed = new LinkedHashSet<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || destination == null
+                || !destination.startsWith(ChatController.ROOM_DESTINATION_PREFIX)) {
+            return;
+        }
+        subscribe(accessor.getSessionId(), accessor.getSubscriptionId(),
+                destination.substring(ChatController.ROOM_DESTINATION_PREFIX.length()));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        removeSession(event.getSessionId());
+    }
+
+    public synchronized boolean hasSubscribers(String chatId) {
+        return subscribers.containsKey(chatId);
+    }
+
+    public synchronized Set<String> rooms() {
+        return Set.copyOf(subscribers.keySet());
+    }
+
+    /**
+     * Rooms that gained their first or lost their last subscriber since the previous call.
+     */
+    public synchronized Set<String> drainChanged() {
+        if (changed.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> drained = Set.copyOf(changed);
+        changed.clear();
+        return drained;
+    }
+
+    synchronized void subscribe(String sessionId, String subscriptionId, String chatId) {
+        String previous = roomsBySession.computeIfAbsent(sessionId, id -> new HashMap<>()).put(subscriptionId, chatId);
+        if (previous != null) {
+            release(previous);
+        }
+        if (subscribers.merge(chatId, 1, Integer::sum) == 1) {
+            changed.add(chatId);
+        }
+    }
+
+    synchronized void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> rooms = roomsBySession.get(sessionId);
+        String chatId = rooms == null ? null : rooms.remove(subscriptionId);
+        if (chatId == null) {
+            return;
+        }
+        if (rooms.isEmpty()) {
+            roomsBySession.remove(sessionId);
+        }
+        release(chatId);
+    }
+
+    synchronized void removeSession(String sessionId) {
+        Map<String, String> rooms = roomsBySession.remove(sessionId);
+        if (rooms != null) {
+            rooms.values().forEach(this::release);
+        }
+    }
+
+    private void release(String chatId) {
+        if (subscribers.computeIfPresent(chatId, (room, count) -> count > 1 ? count - 1 : null) == null) {
+            changed.add(chatId);
+        }
+    }
+}
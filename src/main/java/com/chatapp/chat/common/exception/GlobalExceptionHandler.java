@@ -1,5 +1,6 @@
 package com.chatapp.chat.common.exception;
 
+import com.chatapp.chat.chat.message.exception.InvalidHistoryCursorException;
 import com.chatapp.chat.user.exception.EmailAlreadyUsedException;
 import com.chatapp.chat.user.exception.UsernameAlreadyUsedException;
 import org.springframework.http.HttpStatus;
@@ -23,6 +24,11 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidHistoryCursorException.class)
+    public ResponseEntity<Object> handleInvalidHistoryCursor(InvalidHistoryCursorException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneral(Exception ex) {
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred");
@@ -0,0 +1,72 @@
+package com.chatapp.chat.common.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp, a 12-bit sequence and 62 random bits.
+ * <p>
+ * Ids from one generator are strictly increasing, so new rows land at the right edge of the primary key index
+ * instead of on random pages. Within a millisecond the sequence counts up; when it runs out, or the clock steps
+ * back, the timestamp is carried forward from the last id rather than going back in time.
+ * <p>
+ * Used through {@code @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)}; Hibernate creates one
+ * instance per entity, so ordering is guaranteed per table within one application instance.
+ */
+public class TimeOrderedUuidGenerator implements UuidValueGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long IETF_VARIANT = 0x8000_0000_0000_0000L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Clock clock;
+
+    /**
+     * Timestamp in milliseconds shifted left by {@link #SEQUENCE_BITS}, plus the sequence, of the last id.
+     */
+    private final AtomicLong lastStamp = new AtomicLong();
+
+    public TimeOrderedUuidGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    public TimeOrderedUuidGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    public UUID next() {
+        long now = clock.millis() << SEQUENCE_BITS;
+        long stamp = lastStamp.updateAndGet(last -> Math.max(last + 1, now));
+
+        long timestamp = stamp >>> SEQUENCE_BITS;
+        long mostSignificant = timestamp << 16 | VERSION_7 | stamp & SEQUENCE_MASK;
+        long leastSignificant = RANDOM.nextLong() >>> 2 | IETF_VARIANT;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /**
+     * The creation time embedded in a version 7 UUID, with millisecond precision.
+     *
+     * @throws IllegalArgumentException if {@code id} is not a version 7 UUID
+     */
+    public static Instant timestampOf(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("UUID " + id + " is not version 7");
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
@@ -0,0 +1,13 @@
+package com.chatapp.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Exposes the health, metrics and Prometheus actuator endpoints by default. Property sources added here rank
+ * below {@code application.yaml}, so a deployment can still narrow or widen the exposure.
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+}
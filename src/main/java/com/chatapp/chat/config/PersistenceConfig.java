@@ -0,0 +1,62 @@
+package com.chatapp.chat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    private static final String POSTGRESQL_URL_PREFIX = "jdbc:postgresql:";
+    private static final String REWRITE_BATCHED_INSERTS = "reWriteBatchedInserts";
+
+    /**
+     * Lets Hibernate group the inserts of one write-behind flush into JDBC batches
+     * instead of sending them statement by statement, ordered by entity so batches are not broken up.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+            @Value("${app.messages.write-behind.batch-size:200}") int batchSize
+    ) {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+        };
+    }
+
+    /**
+     * Lets the PostgreSQL driver rewrite a JDBC batch of inserts into multi-row {@code INSERT ... VALUES}
+     * statements, which saves a round-trip per row. A value set in {@code application.yaml} or the JDBC URL wins.
+     */
+    @Bean
+    public static BeanPostProcessor rewriteBatchedInsertsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && dataSource.getJdbcUrl() != null
+                        && dataSource.getJdbcUrl().startsWith(POSTGRESQL_URL_PREFIX)
+                        && !dataSource.getJdbcUrl().contains(REWRITE_BATCHED_INSERTS)
+                        && !dataSource.getDataSourceProperties().containsKey(REWRITE_BATCHED_INSERTS)) {
+                    dataSource.addDataSourceProperty(REWRITE_BATCHED_INSERTS, "true");
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Schemas that were created by Hibernate before migrations existed have no Flyway history.
+     * They are baselined at V1 (the schema Hibernate produced) so only newer migrations run.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+}
@@ -0,0 +1,12 @@
+package com.chatapp.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} methods, used for periodic database housekeeping.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
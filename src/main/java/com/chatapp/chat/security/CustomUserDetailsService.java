@@ -1,30 +1,84 @@
 package com.chatapp.chat.security;
 
 import com.chatapp.chat.user.User;
+import com.chatapp.chat.user.UserChangedEvent;
 import com.chatapp.chat.user.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
 
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
+    public static final String CACHE_NAME = "userDetails";
+
     private final UserRepository userRepository;
+    private final Cache<String, UserSnapshot> users;
+
+    /**
+     * Users are cached as immutable snapshots rather than {@link UserDetails}: Spring Security erases
+     * the password of the returned details after authentication, which would corrupt a shared cached instance.
+     */
+    public CustomUserDetailsService(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.user-cache.ttl-ms:300000}") long ttlMs
+    ) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        UserSnapshot user = users.get(username, this::findUser);
+
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
 
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
-                .disabled(!user.isEnabled())
+                .username(user.username())
+                .password(user.password())
+                .roles(user.role())
+                .disabled(!user.enabled())
                 .build();
     }
 
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.username());
+    }
+
+    private UserSnapshot findUser(String username) {
+        return userRepository.findByUsername(username)
+                .map(UserSnapshot::of)
+                .orElse(null);
+    }
+
+    private record UserSnapshot(String username, String password, String role, boolean enabled) {
+
+        static UserSnapshot of(User user) {
+            return new UserSnapshot(user.getUsername(), user.getPassword(), user.getRole().name(), user.isEnabled());
+        }
+    }
 }
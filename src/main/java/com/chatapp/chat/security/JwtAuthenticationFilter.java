@@ -1,14 +1,16 @@
 package com.chatapp.chat.security;
 
+import com.chatapp.chat.websocket.BrokerRelayConfig;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,14 +18,44 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService customUserDetailsService;
+    private final UserAccessRegistry userAccessRegistry;
+    private final boolean statelessAuthentication;
+
+    /**
+     * With stateless authentication enabled, tokens that carry authority claims are trusted until they expire
+     * (unless {@link UserAccessRegistry} reports a newer role or enabled state) and the user is not loaded
+     * from the database. Tokens issued without those claims always fall back to a lookup.
+     * <p>
+     * The registry only learns of changes made on this instance, so stateless authentication is off by default and
+     * meant for single-instance deployments; with several instances a user disabled on one is still let in by the
+     * others until their token expires.
+     */
+    public JwtAuthenticationFilter(
+            JwtUtils jwtUtils,
+            CustomUserDetailsService customUserDetailsService,
+            UserAccessRegistry userAccessRegistry,
+            @Value("${app.jwt.stateless:false}") boolean statelessAuthentication,
+            @Value("${app.cluster.fanout.enabled:false}") boolean clusterFanout,
+            @Value("${app.websocket.broker.type:}") String brokerType
+    ) {
+        if (statelessAuthentication && (clusterFanout || BrokerRelayConfig.RELAY.equals(brokerType))) {
+            log.warn("app.jwt.stateless is set together with cluster fan-out or the broker relay; a user disabled "
+                    + "or given another role on one instance keeps their old access on the others until their "
+                    + "token expires");
+        }
+        this.jwtUtils = jwtUtils;
+        this.customUserDetailsService = customUserDetailsService;
+        this.userAccessRegistry = userAccessRegistry;
+        this.statelessAuthentication = statelessAuthentication;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -41,37 +73,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String token = header.substring(7);
 
-        if (!jwtUtils.isValid(token)) {
+        Optional<VerifiedToken> verified = jwtUtils.verify(token);
+
+        if (verified.isEmpty()) {
             log.debug("Invalid JWT token");
             filterChain.doFilter(request, response);
             return;
         }
 
-        String userName = jwtUtils.extractUserName(token);
-
-        if (userName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            try {
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(userName);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+
+            VerifiedToken claims = verified.get();
+
+            if (statelessAuthentication && claims.carriesAuthorities()) {
+                if (userAccessRegistry.isRevoked(claims)) {
+                    log.debug("Revoked JWT token");
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+
+                authenticate(request, User.withUsername(claims.subject())
+                        .password("")
+                        .authorities(claims.roles().toArray(String[]::new))
+                        .build());
+            } else {
+                try {
+                    authenticate(request, customUserDetailsService.loadUserByUsername(claims.subject()));
+                } catch (UsernameNotFoundException e) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+            }
+        }
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+        filterChain.doFilter(request, response);
+    }
 
-                authentication.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
                 );
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            } catch (UsernameNotFoundException e) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-        }
+        authentication.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
 
-        filterChain.doFilter(request, response);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 }
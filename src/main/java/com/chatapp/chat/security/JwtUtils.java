@@ -1,23 +1,52 @@
 package com.chatapp.chat.security;
 
 import com.chatapp.chat.security.exception.InvalidJwtSecretException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class JwtUtils {
+public class JwtUtils implements MeterBinder {
+
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String ENABLED_CLAIM = "enabled";
+    public static final String CACHE_NAME = "jwtTokens";
 
     private final Key signingKey;
     private final long expirationMs;
     private final Clock clock;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> validatedTokens;
+
+    // no-op until bound: an empty composite registry hands out meters that record nothing
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
 
     /**
      * Production constructor — used by Spring Boot.
@@ -25,15 +54,20 @@ public class JwtUtils {
     @Autowired
     public JwtUtils(
             @Value("${app.jwt.secret}") String secret,
-            @Value("${app.jwt.expiration-ms}") long expirationMs
+            @Value("${app.jwt.expiration-ms}") long expirationMs,
+            @Value("${app.jwt.cache-size:" + DEFAULT_CACHE_SIZE + "}") int cacheSize
     ) {
-        this(secret, expirationMs, Clock.systemUTC());
+        this(secret, expirationMs, Clock.systemUTC(), cacheSize);
     }
 
     /**
      * Test constructor — allows injecting fixed Clock.
      */
     public JwtUtils(String secret, long expirationMs, Clock clock) {
+        this(secret, expirationMs, clock, DEFAULT_CACHE_SIZE);
+    }
+
+    public JwtUtils(String secret, long expirationMs, Clock clock, int cacheSize) {
         if (secret.length() < 32) {
             throw new InvalidJwtSecretException(
                     "JWT secret key must be at least 32 characters long."
@@ -43,9 +77,131 @@ public class JwtUtils {
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
         this.clock = clock;
+        this.validatedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) ->
+                        Duration.between(this.clock.instant(), token.expiresAt())))
+                .build();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return signingKey;
+                    }
+                })
+                .setClock(() -> Date.from(this.clock.instant()))
+                .build();
     }
 
     public String generateToken(String subject) {
+        return tokenBuilder(subject).compact();
+    }
+
+    /**
+     * Issues a token that also carries the user's authorities and enabled flag,
+     * so requests can be authenticated from the token alone.
+     */
+    public String generateToken(String subject, Collection<? extends GrantedAuthority> authorities) {
+        List<String> roles = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        return tokenBuilder(subject)
+                .claim(ROLES_CLAIM, roles)
+                .claim(ENABLED_CLAIM, true)
+                .compact();
+    }
+
+    /**
+     * Verifies the token and returns its subject, or empty when the token is invalid, expired or has no subject.
+     */
+    public Optional<String> validateAndGetSubject(String token) {
+        return verify(token).map(VerifiedToken::subject);
+    }
+
+    /**
+     * Publishes hits and misses of the validated-token cache as {@code cache.gets} (like the Caffeine caches)
+     * and the cost of a full verification on a miss as {@code jwt.verification}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", validatedTokens, Cache::estimatedSize)
+                .description("Number of validated tokens remembered until their expiry")
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    /**
+     * Verifies the token and returns its claims, or empty when the token is invalid, expired or has no subject.
+     * <p>
+     * Tokens that passed verification are remembered (by SHA-256 of the token) until their {@code exp},
+     * so repeated requests with the same token skip parsing and signature verification. At most
+     * {@code app.jwt.cache-size} are remembered; beyond that Caffeine evicts the least useful ones.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        String key = hash(token);
+        Instant now = clock.instant();
+
+        Meters meters = this.meters;
+
+        VerifiedToken cached = validatedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(now)) {
+                meters.hits().increment();
+                return Optional.of(cached);
+            }
+            validatedTokens.asMap().remove(key, cached);
+        }
+        meters.misses().increment();
+
+        long start = System.nanoTime();
+        Optional<VerifiedToken> verified = parseAndVerify(token);
+        long elapsed = System.nanoTime() - start;
+
+        if (verified.isEmpty()) {
+            meters.rejected().record(elapsed, TimeUnit.NANOSECONDS);
+            return verified;
+        }
+
+        meters.accepted().record(elapsed, TimeUnit.NANOSECONDS);
+        validatedTokens.put(key, verified.get());
+        return verified;
+    }
+
+    /**
+     * Subject of a valid token, through the same cache as {@link #verify}.
+     *
+     * @throws JwtException when the token is not valid
+     */
+    public String extractUserName(String token) {
+        return validateAndGetSubject(token).orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
+    public boolean isValid(String token) {
+        return validateAndGetSubject(token).isPresent();
+    }
+
+    long cachedTokens() {
+        validatedTokens.cleanUp();
+        return validatedTokens.estimatedSize();
+    }
+
+    private Optional<VerifiedToken> parseAndVerify(String token) {
+        Claims claims;
+        try {
+            claims = parseToken(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toVerifiedToken(claims));
+    }
+
+    private JwtBuilder tokenBuilder(String subject) {
         Instant now = clock.instant();
         Instant expiry = now.plusMillis(expirationMs);
 
@@ -53,27 +209,62 @@ public class JwtUtils {
                 .setSubject(subject)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(expiry))
-                .signWith(signingKey, SignatureAlgorithm.HS256)
-                .compact();
+                .signWith(signingKey, SignatureAlgorithm.HS256);
     }
 
-    public String extractUserName(String token) {
-        return parseToken(token).getBody().getSubject();
+    private Jws<Claims> parseToken(String token) {
+        return parser.parseClaimsJws(token);
     }
 
-    public boolean isValid(String token) {
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        List<String> roles = null;
+        if (claims.get(ROLES_CLAIM) instanceof List<?> values) {
+            roles = values.stream().map(String::valueOf).toList();
+        }
+        Boolean enabled = claims.get(ENABLED_CLAIM, Boolean.class);
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                roles,
+                enabled == null || enabled,
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    private static String hash(String token) {
         try {
-            parseToken(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 
-    private Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token);
+    private record Meters(Counter hits, Counter misses, Timer accepted, Timer rejected) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    cacheGets(registry, "hit"),
+                    cacheGets(registry, "miss"),
+                    verification(registry, "valid"),
+                    verification(registry, "invalid")
+            );
+        }
+
+        private static Counter cacheGets(MeterRegistry registry, String result) {
+            return Counter.builder("cache.gets")
+                    .description("Validated-token cache lookups")
+                    .tags("cache", CACHE_NAME, "result", result)
+                    .register(registry);
+        }
+
+        private static Timer verification(MeterRegistry registry, String outcome) {
+            return Timer.builder("jwt.verification")
+                    .description("Parsing and signature verification of a token that was not in the cache")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
     }
 }
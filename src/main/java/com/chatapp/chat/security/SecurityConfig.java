@@ -1,5 +1,6 @@
 package com.chatapp.chat.security;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,6 +31,8 @@ public class SecurityConfig {
         http.authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/auth/register").permitAll()
+                // scraped by Prometheus and probed by the orchestrator, neither of which holds a JWT
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
                 .anyRequest().authenticated()
         );
 
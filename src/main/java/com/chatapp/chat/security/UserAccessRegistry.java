@@ -0,0 +1,69 @@
+package com.chatapp.chat.security;
+
+import com.chatapp.chat.user.UserChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the current role and enabled flag of users whose account changed while tokens issued
+ * to them may still be alive, so stateless authentication can reject tokens with outdated claims.
+ * <p>
+ * An entry is kept for one token lifetime: after that every token issued before the change has expired
+ * and newer tokens already carry the current claims. Only changes made on this instance are seen, which is why
+ * stateless authentication is off by default (see {@link JwtAuthenticationFilter}).
+ */
+@Slf4j
+@Component
+public class UserAccessRegistry {
+
+    private final Map<String, AccessState> changedUsers = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final Clock clock;
+
+    public UserAccessRegistry(
+            @Value("${app.jwt.expiration-ms}") long expirationMs,
+            Clock clock
+    ) {
+        this.retention = Duration.ofMillis(expirationMs);
+        this.clock = clock;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Instant now = clock.instant();
+        changedUsers.values().removeIf(state -> state.changedAt().plus(retention).isBefore(now));
+
+        String role = event.role() == null ? null : "ROLE_" + event.role().name();
+        changedUsers.put(event.username(), new AccessState(role, event.enabled(), now));
+
+        log.debug("Access state of user {} changed: role={} enabled={}", event.username(), role, event.enabled());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (!token.enabled()) {
+            return true;
+        }
+
+        AccessState state = changedUsers.get(token.subject());
+        if (state == null) {
+            return false;
+        }
+
+        return !state.enabled() || !token.carriesAuthorities() || !token.roles().contains(state.role());
+    }
+
+    int trackedUsers() {
+        return changedUsers.size();
+    }
+
+    private record AccessState(String role, boolean enabled, Instant changedAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.chatapp.chat.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature and expiry have been verified.
+ * {@code roles} is {@code null} for tokens issued without authority claims.
+ */
+public record VerifiedToken(
+        String subject,
+        List<String> roles,
+        boolean enabled,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public boolean carriesAuthorities() {
+        return roles != null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.chatapp.chat.user;
 
+import com.chatapp.chat.common.id.TimeOrderedUuidGenerator;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.UuidGenerator;
@@ -8,6 +9,7 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(name = "uc_user_email", columnNames = "email"),
         @UniqueConstraint(name = "uc_user_username", columnNames = "username")
@@ -21,7 +23,7 @@ public class User {
 
     @Id
     @GeneratedValue
-    @UuidGenerator
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID id;
 
     @Column(nullable = false, unique = true)
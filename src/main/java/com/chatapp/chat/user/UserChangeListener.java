@@ -0,0 +1,23 @@
+package com.chatapp.chat.user;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(User user) {
+        if (user.getUsername() == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername(), user.getRole(), user.isEnabled()));
+    }
+}
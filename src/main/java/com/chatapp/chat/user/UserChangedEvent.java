@@ -0,0 +1,7 @@
+package com.chatapp.chat.user;
+
+/**
+ * Published after a user row is inserted or updated, carrying the state that access decisions depend on.
+ */
+public record UserChangedEvent(String username, UserRole role, boolean enabled) {
+}
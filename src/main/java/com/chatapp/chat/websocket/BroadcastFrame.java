@@ -0,0 +1,93 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One broadcast of {@link ShardedBrokerMessageHandler}, STOMP-encoded once for all of its subscribers.
+ * <p>
+ * Everything but the {@code subscription} and {@code message-id} headers is the same for every recipient, so the
+ * shared headers, the blank line, the body and the closing NUL are encoded into {@link #tail()} up front.
+ * {@link BroadcastStompEncoder} then only prepends the per-session headers and copies the tail.
+ */
+public final class BroadcastFrame {
+
+    /**
+     * Message header under which every per-subscriber copy of a broadcast carries its frame.
+     */
+    public static final String HEADER = "chatapp.broadcastFrame";
+
+    private static final byte[] COMMAND = (StompCommand.MESSAGE.name() + "\n").getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, List<String>> nativeHeaders;
+    private final byte[] payload;
+    private final byte[] tail;
+
+    private BroadcastFrame(Map<String, List<String>> nativeHeaders, byte[] payload, byte[] tail) {
+        this.nativeHeaders = nativeHeaders;
+        this.payload = payload;
+        this.tail = tail;
+    }
+
+    /**
+     * @param nativeHeaders STOMP headers shared by all recipients, i.e. without {@code subscription}
+     *                      and {@code message-id}
+     * @param payload       message body, shared by reference with every recipient message
+     */
+    public static BroadcastFrame encode(Map<String, List<String>> nativeHeaders, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE, nativeHeaders);
+        byte[] frame = new StompEncoder().encode(accessor.getMessageHeaders(), payload);
+
+        byte[] tail = new byte[frame.length - COMMAND.length];
+        System.arraycopy(frame, COMMAND.length, tail, 0, tail.length);
+        return new BroadcastFrame(Map.copyOf(nativeHeaders), payload, tail);
+    }
+
+    public Map<String, List<String>> nativeHeaders() {
+        return nativeHeaders;
+    }
+
+    public byte[] payload() {
+        return payload;
+    }
+
+    /**
+     * Shared headers, blank line, body and NUL, exactly as {@link StompEncoder} writes them after the command line.
+     */
+    byte[] tail() {
+        return tail;
+    }
+
+    /**
+     * Whether a recipient message still carries exactly this broadcast: the same body instance and the shared
+     * headers unchanged, with only {@code subscription} and {@code message-id} added.
+     */
+    boolean matches(Map<String, List<String>> recipientHeaders, byte[] recipientPayload) {
+        if (recipientPayload != payload || recipientHeaders == null
+                || recipientHeaders.size() != nativeHeaders.size() + 2) {
+            return false;
+        }
+        for (Map.Entry<String, List<String>> header : nativeHeaders.entrySet()) {
+            if (!header.getValue().equals(recipientHeaders.get(header.getKey()))) {
+                return false;
+            }
+        }
+        return recipientHeaders.containsKey(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER)
+                && recipientHeaders.containsKey(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+    }
+
+    static byte[] command() {
+        return COMMAND;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, List<String>> nativeHeadersOf(Map<String, Object> headers) {
+        return (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+    }
+}
@@ -0,0 +1,71 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StompEncoder} that encodes a {@link BroadcastFrame} recipient by writing its {@code subscription} and
+ * {@code message-id} headers and appending the pre-encoded tail of the frame, instead of encoding every header and
+ * copying the body once per session. Any other frame, or a broadcast whose headers were changed on the way out,
+ * is encoded by the regular {@link StompEncoder}.
+ */
+public class BroadcastStompEncoder extends StompEncoder {
+
+    @Override
+    public byte[] encode(Map<String, Object> headers, byte[] payload) {
+        if (headers.get(BroadcastFrame.HEADER) instanceof BroadcastFrame frame
+                && StompHeaderAccessor.getCommand(headers) == StompCommand.MESSAGE) {
+            Map<String, List<String>> nativeHeaders = BroadcastFrame.nativeHeadersOf(headers);
+            if (frame.matches(nativeHeaders, payload)) {
+                return encode(frame, nativeHeaders);
+            }
+        }
+        return super.encode(headers, payload);
+    }
+
+    private static byte[] encode(BroadcastFrame frame, Map<String, List<String>> nativeHeaders) {
+        byte[] tail = frame.tail();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(tail.length + 64);
+        out.writeBytes(BroadcastFrame.command());
+        writeHeader(out, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, nativeHeaders);
+        writeHeader(out, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, nativeHeaders);
+        out.writeBytes(tail);
+        return out.toByteArray();
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, String name, Map<String, List<String>> nativeHeaders) {
+        for (String value : nativeHeaders.get(name)) {
+            out.writeBytes(escape(name).getBytes(StandardCharsets.UTF_8));
+            out.write(':');
+            out.writeBytes(escape(value).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * STOMP 1.2 header escaping, as {@link StompEncoder} applies it to MESSAGE frames.
+     */
+    private static String escape(String text) {
+        if (text.indexOf('\\') < 0 && text.indexOf(':') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case ':' -> escaped.append("\\c");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatapp.chat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+
+/**
+ * Beans around the STOMP broker relay that {@link WebSocketConfig} registers with
+ * {@code app.websocket.broker.type=relay}: the embedded broker, when enabled, and the relay's gauges.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.websocket.broker.type", havingValue = BrokerRelayConfig.RELAY)
+public class BrokerRelayConfig {
+
+    public static final String RELAY = "relay";
+
+    public BrokerRelayConfig(@Value("${app.cluster.fanout.enabled:false}") boolean clusterFanout) {
+        if (clusterFanout) {
+            log.warn("app.cluster.fanout.enabled is set together with the broker relay; the broker already reaches "
+                    + "every instance, so remote subscribers will receive each message twice");
+        }
+    }
+
+    /**
+     * Started while the context is refreshed, so it accepts connections before the relay opens its own once all
+     * singletons exist; stopped after the relay has disconnected.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.websocket.broker.relay.embedded.enabled", havingValue = "true")
+    public EmbeddedStompBroker embeddedStompBroker(BrokerRelayProperties relay) {
+        return new EmbeddedStompBroker(relay.host(), relay.port());
+    }
+
+    @Bean
+    public BrokerRelayMetrics brokerRelayMetrics(
+            @Qualifier("stompBrokerRelayMessageHandler") ObjectProvider<AbstractBrokerMessageHandler> relayHandler
+    ) {
+        return new BrokerRelayMetrics(relayHandler);
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Whether the STOMP broker relay is connected to its broker, and how many broker connections it holds. The relay
+ * handler is resolved lazily, when a gauge is read.
+ */
+public class BrokerRelayMetrics implements MeterBinder {
+
+    private final ObjectProvider<AbstractBrokerMessageHandler> relayHandler;
+
+    public BrokerRelayMetrics(ObjectProvider<AbstractBrokerMessageHandler> relayHandler) {
+        this.relayHandler = relayHandler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.broker.relay.available", relayHandler,
+                        provider -> read(provider, relay -> relay.isBrokerAvailable() ? 1 : 0))
+                .description("1 while the relay's system connection to the broker is up")
+                .register(registry);
+
+        Gauge.builder("websocket.broker.relay.connections", relayHandler,
+                        provider -> read(provider, StompBrokerRelayMessageHandler::getConnectionCount))
+                .description("Open broker connections: one per WebSocket session plus the system connection")
+                .register(registry);
+    }
+
+    private static double read(
+            ObjectProvider<AbstractBrokerMessageHandler> provider,
+            ToDoubleFunction<StompBrokerRelayMessageHandler> metric
+    ) {
+        if (provider.getIfAvailable() instanceof StompBrokerRelayMessageHandler relay) {
+            return metric.applyAsDouble(relay);
+        }
+        return 0;
+    }
+}
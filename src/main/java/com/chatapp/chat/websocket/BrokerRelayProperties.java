@@ -0,0 +1,45 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * External STOMP broker that {@code /topic} and {@code /queue} are relayed to with
+ * {@code app.websocket.broker.type=relay} ({@code app.websocket.broker.relay.*}).
+ *
+ * @param host              broker host
+ * @param port              broker STOMP port
+ * @param clientLogin       login of the connection opened for every WebSocket session
+ * @param clientPasscode    passcode of the connection opened for every WebSocket session
+ * @param systemLogin       login of the shared connection the application publishes on
+ * @param systemPasscode    passcode of the shared connection the application publishes on
+ * @param virtualHost       {@code host} header of the STOMP CONNECT frame, empty to use {@code host}
+ * @param systemHeartbeatMs heartbeat interval of the shared connection in both directions, {@code 0} for none
+ * @param connectTimeoutMs  longest a TCP connection to the broker may take to open
+ * @param embedded          broker started inside the application
+ */
+@ConfigurationProperties(prefix = "app.websocket.broker.relay")
+public record BrokerRelayProperties(
+        @DefaultValue("localhost") String host,
+        @DefaultValue("61613") int port,
+        @DefaultValue("guest") String clientLogin,
+        @DefaultValue("guest") String clientPasscode,
+        @DefaultValue("guest") String systemLogin,
+        @DefaultValue("guest") String systemPasscode,
+        @DefaultValue("") String virtualHost,
+        @DefaultValue("10000") long systemHeartbeatMs,
+        @DefaultValue("5000") int connectTimeoutMs,
+        @DefaultValue Embedded embedded
+) {
+
+    /**
+     * An in-process Artemis broker for tests and single-box deployments. It listens on {@code host}:{@code port}
+     * and keeps no journal, so whatever it holds is lost on restart - the history lives in Postgres anyway.
+     *
+     * @param enabled start the broker with the application
+     */
+    public record Embedded(
+            @DefaultValue("false") boolean enabled
+    ) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.chatapp.chat.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Opt-in binary encoding of STOMP payloads as CBOR (RFC 8949): the same data model as JSON, with field names and
+ * values written as length-prefixed binary items instead of quoted text.
+ * <p>
+ * The converter only handles frames whose {@code content-type} is {@code application/cbor}; everything without that
+ * header still goes to the JSON converter. Its mapper is built by the application's
+ * {@link Jackson2ObjectMapperBuilder}, with the same modules and settings as JSON, so a payload decodes to the same
+ * object from either format. {@link ShardedBrokerMessageHandler} uses {@link #fromJson} to deliver JSON broadcasts
+ * to subscriptions that asked for CBOR.
+ */
+@Component
+public class CborMessageConverter extends MappingJackson2MessageConverter {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public CborMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        super(APPLICATION_CBOR);
+        setObjectMapper(objectMapperBuilder.factory(new CBORFactory()).build());
+        setStrictContentTypeMatch(true);
+    }
+
+    /**
+     * Re-encodes a JSON document as CBOR token by token, without binding it to objects.
+     */
+    public byte[] fromJson(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = getObjectMapper().getFactory().createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    public static boolean isCbor(MimeType contentType) {
+        return contentType != null && APPLICATION_CBOR.equalsTypeAndSubtype(contentType);
+    }
+
+    /**
+     * Whether a message with these headers carries JSON, which is what {@code SimpMessagingTemplate} produces
+     * unless another content type was requested.
+     */
+    public static boolean isJson(MessageHeaders headers) {
+        MimeType contentType = contentType(headers);
+        return contentType != null && (MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(contentType)
+                || contentType.getSubtype().endsWith("+json"));
+    }
+
+    static MimeType contentType(MessageHeaders headers) {
+        Object value = headers.get(MessageHeaders.CONTENT_TYPE);
+        if (value instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return value instanceof String text ? MimeTypeUtils.parseMimeType(text) : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.chatapp.chat.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Reads the {@code chatId} of a client {@code SEND} to {@code /app/chat.*}. The payload is scanned with a
+ * streaming parser that stops at the first top-level {@code chatId} field, so the body is not bound twice; frames
+ * sent as {@code application/cbor} (see {@link CborMessageConverter}) are read with a CBOR parser, everything else
+ * as JSON. Returns {@code null} for every other frame, or when the payload has no usable {@code chatId}.
+ */
+public class ChatIdResolver implements Function<Message<?>, String> {
+
+    static final String CHAT_DESTINATION_PREFIX = "/app/chat.";
+    static final String CHAT_ID_FIELD = "chatId";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final JsonFactory CBOR = new CBORFactory();
+
+    @Override
+    public String apply(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith(CHAT_DESTINATION_PREFIX)) {
+            return null;
+        }
+
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+
+        JsonFactory factory = CborMessageConverter.isCbor(CborMessageConverter.contentType(message.getHeaders()))
+                ? CBOR
+                : JSON;
+        try (JsonParser parser = factory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (CHAT_ID_FIELD.equals(field)) {
+                    return value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.chatapp.chat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Channel executor that runs messages of one chat strictly one after another, in the order they were sent to the
+ * channel, while different chats run in parallel on the delegate executor.
+ * <p>
+ * Each chat with pending work gets a lane: a queue that is drained by at most one delegate task at a time and is
+ * dropped again once empty. Messages without a chat key (CONNECT, SUBSCRIBE, ...) go straight to the delegate.
+ * <p>
+ * A delegate that blocks instead of rejecting when it is saturated (a {@link VirtualThreadChannelExecutor} with a
+ * concurrency limit) is never called from inside a lane: the lane would wait for a slot that only lanes waiting the
+ * same way could free. Such lanes keep their thread until they are empty.
+ */
+@Slf4j
+public class ChatOrderedChannelExecutor implements TaskExecutor, DisposableBean {
+
+    /**
+     * Messages one lane handles before handing its thread back to the delegate, so a busy chat
+     * cannot hold a pool thread forever.
+     */
+    static final int MAX_BATCH = 64;
+
+    private final Executor delegate;
+    private final boolean delegateBlocks;
+    private final Function<Message<?>, String> keyResolver;
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public ChatOrderedChannelExecutor(Executor delegate, Function<Message<?>, String> keyResolver) {
+        this.delegate = delegate;
+        this.delegateBlocks = delegate instanceof VirtualThreadChannelExecutor virtual && virtual.isThrottled()
+                || delegate instanceof SimpleAsyncTaskExecutor simple && simple.isThrottleActive();
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        String key = task instanceof MessageHandlingRunnable runnable ? keyResolver.apply(runnable.getMessage()) : null;
+        if (key == null) {
+            delegate.execute(task);
+            return;
+        }
+
+        pending.incrementAndGet();
+        // enqueue and retire (see Lane#run) both happen under the map lock of the key,
+        // so a task is never added to a lane that has already been dropped
+        Lane lane = lanes.compute(key, (k, existing) -> {
+            Lane target = existing != null ? existing : new Lane(k);
+            target.tasks.add(task);
+            return target;
+        });
+
+        try {
+            lane.schedule();
+        } catch (RuntimeException e) {
+            if (lane.tasks.remove(task)) {
+                pending.decrementAndGet();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Messages queued behind another message of the same chat.
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Chats that currently have queued or running messages.
+     */
+    public int activeChats() {
+        return lanes.size();
+    }
+
+    public Executor getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final String key;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Lane(String key) {
+            this.key = key;
+        }
+
+        void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    delegate.execute(this);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Handles up to {@link #MAX_BATCH} messages, then hands the rest to a new delegate task. If the delegate
+         * rejects that task (saturated or shut down), the rest is handled right here instead, as nothing else would
+         * pick it up before the next message of the chat arrives. A delegate that would block is not asked at all.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                runBatch();
+
+                scheduled.set(false);
+                lanes.computeIfPresent(key, (k, lane) -> lane.tasks.isEmpty() && !lane.scheduled.get() ? null : lane);
+                if (!delegateBlocks) {
+                    try {
+                        schedule();
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        log.debug("Delegate rejected chat {}, handling its remaining messages inline", key);
+                    }
+                }
+                // another thread may have scheduled the lane since; then it is that task's to run
+                if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void runBatch() {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    return;
+                }
+                pending.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.error("Failed to handle message of chat {}", key, e);
+                }
+            }
+        }
+    }
+}
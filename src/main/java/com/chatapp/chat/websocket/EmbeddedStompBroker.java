@@ -0,0 +1,90 @@
+package com.chatapp.chat.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.core.settings.impl.AddressFullMessagePolicy;
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process Artemis broker that accepts STOMP only, for the broker relay in tests and single-box deployments.
+ * <p>
+ * STOMP destinations keep the relay's prefixes: {@code /topic/chat.{chatId}} is the multicast address
+ * {@code chat.{chatId}}, {@code /queue/...} an anycast one. Addresses and their subscription queues are created on
+ * first use and deleted once nobody subscribes. Nothing is persisted, and an address that holds more than it may
+ * drops new messages instead of paging them to disk or blocking the publisher, which is the connection every room
+ * is published on. Dead letter and expiry addresses are named as in Artemis' default {@code broker.xml} but have no
+ * queue, so such messages are discarded as well.
+ */
+@Slf4j
+public class EmbeddedStompBroker {
+
+    private static final String ALL_ADDRESSES = "#";
+
+    /**
+     * Artemis requires a positive connection TTL; a year is as good as none.
+     */
+    private static final long CONNECTION_TTL_MS = TimeUnit.DAYS.toMillis(365);
+
+    private final String host;
+    private final int port;
+
+    private EmbeddedActiveMQ server;
+
+    public EmbeddedStompBroker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public synchronized void start() throws Exception {
+        if (server != null) {
+            return;
+        }
+        Configuration configuration = new ConfigurationImpl()
+                .setName("chat-stomp-relay")
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAddressSetting(ALL_ADDRESSES, new AddressSettings()
+                        .setDeadLetterAddress(SimpleString.of("DLQ"))
+                        .setExpiryAddress(SimpleString.of("ExpiryQueue"))
+                        .setAddressFullMessagePolicy(AddressFullMessagePolicy.DROP));
+        configuration.addAcceptorConfiguration("stomp", acceptorUri());
+
+        server = new EmbeddedActiveMQ().setConfiguration(configuration);
+        server.start();
+        log.info("Embedded STOMP broker listening on {}:{}", host, port);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws Exception {
+        if (server == null) {
+            return;
+        }
+        server.stop();
+        server = null;
+    }
+
+    /**
+     * The relay opens one connection per WebSocket session with the client's own heartbeat settings. Artemis would
+     * close a connection without heartbeats once it has been idle for a minute, which is any subscriber of a quiet
+     * room, and one with heartbeats after two missed intervals, which a busy inbound channel easily delays. As broker
+     * and relay share the process, a connection cannot outlive its client without the whole application going down
+     * with it, so neither timeout is useful here; the WebSocket session is still bound by the client's heartbeats.
+     */
+    private String acceptorUri() {
+        return "tcp://" + host + ":" + port
+                + "?protocols=STOMP"
+                + ";connectionTtl=" + CONNECTION_TTL_MS
+                + ";connectionTtlMin=" + CONNECTION_TTL_MS
+                + ";multicastPrefix=" + WebSocketConfig.TOPIC_PREFIX + "/"
+                + ";anycastPrefix=" + WebSocketConfig.QUEUE_PREFIX + "/";
+    }
+}
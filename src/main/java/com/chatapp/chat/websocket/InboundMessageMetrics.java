@@ -0,0 +1,72 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every inbound STOMP frame on the thread that handles it, as {@code websocket.inbound.handling} tagged with
+ * the frame's command and the handler (controller dispatch, brokers, user destinations). A frame goes to each
+ * subscribed handler in turn, so every handler gets its own sample.
+ */
+@Component
+public class InboundMessageMetrics implements ExecutorChannelInterceptor {
+
+    private final MeterRegistry registry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> handlingStart = new ThreadLocal<>();
+
+    public InboundMessageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        handlingStart.set(System.nanoTime());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Long start = handlingStart.get();
+        if (start == null) {
+            return;
+        }
+        handlingStart.remove();
+
+        TimerKey key = new TimerKey(command(message), handler.getClass().getSimpleName(), ex == null);
+        timers.computeIfAbsent(key, this::timer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(TimerKey key) {
+        return Timer.builder("websocket.inbound.handling")
+                .description("Time a handler spends on one inbound STOMP frame")
+                .tags("command", key.command(), "handler", key.handler(), "outcome", key.success() ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String command(Message<?> message) {
+        StompCommand command = StompHeaderAccessor.getCommand(message.getHeaders());
+        if (command != null) {
+            return command.name();
+        }
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        return messageType == null ? SimpMessageType.OTHER.name() : messageType.name();
+    }
+
+    private record TimerKey(String command, String handler, boolean success) {
+    }
+}
@@ -9,9 +9,12 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.Optional;
+
 @Slf4j
 @RequiredArgsConstructor
 public class JwtChannelInterceptor implements ChannelInterceptor {
@@ -20,7 +23,12 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        // the accessor the STOMP handler left mutable: setting the user on it also makes it the user of the session,
+        // which then comes with every later frame and session event; a wrapped copy would only change this message
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            accessor = StompHeaderAccessor.wrap(message);
+        }
 
         if (!StompCommand.CONNECT.equals(accessor.getCommand())) {
             return message;
@@ -35,15 +43,15 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
 
         token = token.substring(7);
 
-        if (!jwtUtils.isValid(token)) {
+        Optional<String> username = jwtUtils.validateAndGetSubject(token);
+
+        if (username.isEmpty()) {
             log.debug("Invalid JWT token in WS CONNECT");
             return null;
         }
 
-        String username = jwtUtils.extractUserName(token);
-
         UsernamePasswordAuthenticationToken auth =
-                new UsernamePasswordAuthenticationToken(username, null, null);
+                new UsernamePasswordAuthenticationToken(username.get(), null, null);
 
         log.debug("Websocket user authenticated");
 
@@ -0,0 +1,270 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.websocket.Extension;
+import org.apache.tomcat.websocket.MessagePart;
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.apache.tomcat.websocket.TransformationBuilder;
+import org.apache.tomcat.websocket.TransformationFactory;
+import org.apache.tomcat.websocket.TransformationResult;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side of {@code permessage-deflate} (RFC 7692) for the embedded Tomcat, configured by
+ * {@link WebSocketCompressionProperties}.
+ * <p>
+ * Tomcat accepts the extension whenever a client offers it and then deflates every message. This builder replaces
+ * Tomcat's in its {@link TransformationFactory} and still uses Tomcat's {@link PerMessageDeflate} for the
+ * compression, but:
+ * <ul>
+ *     <li>declines the offer when compression is disabled,</li>
+ *     <li>answers with {@code server_no_context_takeover} / {@code client_no_context_takeover} when context takeover
+ *     is switched off, which RFC 7692 allows even if the client did not ask for it,</li>
+ *     <li>sends messages below {@code min-size} uncompressed, without the RSV1 bit; the extension allows that per
+ *     message, and it leaves the compression window untouched,</li>
+ *     <li>records the size before and after compression and the time spent deflating.</li>
+ * </ul>
+ * The factory is JVM-wide, so the last started application context decides; closing it restores Tomcat's builder.
+ * Client connections opened from this JVM keep Tomcat's behaviour.
+ */
+@Component
+public class PerMessageDeflateExtension implements TransformationBuilder, MeterBinder, DisposableBean {
+
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final WebSocketCompressionProperties properties;
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    public PerMessageDeflateExtension(WebSocketCompressionProperties properties) {
+        this.properties = properties;
+        TransformationFactory.getInstance().registerExtension(PerMessageDeflate.NAME, this);
+    }
+
+    @Override
+    public Transformation build(List<List<Extension.Parameter>> preferences, boolean isServer) {
+        if (!isServer) {
+            return PerMessageDeflate.BUILDER.build(preferences, false);
+        }
+        if (!properties.enabled()) {
+            return null;
+        }
+
+        List<List<Extension.Parameter>> offers = new ArrayList<>(preferences.size());
+        for (List<Extension.Parameter> offer : preferences) {
+            List<Extension.Parameter> parameters = new ArrayList<>(offer);
+            if (!properties.serverContextTakeover()) {
+                addIfAbsent(parameters, SERVER_NO_CONTEXT_TAKEOVER);
+            }
+            if (!properties.clientContextTakeover()) {
+                addIfAbsent(parameters, CLIENT_NO_CONTEXT_TAKEOVER);
+            }
+            offers.add(parameters);
+        }
+
+        Transformation deflate = PerMessageDeflate.BUILDER.build(offers, true);
+        return deflate == null ? null : new ThresholdDeflate(deflate, properties.minSize(), this);
+    }
+
+    /**
+     * Publishes the compressed and skipped message counts, bytes before and after compression, the compression
+     * ratio ({@code compressed / original}) and the deflate time of each compressed message.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters = Meters.register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        TransformationFactory.getInstance().registerExtension(PerMessageDeflate.NAME, PerMessageDeflate.BUILDER);
+    }
+
+    private static void addIfAbsent(List<Extension.Parameter> parameters, String name) {
+        if (parameters.stream().noneMatch(parameter -> name.equals(parameter.getName()))) {
+            parameters.add(new Parameter(name, null));
+        }
+    }
+
+    private record Parameter(String name, String value) implements Extension.Parameter {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Decorates Tomcat's {@link PerMessageDeflate} of one connection. Tomcat writes a text message in parts of its
+     * output buffer size, so a message is only small enough to skip when its first part is also its last one.
+     * Sends of one connection never overlap, which is why the per-message state needs no synchronization.
+     */
+    static final class ThresholdDeflate implements Transformation {
+
+        private final Transformation deflate;
+        private final int minSize;
+        private final PerMessageDeflateExtension extension;
+        private Transformation next;
+
+        private boolean skip;
+        private long originalBytes;
+        private long compressedBytes;
+        private long deflateNanos;
+
+        ThresholdDeflate(Transformation deflate, int minSize, PerMessageDeflateExtension extension) {
+            this.deflate = deflate;
+            this.minSize = minSize;
+            this.extension = extension;
+        }
+
+        @Override
+        public List<MessagePart> sendMessagePart(List<MessagePart> messageParts) throws IOException {
+            List<MessagePart> result = new ArrayList<>(messageParts.size());
+            for (MessagePart part : messageParts) {
+                if (isControl(part.getOpCode())) {
+                    result.addAll(deflate.sendMessagePart(List.of(part)));
+                    continue;
+                }
+                if (!isContinuation(part.getOpCode())) {
+                    skip = part.isFin() && part.getPayload().remaining() < minSize;
+                }
+                if (skip) {
+                    result.addAll(next == null ? List.of(part) : next.sendMessagePart(List.of(part)));
+                    if (part.isFin()) {
+                        extension.meters.skipped().increment();
+                    }
+                } else {
+                    result.addAll(compress(part));
+                }
+            }
+            return result;
+        }
+
+        private List<MessagePart> compress(MessagePart part) throws IOException {
+            originalBytes += part.getPayload().remaining();
+            long start = System.nanoTime();
+            List<MessagePart> compressed = deflate.sendMessagePart(List.of(part));
+            deflateNanos += System.nanoTime() - start;
+            for (MessagePart compressedPart : compressed) {
+                compressedBytes += compressedPart.getPayload().remaining();
+            }
+
+            if (part.isFin()) {
+                extension.meters.record(originalBytes, compressedBytes, deflateNanos);
+                originalBytes = 0;
+                compressedBytes = 0;
+                deflateNanos = 0;
+            }
+            return compressed;
+        }
+
+        @Override
+        public void setNext(Transformation t) {
+            next = t;
+            deflate.setNext(t);
+        }
+
+        @Override
+        public boolean validateRsvBits(int i) {
+            return deflate.validateRsvBits(i);
+        }
+
+        @Override
+        public Extension getExtensionResponse() {
+            return deflate.getExtensionResponse();
+        }
+
+        @Override
+        public TransformationResult getMoreData(byte opCode, boolean fin, int rsv, ByteBuffer dest) throws IOException {
+            return deflate.getMoreData(opCode, fin, rsv, dest);
+        }
+
+        @Override
+        public boolean validateRsv(int rsv, byte opCode) {
+            return deflate.validateRsv(rsv, opCode);
+        }
+
+        @Override
+        public void close() {
+            deflate.close();
+        }
+
+        private static boolean isControl(byte opCode) {
+            return (opCode & 0x08) != 0;
+        }
+
+        private static boolean isContinuation(byte opCode) {
+            return opCode == 0;
+        }
+    }
+
+    private record Meters(
+            Counter compressed,
+            Counter skipped,
+            Counter originalBytes,
+            Counter compressedBytes,
+            DistributionSummary ratio,
+            Timer deflate
+    ) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    messages(registry, "compressed"),
+                    messages(registry, "skipped"),
+                    bytes(registry, "original"),
+                    bytes(registry, "compressed"),
+                    DistributionSummary.builder("websocket.compression.ratio")
+                            .description("Compressed size of a WebSocket message divided by its original size")
+                            .serviceLevelObjectives(0.1, 0.25, 0.5, 0.75, 1.0)
+                            .register(registry),
+                    Timer.builder("websocket.compression.deflate")
+                            .description("Time spent deflating one outgoing WebSocket message")
+                            .publishPercentileHistogram()
+                            .register(registry)
+            );
+        }
+
+        void record(long original, long compressedSize, long nanos) {
+            compressed.increment();
+            originalBytes.increment(original);
+            compressedBytes.increment(compressedSize);
+            if (original > 0) {
+                ratio.record((double) compressedSize / original);
+            }
+            deflate.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        private static Counter messages(MeterRegistry registry, String result) {
+            return Counter.builder("websocket.compression.messages")
+                    .description("Outgoing WebSocket messages on connections that negotiated permessage-deflate")
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        private static Counter bytes(MeterRegistry registry, String size) {
+            return Counter.builder("websocket.compression.bytes")
+                    .description("Payload bytes of compressed WebSocket messages, before and after deflating")
+                    .tag("size", size)
+                    .register(registry);
+        }
+    }
+}
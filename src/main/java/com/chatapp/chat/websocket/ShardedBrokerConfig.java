@@ -0,0 +1,73 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.List;
+
+/**
+ * Registers {@link ShardedBrokerMessageHandler} for {@code /topic} unless {@code app.websocket.broker.type=simple}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.websocket.broker.type", havingValue = ShardedBrokerConfig.SHARDED, matchIfMissing = true)
+public class ShardedBrokerConfig {
+
+    public static final String SHARDED = "sharded";
+
+    @Bean
+    public ShardedBrokerMessageHandler shardedBrokerMessageHandler(
+            @Qualifier("clientInboundChannel") SubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            @Qualifier("brokerChannel") SubscribableChannel brokerChannel,
+            @Value("${app.websocket.broker.lanes:0}") int lanes,
+            @Value("${app.websocket.broker.lane-capacity:" + ShardedBrokerMessageHandler.DEFAULT_LANE_CAPACITY + "}")
+            int laneCapacity,
+            WebSocketChannelProperties channels,
+            CborMessageConverter cborMessageConverter
+    ) {
+        int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+
+        ShardedBrokerMessageHandler handler = new ShardedBrokerMessageHandler(
+                clientInboundChannel,
+                clientOutboundChannel,
+                brokerChannel,
+                List.of(WebSocketConfig.TOPIC_PREFIX),
+                laneCount,
+                laneCapacity
+        );
+        handler.setPreservePublishOrder(channels.preservePublishOrder());
+        handler.setCborConverter(cborMessageConverter);
+        return handler;
+    }
+
+    /**
+     * Swaps the encoder of the STOMP protocol handler for {@link BroadcastStompEncoder}. The protocol handler is
+     * only added to {@code subProtocolWebSocketHandler} while the endpoint mapping is built, so this runs once all
+     * singletons exist.
+     */
+    @Bean
+    public SmartInitializingSingleton broadcastStompEncoderInstaller(
+            @Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler
+    ) {
+        return () -> {
+            if (WebSocketHandlerDecorator.unwrap(webSocketHandler) instanceof SubProtocolWebSocketHandler handler) {
+                for (SubProtocolHandler protocolHandler : handler.getProtocolHandlers()) {
+                    if (protocolHandler instanceof StompSubProtocolHandler stompHandler) {
+                        stompHandler.setEncoder(new BroadcastStompEncoder());
+                    }
+                }
+            }
+        };
+    }
+}
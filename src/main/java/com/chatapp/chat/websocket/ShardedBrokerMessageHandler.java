@@ -0,0 +1,490 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.PathMatcher;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory broker for chat topics.
+ * <p>
+ * Subscriptions are indexed by their exact destination, so a broadcast to {@code /topic/chat.{chatId}} only visits
+ * the subscribers of that room. Fan-out runs on a fixed number of single-threaded lanes chosen by destination hash:
+ * rooms are delivered in parallel, while messages of one room keep their publish order. Each lane queues at most
+ * {@code laneCapacity} broadcasts; once a hot room or slow shard fills it, further broadcasts to that lane are
+ * dropped and counted rather than growing the heap, just as a slow client's buffer is bounded per session.
+ * <p>
+ * Subscriptions to destination patterns (e.g. {@code /topic/chat.*}) are still supported, but they are matched
+ * one by one on every broadcast. CONNECT and heartbeats are left to the simple broker, which stays registered
+ * for the remaining prefixes.
+ * <p>
+ * A broadcast with a {@code byte[]} body is STOMP-encoded once into a {@link BroadcastFrame}; recipients share its
+ * body and pre-encoded headers, and {@link BroadcastStompEncoder} only adds their subscription and message id.
+ * <p>
+ * A SUBSCRIBE frame with {@code content-type:application/cbor} asks for that subscription's messages in CBOR. JSON
+ * broadcasts are then transcoded by {@link CborMessageConverter} once per broadcast, and all CBOR subscribers share
+ * that second frame. Without a converter, or for payloads that are not JSON, messages go out as published.
+ * <p>
+ * As a {@link MeterBinder} the broker reports how long broadcasts wait for their lane and take to fan out, how many
+ * recipients each one reaches, how many are queued per lane or were dropped, and its current sessions, subscriptions
+ * and subscribed destinations. Subscribers
+ * per room are published as the recipients distribution rather than a gauge per room, which would create one time
+ * series for every chat.
+ */
+@Slf4j
+public class ShardedBrokerMessageHandler extends AbstractBrokerMessageHandler implements MeterBinder {
+
+    public static final int DEFAULT_LANE_CAPACITY = 10_000;
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+
+    private final int laneCount;
+    private final int laneCapacity;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, Set<Subscription>> subscriptionsByDestination = new ConcurrentHashMap<>();
+    private final Collection<Subscription> patternSubscriptions = new CopyOnWriteArrayList<>();
+    private final Map<String, Map<String, Subscription>> subscriptionsBySession = new ConcurrentHashMap<>();
+    private final Map<String, MessageChannel> orderedSessionChannels = new ConcurrentHashMap<>();
+
+    private final AtomicLong messageIdCounter = new AtomicLong();
+
+    // records nothing until the handler is bound to a registry
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    private CborMessageConverter cborConverter;
+    private volatile ThreadPoolExecutor[] lanes;
+
+    public ShardedBrokerMessageHandler(
+            SubscribableChannel clientInboundChannel,
+            MessageChannel clientOutboundChannel,
+            SubscribableChannel brokerChannel,
+            Collection<String> destinationPrefixes,
+            int laneCount
+    ) {
+        this(clientInboundChannel, clientOutboundChannel, brokerChannel, destinationPrefixes, laneCount,
+                DEFAULT_LANE_CAPACITY);
+    }
+
+    public ShardedBrokerMessageHandler(
+            SubscribableChannel clientInboundChannel,
+            MessageChannel clientOutboundChannel,
+            SubscribableChannel brokerChannel,
+            Collection<String> destinationPrefixes,
+            int laneCount,
+            int laneCapacity
+    ) {
+        super(clientInboundChannel, clientOutboundChannel, brokerChannel, destinationPrefixes);
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Broker lane count must be positive, got " + laneCount);
+        }
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Broker lane capacity must be positive, got " + laneCapacity);
+        }
+        this.laneCount = laneCount;
+        this.laneCapacity = laneCapacity;
+    }
+
+    /**
+     * Enables delivery in CBOR to subscriptions that request it.
+     */
+    public void setCborConverter(CborMessageConverter cborConverter) {
+        this.cborConverter = cborConverter;
+    }
+
+    @Override
+    protected void startInternal() {
+        ThreadPoolExecutor[] started = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "broker-lane-" + i;
+            started[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        lanes = started;
+        publishBrokerAvailableEvent();
+    }
+
+    @Override
+    protected void stopInternal() {
+        publishBrokerUnavailableEvent();
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+
+        if (messageType == null || !checkDestinationPrefix(destination)) {
+            return;
+        }
+
+        switch (messageType) {
+            case MESSAGE -> {
+                if (destination != null) {
+                    dispatch(destination, message);
+                }
+            }
+            case SUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+                if (sessionId != null && subscriptionId != null && destination != null) {
+                    boolean cbor = CborMessageConverter.isCbor(CborMessageConverter.contentType(message.getHeaders()));
+                    subscribe(new Subscription(sessionId, subscriptionId, destination, cbor));
+                }
+            }
+            case UNSUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+                if (sessionId != null && subscriptionId != null) {
+                    unsubscribe(sessionId, subscriptionId);
+                }
+            }
+            case DISCONNECT -> {
+                if (sessionId != null) {
+                    removeSession(sessionId);
+                }
+            }
+            default -> {
+                // CONNECT, heartbeats and everything else are answered by the simple broker
+            }
+        }
+    }
+
+    public int subscriptionCount(String destination) {
+        Set<Subscription> subscriptions = subscriptionsByDestination.get(destination);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    public int sessionCount() {
+        return subscriptionsBySession.size();
+    }
+
+    public int subscriptionCount() {
+        int count = 0;
+        for (Map<String, Subscription> subscriptions : subscriptionsBySession.values()) {
+            count += subscriptions.size();
+        }
+        return count;
+    }
+
+    public int destinationCount() {
+        return subscriptionsByDestination.size();
+    }
+
+    /**
+     * Broadcasts waiting in lane {@code lane}, {@code 0} while the broker is stopped.
+     */
+    public int queued(int lane) {
+        ThreadPoolExecutor[] current = lanes;
+        return current == null ? 0 : current[lane].getQueue().size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.broker.sessions", this, ShardedBrokerMessageHandler::sessionCount)
+                .description("Sessions with at least one subscription")
+                .register(registry);
+        Gauge.builder("websocket.broker.subscriptions", this, ShardedBrokerMessageHandler::subscriptionCount)
+                .description("Active subscriptions, exact and pattern")
+                .register(registry);
+        Gauge.builder("websocket.broker.destinations", this, ShardedBrokerMessageHandler::destinationCount)
+                .description("Destinations (rooms) with at least one exact subscription")
+                .register(registry);
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            Gauge.builder("websocket.broker.lane.queued", this, handler -> handler.queued(lane))
+                    .description("Broadcasts waiting for their broker lane")
+                    .tag("lane", String.valueOf(lane))
+                    .register(registry);
+        }
+        meters = Meters.register(registry);
+    }
+
+    /**
+     * Queues the broadcast on its lane, or drops it when the lane is full or already shut down.
+     */
+    private void dispatch(String destination, Message<?> message) {
+        long queuedAt = System.nanoTime();
+        try {
+            laneFor(destination).execute(() -> sendToSubscribers(destination, message, queuedAt));
+        } catch (RejectedExecutionException e) {
+            meters.dropped().increment();
+            log.debug("Broker lane for {} is full or stopped, dropping broadcast", destination);
+        }
+    }
+
+    private ThreadPoolExecutor laneFor(String destination) {
+        return lanes[Math.floorMod(destination.hashCode(), laneCount)];
+    }
+
+    private void subscribe(Subscription subscription) {
+        subscriptionsBySession.compute(subscription.sessionId(), (sessionId, subscriptions) -> {
+            Map<String, Subscription> updated = subscriptions == null ? new ConcurrentHashMap<>() : subscriptions;
+            updated.put(subscription.subscriptionId(), subscription);
+            return updated;
+        });
+
+        if (pathMatcher.isPattern(subscription.destination())) {
+            patternSubscriptions.add(subscription);
+        } else {
+            subscriptionsByDestination.compute(subscription.destination(), (destination, subscriptions) -> {
+                Set<Subscription> updated = subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+                updated.add(subscription);
+                return updated;
+            });
+        }
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Subscription[] removed = new Subscription[1];
+        subscriptionsBySession.computeIfPresent(sessionId, (id, subscriptions) -> {
+            removed[0] = subscriptions.remove(subscriptionId);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+
+        if (removed[0] != null) {
+            removeFromIndex(removed[0]);
+        }
+    }
+
+    /**
+     * With publish order preserved, each session needs one long-lived ordering decorator; the base class would
+     * create a new one on every call.
+     */
+    @Override
+    protected MessageChannel getClientOutboundChannelForSession(String sessionId) {
+        if (!isPreservePublishOrder()) {
+            return getClientOutboundChannel();
+        }
+        return orderedSessionChannels.computeIfAbsent(sessionId, super::getClientOutboundChannelForSession);
+    }
+
+    private void removeSession(String sessionId) {
+        orderedSessionChannels.remove(sessionId);
+        Map<String, Subscription> sessionSubscriptions = subscriptionsBySession.remove(sessionId);
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.values().forEach(this::removeFromIndex);
+        }
+    }
+
+    private void removeFromIndex(Subscription subscription) {
+        if (pathMatcher.isPattern(subscription.destination())) {
+            patternSubscriptions.remove(subscription);
+            return;
+        }
+        subscriptionsByDestination.computeIfPresent(subscription.destination(), (destination, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private void sendToSubscribers(String destination, Message<?> message, long queuedAt) {
+        Meters meters = this.meters;
+        long start = System.nanoTime();
+        meters.laneWait().record(start - queuedAt, TimeUnit.NANOSECONDS);
+
+        Broadcast broadcast = new Broadcast(destination, message, cborConverter);
+        int recipients = 0;
+
+        Set<Subscription> subscriptions = subscriptionsByDestination.get(destination);
+        if (subscriptions != null) {
+            for (Subscription subscription : subscriptions) {
+                send(subscription, broadcast);
+                recipients++;
+            }
+        }
+
+        for (Subscription subscription : patternSubscriptions) {
+            if (pathMatcher.match(subscription.destination(), destination)) {
+                send(subscription, broadcast);
+                recipients++;
+            }
+        }
+
+        meters.fanOut().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        meters.recipients().record(recipients);
+    }
+
+    private void send(Subscription subscription, Broadcast broadcast) {
+        BroadcastFrame frame = subscription.cbor() ? broadcast.cborFrame() : null;
+        if (frame == null) {
+            frame = broadcast.frame();
+        }
+        Message<?> reply = frame != null
+                ? framedMessage(subscription, frame)
+                : copiedMessage(subscription, broadcast.message());
+        try {
+            getClientOutboundChannelForSession(subscription.sessionId()).send(reply);
+        } catch (RuntimeException e) {
+            log.error("Failed to send message to session {} on {}", subscription.sessionId(), subscription.destination(), e);
+        }
+    }
+
+    /**
+     * Recipient copy that is already a STOMP MESSAGE with the shared native headers, so the STOMP handler uses it
+     * as is, and that carries the frame for {@link BroadcastStompEncoder}.
+     */
+    private Message<byte[]> framedMessage(Subscription subscription, BroadcastFrame frame) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE, frame.nativeHeaders());
+        accessor.setSessionId(subscription.sessionId());
+        accessor.setSubscriptionId(subscription.subscriptionId());
+        accessor.setMessageId(subscription.sessionId() + "-" + messageIdCounter.getAndIncrement());
+        accessor.setHeader(BroadcastFrame.HEADER, frame);
+        if (CborMessageConverter.isCbor(accessor.getContentType())) {
+            // Spring sends a STOMP frame as a binary WebSocket message only for application/octet-stream and would
+            // turn CBOR into (broken) UTF-8 text; the content-type written into the frame stays application/cbor
+            accessor.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders());
+    }
+
+    private Message<?> copiedMessage(Subscription subscription, Message<?> message) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headerAccessor.setSessionId(subscription.sessionId());
+        headerAccessor.setSubscriptionId(subscription.subscriptionId());
+        headerAccessor.copyHeadersIfAbsent(message.getHeaders());
+        headerAccessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(message.getPayload(), headerAccessor.getMessageHeaders());
+    }
+
+    /**
+     * A published message and, once a first recipient needs it, its {@link BroadcastFrame} and CBOR frame. Only
+     * {@code byte[]} payloads are framed; anything else is copied per recipient and left to the regular conversion.
+     */
+    private static final class Broadcast {
+
+        private final String destination;
+        private final Message<?> message;
+        private final CborMessageConverter cborConverter;
+        private BroadcastFrame frame;
+        private boolean framed;
+        private BroadcastFrame cborFrame;
+        private boolean cborFramed;
+
+        private Broadcast(String destination, Message<?> message, CborMessageConverter cborConverter) {
+            this.destination = destination;
+            this.message = message;
+            this.cborConverter = cborConverter;
+        }
+
+        Message<?> message() {
+            return message;
+        }
+
+        BroadcastFrame frame() {
+            if (!framed) {
+                framed = true;
+                if (message.getPayload() instanceof byte[] payload) {
+                    frame = BroadcastFrame.encode(sharedHeaders(), payload);
+                }
+            }
+            return frame;
+        }
+
+        /**
+         * The broadcast transcoded to CBOR, or {@code null} when it cannot be, in which case the original is sent.
+         */
+        BroadcastFrame cborFrame() {
+            if (!cborFramed) {
+                cborFramed = true;
+                if (cborConverter != null && message.getPayload() instanceof byte[] payload
+                        && CborMessageConverter.isJson(message.getHeaders())) {
+                    try {
+                        Map<String, List<String>> headers = sharedHeaders();
+                        headers.put(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+                                List.of(CborMessageConverter.APPLICATION_CBOR.toString()));
+                        cborFrame = BroadcastFrame.encode(headers, cborConverter.fromJson(payload));
+                    } catch (IOException e) {
+                        log.debug("Could not transcode broadcast to {} into CBOR", destination, e);
+                    }
+                }
+            }
+            return cborFrame;
+        }
+
+        private Map<String, List<String>> sharedHeaders() {
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+            accessor.setDestination(destination);
+
+            Map<String, List<String>> headers = new LinkedHashMap<>(accessor.toNativeHeaderMap());
+            headers.remove(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+            headers.remove(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+            return headers;
+        }
+    }
+
+    private record Subscription(String sessionId, String subscriptionId, String destination, boolean cbor) {
+    }
+
+    private record Meters(Timer laneWait, Timer fanOut, DistributionSummary recipients, Counter dropped) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    Timer.builder("websocket.broker.lane.wait")
+                            .description("Time a broadcast waits for its broker lane")
+                            .publishPercentileHistogram()
+                            .register(registry),
+                    Timer.builder("websocket.broker.broadcast")
+                            .description("Time to hand one broadcast to the outbound channel of every recipient")
+                            .publishPercentileHistogram()
+                            .register(registry),
+                    DistributionSummary.builder("websocket.broker.broadcast.recipients")
+                            .description("Subscribers reached by one broadcast")
+                            .publishPercentileHistogram()
+                            .register(registry),
+                    Counter.builder("websocket.broker.lane.dropped")
+                            .description("Broadcasts dropped because their broker lane was full")
+                            .register(registry)
+            );
+        }
+    }
+}
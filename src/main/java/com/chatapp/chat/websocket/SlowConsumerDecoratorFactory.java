@@ -0,0 +1,192 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.chat.typing.TypingController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every WebSocket session a {@link SlowConsumerSessionDecorator} before the STOMP sub-protocol handler sees
+ * it, and publishes how much the sessions have buffered. Sends run on virtual threads named {@code ws-send-}, one
+ * per session while it has messages to write.
+ * <p>
+ * Buffers are aggregated over all sessions rather than tagged per session, which would create a time series for
+ * every connection ever opened.
+ */
+@Component
+public class SlowConsumerDecoratorFactory implements WebSocketHandlerDecoratorFactory, MeterBinder, DisposableBean {
+
+    /**
+     * Broadcasts a session may lose under load without the client noticing beyond a flicker.
+     */
+    static final List<String> DROPPABLE_DESTINATIONS = List.of(TypingController.TYPING_DESTINATION_PREFIX);
+
+    private final WebSocketTransportProperties properties;
+    private final SimpleAsyncTaskExecutor sender = new SimpleAsyncTaskExecutor("ws-send-");
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    private volatile Meters meters = Meters.register(new CompositeMeterRegistry());
+
+    private final SlowConsumerSessionDecorator.OverflowListener listener = new OverflowMetrics();
+
+    public SlowConsumerDecoratorFactory(WebSocketTransportProperties properties) {
+        this.properties = properties;
+        this.sender.setVirtualThreads(true);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(
+                        session,
+                        sender,
+                        properties.sendTimeLimitMs(),
+                        properties.sendBufferSizeLimit(),
+                        properties.slowConsumerPolicy(),
+                        DROPPABLE_DESTINATIONS,
+                        listener
+                );
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(decorated(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(decorated(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SlowConsumerSessionDecorator decorated = sessions.remove(session.getId());
+                super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+            }
+        };
+    }
+
+    private WebSocketSession decorated(WebSocketSession session) {
+        SlowConsumerSessionDecorator decorated = sessions.get(session.getId());
+        return decorated != null ? decorated : session;
+    }
+
+    /**
+     * Publishes the buffered bytes of all sessions and of the most backed-up one, the number of sessions with
+     * anything buffered, and what the slow-consumer policy dropped, coalesced or disconnected.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.session.buffer.bytes", this, SlowConsumerDecoratorFactory::sum)
+                .description("Bytes buffered for all WebSocket sessions")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("websocket.session.buffer.max", this, SlowConsumerDecoratorFactory::max)
+                .description("Bytes buffered for the most backed-up WebSocket session")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("websocket.session.buffer.sessions", this, SlowConsumerDecoratorFactory::buffering)
+                .description("WebSocket sessions with buffered messages")
+                .register(registry);
+        meters = Meters.register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        sender.close();
+    }
+
+    private double sum() {
+        long sum = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            sum += session.getBufferSize();
+        }
+        return sum;
+    }
+
+    private double max() {
+        int max = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            max = Math.max(max, session.getBufferSize());
+        }
+        return max;
+    }
+
+    private double buffering() {
+        int count = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            if (session.getBufferSize() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private final class OverflowMetrics implements SlowConsumerSessionDecorator.OverflowListener {
+
+        @Override
+        public void dropped(int messages) {
+            meters.dropped().increment(messages);
+        }
+
+        @Override
+        public void coalesced(int messages) {
+            meters.coalesced().increment(messages);
+        }
+
+        @Override
+        public void disconnected(String limit) {
+            meters.disconnectsOver(limit).increment();
+        }
+    }
+
+    private record Meters(Counter dropped, Counter coalesced, Counter timeDisconnects, Counter bufferDisconnects) {
+
+        static Meters register(MeterRegistry registry) {
+            return new Meters(
+                    overflow(registry, "dropped"),
+                    overflow(registry, "coalesced"),
+                    disconnects(registry, "time"),
+                    disconnects(registry, "buffer")
+            );
+        }
+
+        Counter disconnectsOver(String limit) {
+            return "time".equals(limit) ? timeDisconnects : bufferDisconnects;
+        }
+
+        private static Counter overflow(MeterRegistry registry, String action) {
+            return Counter.builder("websocket.session.overflow.messages")
+                    .description("Buffered messages a slow WebSocket session did not receive")
+                    .tag("action", action)
+                    .register(registry);
+        }
+
+        private static Counter disconnects(MeterRegistry registry, String limit) {
+            return Counter.builder("websocket.session.overflow.disconnects")
+                    .description("WebSocket sessions closed for exceeding a send limit")
+                    .tag("limit", limit)
+                    .register(registry);
+        }
+    }
+}
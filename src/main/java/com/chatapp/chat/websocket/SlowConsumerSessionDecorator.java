@@ -0,0 +1,371 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.websocket.WebSocketTransportProperties.SlowConsumerPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Buffers outgoing messages of one session and writes them on a sender thread, applying a
+ * {@link SlowConsumerPolicy} once the buffer grows beyond its limit.
+ * <p>
+ * Spring's {@code ConcurrentWebSocketSessionDecorator} writes on the thread that publishes, so a slow client holds
+ * an outbound channel thread for up to the send time limit, and it can only drop or terminate on overflow. This
+ * decorator sits below Spring's: {@link #sendMessage} only enqueues and returns, so Spring's decorator never builds
+ * up a buffer of its own, and a single flush at a time runs on {@code sender}, in order.
+ * <p>
+ * {@code MESSAGE} frames to one of the {@code droppableDestinations} prefixes, such as typing signals, carry no
+ * state a client would miss. They are discarded first, oldest first, whenever the buffer is over its limit, and the
+ * policy only applies if that was not enough.
+ * <p>
+ * The route of a frame (subscription and destination) and its size are read once, when it is queued and before the
+ * buffer is locked, so neither dropping nor coalescing has to look at buffered payloads again.
+ */
+@Slf4j
+public class SlowConsumerSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final String MESSAGE_COMMAND = "MESSAGE";
+    private static final String SUBSCRIPTION_HEADER = "subscription:";
+    private static final String DESTINATION_HEADER = "destination:";
+
+    private final Executor sender;
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+    private final SlowConsumerPolicy policy;
+    private final List<String> droppableDestinations;
+    private final OverflowListener listener;
+    private final boolean routed;
+
+    private final Deque<Buffered> buffer = new ArrayDeque<>();
+    private int bufferSize;
+    private boolean flushing;
+    private boolean closed;
+    private CloseStatus closeAfterFlush;
+
+    private volatile long sendStartTime;
+
+    public SlowConsumerSessionDecorator(
+            WebSocketSession delegate,
+            Executor sender,
+            int sendTimeLimit,
+            int bufferSizeLimit,
+            SlowConsumerPolicy policy,
+            List<String> droppableDestinations,
+            OverflowListener listener
+    ) {
+        super(delegate);
+        this.sender = sender;
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.policy = policy;
+        this.droppableDestinations = List.copyOf(droppableDestinations);
+        this.listener = listener;
+        this.routed = policy == SlowConsumerPolicy.COALESCE || !this.droppableDestinations.isEmpty();
+    }
+
+    /**
+     * Queues the message for the sender thread.
+     *
+     * @throws SessionLimitExceededException when the session has to be disconnected; Spring's sub-protocol handler
+     *                                       then closes it with {@link CloseStatus#SESSION_NOT_RELIABLE}
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        Route route = routed ? route(message) : null;
+        Buffered buffered = new Buffered(message, message.getPayloadLength(), route, isDroppable(route));
+        boolean startFlush;
+        synchronized (buffer) {
+            if (closed || closeAfterFlush != null) {
+                return;
+            }
+            buffer.addLast(buffered);
+            bufferSize += buffered.length();
+            checkLimits();
+
+            startFlush = !flushing;
+            flushing = true;
+        }
+        if (startFlush) {
+            sender.execute(this::flush);
+        }
+    }
+
+    public int getBufferSize() {
+        synchronized (buffer) {
+            return bufferSize;
+        }
+    }
+
+    /**
+     * Milliseconds the message currently being written has taken so far, {@code 0} when nothing is being written.
+     */
+    public long getTimeSinceSendStarted() {
+        long start = sendStartTime;
+        return start > 0 ? System.currentTimeMillis() - start : 0;
+    }
+
+    /**
+     * Closes the session once what is already buffered has been written, such as the {@code ERROR} frame Spring
+     * sends right before closing. A session closed as {@link CloseStatus#SESSION_NOT_RELIABLE}, because it could not
+     * keep up, is closed at once and its buffer discarded.
+     */
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (buffer) {
+            if (flushing && !closed && !CloseStatus.SESSION_NOT_RELIABLE.equals(status)) {
+                closeAfterFlush = status;
+                return;
+            }
+            flushing = false;
+            discardBuffered();
+        }
+        super.close(status);
+    }
+
+    private void checkLimits() {
+        if (getTimeSinceSendStarted() > sendTimeLimit) {
+            disconnect("send time limit", "time");
+        }
+        if (bufferSize <= bufferSizeLimit) {
+            return;
+        }
+        dropDroppable();
+        if (bufferSize <= bufferSizeLimit) {
+            return;
+        }
+        switch (policy) {
+            case DISCONNECT -> disconnect("buffer size limit", "buffer");
+            case COALESCE -> {
+                coalesce();
+                dropOldest();
+            }
+            case DROP_OLDEST -> dropOldest();
+        }
+    }
+
+    private void disconnect(String limit, String tag) {
+        listener.disconnected(tag);
+        discardBuffered();
+        throw new SessionLimitExceededException(
+                "Session " + getId() + " exceeded the " + limit + " (" + sendTimeLimit + " ms, "
+                        + bufferSizeLimit + " bytes)",
+                CloseStatus.SESSION_NOT_RELIABLE
+        );
+    }
+
+    private void dropOldest() {
+        int dropped = 0;
+        while (bufferSize > bufferSizeLimit && !buffer.isEmpty()) {
+            bufferSize -= buffer.removeFirst().length();
+            dropped++;
+        }
+        if (dropped > 0) {
+            listener.dropped(dropped);
+        }
+    }
+
+    private void dropDroppable() {
+        if (droppableDestinations.isEmpty()) {
+            return;
+        }
+        int dropped = 0;
+        for (Iterator<Buffered> messages = buffer.iterator(); bufferSize > bufferSizeLimit && messages.hasNext(); ) {
+            Buffered message = messages.next();
+            if (message.droppable()) {
+                messages.remove();
+                bufferSize -= message.length();
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            listener.dropped(dropped);
+        }
+    }
+
+    private boolean isDroppable(Route route) {
+        if (route == null) {
+            return false;
+        }
+        for (String prefix : droppableDestinations) {
+            if (route.destination().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the buffer from the newest message and removes older {@code MESSAGE} frames of a subscription and
+     * destination that a newer one is already buffered for.
+     */
+    private void coalesce() {
+        Set<Route> newest = new HashSet<>();
+        int coalesced = 0;
+        for (Iterator<Buffered> messages = buffer.descendingIterator(); messages.hasNext(); ) {
+            Buffered message = messages.next();
+            if (message.route() != null && !newest.add(message.route())) {
+                messages.remove();
+                bufferSize -= message.length();
+                coalesced++;
+            }
+        }
+        if (coalesced > 0) {
+            listener.coalesced(coalesced);
+        }
+    }
+
+    private void flush() {
+        try {
+            while (true) {
+                Buffered message;
+                CloseStatus close = null;
+                synchronized (buffer) {
+                    message = closed ? null : buffer.pollFirst();
+                    if (message == null) {
+                        flushing = false;
+                        if (!closed && closeAfterFlush != null) {
+                            close = closeAfterFlush;
+                            discardBuffered();
+                        }
+                    } else {
+                        bufferSize -= message.length();
+                    }
+                }
+                if (message == null) {
+                    if (close != null) {
+                        getDelegate().close(close);
+                    }
+                    return;
+                }
+
+                sendStartTime = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(message.message());
+                } finally {
+                    sendStartTime = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to session {}, closing it", getId(), e);
+            discard();
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException closeFailure) {
+                log.debug("Failed to close session {}", getId(), closeFailure);
+            }
+        }
+    }
+
+    private void discard() {
+        synchronized (buffer) {
+            flushing = false;
+            discardBuffered();
+        }
+    }
+
+    private void discardBuffered() {
+        closed = true;
+        buffer.clear();
+        bufferSize = 0;
+    }
+
+    /**
+     * {@code subscription} and {@code destination} of a STOMP {@code MESSAGE} frame; {@code null} for other frames
+     * and heartbeats.
+     */
+    static String coalescingKey(WebSocketMessage<?> message) {
+        Route route = route(message);
+        return route == null ? null : route.subscription() + '\n' + route.destination();
+    }
+
+    /**
+     * Reads the route of a STOMP {@code MESSAGE} frame from its header lines without decoding the frame: the payload
+     * of a text message is scanned in place, of a binary message only the header lines are decoded.
+     */
+    private static Route route(WebSocketMessage<?> message) {
+        String frame;
+        if (message instanceof TextMessage text) {
+            frame = text.getPayload();
+        } else if (message instanceof BinaryMessage binary) {
+            frame = headerLines(binary.getPayload());
+        } else {
+            return null;
+        }
+
+        int lineStart = 0;
+        String subscription = null;
+        String destination = null;
+        for (int newline = frame.indexOf('\n'); newline >= 0; newline = frame.indexOf('\n', lineStart)) {
+            int lineEnd = newline > lineStart && frame.charAt(newline - 1) == '\r' ? newline - 1 : newline;
+            if (lineEnd == lineStart) {
+                break;
+            }
+            if (lineStart == 0) {
+                if (lineEnd != MESSAGE_COMMAND.length() || !frame.startsWith(MESSAGE_COMMAND)) {
+                    return null;
+                }
+            } else if (subscription == null && frame.startsWith(SUBSCRIPTION_HEADER, lineStart)) {
+                subscription = frame.substring(lineStart + SUBSCRIPTION_HEADER.length(), lineEnd);
+            } else if (destination == null && frame.startsWith(DESTINATION_HEADER, lineStart)) {
+                destination = frame.substring(lineStart + DESTINATION_HEADER.length(), lineEnd);
+            }
+            lineStart = newline + 1;
+        }
+        return subscription == null || destination == null ? null : new Route(subscription, destination);
+    }
+
+    /**
+     * Decodes the command and header lines of a frame, up to and including the blank line before the body.
+     */
+    private static String headerLines(ByteBuffer payload) {
+        int end = payload.limit();
+        for (int i = payload.position(), lineStart = i; i < payload.limit(); i++) {
+            if (payload.get(i) != '\n') {
+                continue;
+            }
+            if (i == lineStart || i == lineStart + 1 && payload.get(lineStart) == '\r') {
+                end = i + 1;
+                break;
+            }
+            lineStart = i + 1;
+        }
+        return StandardCharsets.UTF_8.decode(payload.duplicate().limit(end)).toString();
+    }
+
+    private record Route(String subscription, String destination) {
+    }
+
+    /**
+     * A queued message with what was read from it on the way in.
+     */
+    private record Buffered(WebSocketMessage<?> message, int length, Route route, boolean droppable) {
+    }
+
+    /**
+     * Receives what the slow-consumer policy did, for metrics.
+     */
+    public interface OverflowListener {
+
+        void dropped(int messages);
+
+        void coalesced(int messages);
+
+        void disconnected(String limit);
+    }
+}
@@ -0,0 +1,184 @@
+package com.chatapp.chat.websocket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of {@code SEND} frames per session and per authenticated user before they reach the controllers,
+ * so a single client flooding a destination is turned away for the price of a bucket lookup instead of an INSERT
+ * and a room fan-out. Rejected frames are counted as {@code websocket.inbound.throttled}, tagged with the scope that
+ * ran out and the rule (destination or {@code default}).
+ * <p>
+ * A rejected frame is dropped. With {@link StompRateLimitProperties.ExceededAction#REJECT} a client only hears about
+ * it when the frame asked for a receipt: the receipt then carries {@value #RATE_LIMITED_HEADER} and
+ * {@value #RETRY_AFTER_HEADER}. Without this the client would get no receipt at all, as the broker only answers
+ * receipts of frames it handles itself. With {@link StompRateLimitProperties.ExceededAction#DISCONNECT} the client
+ * gets an {@code ERROR} frame with the same headers, after which Spring closes the session.
+ */
+@Slf4j
+@Component
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+
+    static final String DEFAULT_RULE = "default";
+    static final String RATE_LIMITED_HEADER = "rate-limited";
+    static final String RETRY_AFTER_HEADER = "retry-after-ms";
+
+    private final StompRateLimitProperties properties;
+    private final ObjectProvider<MessageChannel> clientOutboundChannel;
+    private final Clock clock;
+    private final MeterRegistry registry;
+
+    private final Map<String, Map<String, TokenBucket>> sessionBuckets = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> userBuckets;
+    private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    public StompRateLimitInterceptor(
+            StompRateLimitProperties properties,
+            @Qualifier("clientOutboundChannel") ObjectProvider<MessageChannel> clientOutboundChannel,
+            Clock clock,
+            MeterRegistry registry
+    ) {
+        this.properties = properties;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.clock = clock;
+        this.registry = registry;
+        this.userBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(longestRefill(properties))
+                .maximumSize(properties.maxUsers())
+                .build();
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null) {
+            return message;
+        }
+        if (messageType == SimpMessageType.DISCONNECT) {
+            sessionBuckets.remove(sessionId);
+            return message;
+        }
+        if (!properties.enabled() || messageType != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        String ruleName = destination != null && properties.destinations().containsKey(destination)
+                ? destination
+                : DEFAULT_RULE;
+        StompRateLimitProperties.Rule rule = properties.destinations().getOrDefault(ruleName, properties.defaults());
+        long now = TimeUnit.MILLISECONDS.toNanos(clock.millis());
+
+        if (rule.sessionRate() > 0) {
+            TokenBucket bucket = sessionBuckets
+                    .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(ruleName, name -> new TokenBucket(rule.sessionRate(), rule.sessionBurst()));
+            if (!bucket.tryConsume(now)) {
+                return reject(message, sessionId, Scope.SESSION, ruleName, bucket.nanosUntilNextToken(now));
+            }
+        }
+
+        Principal user = SimpMessageHeaderAccessor.getUser(headers);
+        if (user != null && rule.userRate() > 0) {
+            TokenBucket bucket = userBuckets.get(user.getName() + '\n' + ruleName,
+                    key -> new TokenBucket(rule.userRate(), rule.userBurst()));
+            if (!bucket.tryConsume(now)) {
+                return reject(message, sessionId, Scope.USER, ruleName, bucket.nanosUntilNextToken(now));
+            }
+        }
+        return message;
+    }
+
+    private Message<?> reject(Message<?> message, String sessionId, Scope scope, String rule, long retryAfterNanos) {
+        counters.computeIfAbsent(new CounterKey(scope, rule), this::counter).increment();
+        log.debug("Rate-limited SEND of session {} to {} ({} limit)", sessionId, rule, scope.tag());
+
+        String receipt = StompHeaderAccessor.wrap(message).getReceipt();
+        StompHeaderAccessor feedback;
+        switch (properties.exceededAction()) {
+            case REJECT -> {
+                if (receipt == null) {
+                    return null;
+                }
+                feedback = StompHeaderAccessor.create(StompCommand.RECEIPT);
+            }
+            case DISCONNECT -> {
+                feedback = StompHeaderAccessor.create(StompCommand.ERROR);
+                feedback.setMessage("Rate limit exceeded");
+            }
+            default -> throw new IllegalStateException("Unexpected action: " + properties.exceededAction());
+        }
+
+        feedback.setSessionId(sessionId);
+        if (receipt != null) {
+            feedback.setReceiptId(receipt);
+        }
+        feedback.setNativeHeader(RATE_LIMITED_HEADER, scope.tag());
+        feedback.setNativeHeader(RETRY_AFTER_HEADER, String.valueOf(Math.ceilDiv(retryAfterNanos, 1_000_000)));
+        MessageChannel outbound = clientOutboundChannel.getIfAvailable();
+        if (outbound != null) {
+            outbound.send(MessageBuilder.createMessage(new byte[0], feedback.getMessageHeaders()));
+        }
+        return null;
+    }
+
+    private Counter counter(CounterKey key) {
+        return Counter.builder("websocket.inbound.throttled")
+                .description("SEND frames dropped for exceeding a rate limit")
+                .tags("scope", key.scope().tag(), "rule", key.rule())
+                .register(registry);
+    }
+
+    /**
+     * Time an idle bucket takes to fill up again; a user bucket idle for that long is as good as a new one, so it is
+     * forgotten.
+     */
+    private static Duration longestRefill(StompRateLimitProperties properties) {
+        double seconds = 1;
+        for (StompRateLimitProperties.Rule rule : properties.destinations().values()) {
+            seconds = Math.max(seconds, refillSeconds(rule));
+        }
+        seconds = Math.max(seconds, refillSeconds(properties.defaults()));
+        return Duration.ofMillis((long) Math.ceil(seconds * 1000));
+    }
+
+    private static double refillSeconds(StompRateLimitProperties.Rule rule) {
+        return rule.userRate() > 0 ? rule.userBurst() / rule.userRate() : 0;
+    }
+
+    private enum Scope {
+        SESSION,
+        USER;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record CounterKey(Scope scope, String rule) {
+    }
+}
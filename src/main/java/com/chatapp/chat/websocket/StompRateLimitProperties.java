@@ -0,0 +1,59 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Rate limits of STOMP {@code SEND} frames ({@code app.websocket.rate-limit.*}). Every frame takes a token from its
+ * session's bucket and, once authenticated, from its user's bucket, shared by all of the user's sessions.
+ *
+ * @param enabled        whether frames are limited at all
+ * @param exceededAction what a client that runs out of tokens gets back
+ * @param defaults       limits of destinations not listed in {@code destinations}
+ * @param destinations   limits of single destinations, e.g. {@code destinations[/app/chat.sendMessage].session-rate};
+ *                       each destination gets buckets of its own
+ * @param maxUsers       users whose buckets are kept at most; beyond that the least recent are forgotten early,
+ *                       which can only refill a bucket sooner
+ */
+@ConfigurationProperties(prefix = "app.websocket.rate-limit")
+public record StompRateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("REJECT") ExceededAction exceededAction,
+        @DefaultValue Rule defaults,
+        Map<String, Rule> destinations,
+        @DefaultValue("100000") int maxUsers
+) {
+
+    public StompRateLimitProperties {
+        destinations = destinations == null ? Map.of() : Map.copyOf(destinations);
+    }
+
+    /**
+     * Limits of one destination, rates in frames per second. A rate of {@code 0} leaves that scope unlimited.
+     *
+     * @param sessionRate  steady rate of one session
+     * @param sessionBurst frames one session may send at once after being idle
+     * @param userRate     steady rate of one user over all their sessions
+     * @param userBurst    frames one user may send at once after being idle
+     */
+    public record Rule(
+            @DefaultValue("25") double sessionRate,
+            @DefaultValue("50") int sessionBurst,
+            @DefaultValue("50") double userRate,
+            @DefaultValue("100") int userBurst
+    ) {
+    }
+
+    public enum ExceededAction {
+        /**
+         * Drop the frame. If it asked for a receipt, the receipt comes back with a {@code rate-limited} header.
+         */
+        REJECT,
+        /**
+         * Send an {@code ERROR} frame, which closes the session.
+         */
+        DISCONNECT
+    }
+}
@@ -0,0 +1,49 @@
+package com.chatapp.chat.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of {@code burst} tokens refilled at {@code ratePerSecond}, without locks.
+ * <p>
+ * The bucket is kept as a single number, the time at which it will be full again (the generic cell rate algorithm):
+ * taking a token moves that time one refill interval further, and a token is refused when the time would then lie
+ * more than {@code burst} intervals ahead. A compare-and-set retries under contention instead of blocking.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000 / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+    }
+
+    /**
+     * Takes a token if one is left at {@code nowNanos}.
+     */
+    public boolean tryConsume(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long start = Math.max(current, nowNanos);
+            if (start - nowNanos > toleranceNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * How long after {@code nowNanos} the next token will be available, {@code 0} if one is available now.
+     */
+    public long nanosUntilNextToken(long nowNanos) {
+        long current = fullAt.get();
+        return current <= nowNanos ? 0 : Math.max(0, current - nowNanos - toleranceNanos);
+    }
+}
@@ -0,0 +1,59 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each channel message on its own virtual thread and counts waiting and running messages for metrics.
+ * With a concurrency limit, {@link #execute} blocks the sending thread until a slot frees up.
+ */
+public class VirtualThreadChannelExecutor implements TaskExecutor {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    public VirtualThreadChannelExecutor(String threadNamePrefix, int concurrencyLimit) {
+        this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.delegate.setVirtualThreads(true);
+        this.delegate.setConcurrencyLimit(
+                concurrencyLimit > 0 ? concurrencyLimit : SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY
+        );
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        waiting.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                waiting.decrementAndGet();
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether {@link #execute} may block because a concurrency limit is set.
+     */
+    public boolean isThrottled() {
+        return delegate.isThrottleActive();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    public int active() {
+        return active.get();
+    }
+}
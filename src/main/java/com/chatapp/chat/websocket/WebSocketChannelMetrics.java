@@ -0,0 +1,103 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.concurrent.Executor;
+import java.util.function.ToIntFunction;
+
+/**
+ * Queue depth and active thread gauges for the client inbound and outbound channels,
+ * whichever executor mode they run in, and the number of open WebSocket sessions.
+ * Channels and the session handler are resolved lazily, when a gauge is read.
+ */
+@Component
+public class WebSocketChannelMetrics implements MeterBinder {
+
+    private final ObjectProvider<ExecutorSubscribableChannel> inboundChannel;
+    private final ObjectProvider<ExecutorSubscribableChannel> outboundChannel;
+    private final ObjectProvider<WebSocketHandler> webSocketHandler;
+
+    public WebSocketChannelMetrics(
+            @Qualifier("clientInboundChannel") ObjectProvider<ExecutorSubscribableChannel> inboundChannel,
+            @Qualifier("clientOutboundChannel") ObjectProvider<ExecutorSubscribableChannel> outboundChannel,
+            @Qualifier("subProtocolWebSocketHandler") ObjectProvider<WebSocketHandler> webSocketHandler
+    ) {
+        this.inboundChannel = inboundChannel;
+        this.outboundChannel = outboundChannel;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "inbound", inboundChannel);
+        register(registry, "outbound", outboundChannel);
+
+        Gauge.builder("websocket.sessions", webSocketHandler, WebSocketChannelMetrics::openSessions)
+                .description("Open WebSocket sessions")
+                .register(registry);
+    }
+
+    private void register(MeterRegistry registry, String name, ObjectProvider<ExecutorSubscribableChannel> channel) {
+        Gauge.builder("websocket.channel.queued", channel, provider -> read(provider, WebSocketChannelMetrics::queued))
+                .description("Messages waiting for a thread, or behind a message of the same chat, on the client channel")
+                .tag("channel", name)
+                .register(registry);
+
+        Gauge.builder("websocket.channel.active", channel, provider -> read(provider, WebSocketChannelMetrics::active))
+                .description("Messages being processed on the client channel")
+                .tag("channel", name)
+                .register(registry);
+    }
+
+    private static double read(ObjectProvider<ExecutorSubscribableChannel> provider, ToIntFunction<Executor> metric) {
+        ExecutorSubscribableChannel channel = provider.getIfAvailable();
+        if (channel == null || channel.getExecutor() == null) {
+            return 0;
+        }
+        return metric.applyAsInt(channel.getExecutor());
+    }
+
+    private static double openSessions(ObjectProvider<WebSocketHandler> provider) {
+        WebSocketHandler handler = provider.getIfAvailable();
+        if (handler != null && WebSocketHandlerDecorator.unwrap(handler) instanceof SubProtocolWebSocketHandler subProtocol) {
+            return subProtocol.getStats().getWebSocketSessions();
+        }
+        return 0;
+    }
+
+    static int queued(Executor executor) {
+        if (executor instanceof ChatOrderedChannelExecutor ordered) {
+            return ordered.pending() + queued(ordered.getDelegate());
+        }
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getQueueSize();
+        }
+        if (executor instanceof VirtualThreadChannelExecutor virtual) {
+            return virtual.waiting();
+        }
+        return 0;
+    }
+
+    static int active(Executor executor) {
+        if (executor instanceof ChatOrderedChannelExecutor ordered) {
+            return active(ordered.getDelegate());
+        }
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getActiveCount();
+        }
+        if (executor instanceof VirtualThreadChannelExecutor virtual) {
+            return virtual.active();
+        }
+        return 0;
+    }
+}
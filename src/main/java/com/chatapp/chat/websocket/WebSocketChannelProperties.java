@@ -0,0 +1,59 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Executor settings of the client inbound and outbound STOMP channels ({@code app.websocket.channels.*}).
+ *
+ * @param inbound     client to server frames
+ * @param outbound    server to client frames
+ * @param orderByChat subscribers of a chat receive its messages in the order they were sent: inbound messages
+ *                    of one chat are handled one at a time ({@link ChatOrderedChannelExecutor}) and outbound
+ *                    messages keep their publish order per session
+ */
+@ConfigurationProperties(prefix = "app.websocket.channels")
+public record WebSocketChannelProperties(
+        @DefaultValue Channel inbound,
+        @DefaultValue Channel outbound,
+        @DefaultValue("true") boolean orderByChat
+) {
+
+    /**
+     * Whether messages published to one session must be delivered in publish order.
+     */
+    public boolean preservePublishOrder() {
+        return outbound.preserveOrder() || orderByChat;
+    }
+
+    public enum ExecutorMode {
+        /**
+         * Bounded platform thread pool.
+         */
+        POOL,
+        /**
+         * One virtual thread per message, optionally capped by {@code virtual-concurrency-limit}.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * @param mode                    executor backing the channel
+     * @param corePoolSize            pool mode: threads kept alive
+     * @param maxPoolSize             pool mode: threads created once the queue is full
+     * @param queueCapacity           pool mode: messages waiting for a thread; beyond it messages are rejected
+     * @param virtualConcurrencyLimit virtual mode: messages processed at once, {@code 0} for no limit;
+     *                                senders block while the limit is reached
+     * @param preserveOrder           deliver messages of one session in the order they were received (inbound)
+     *                                or published (outbound)
+     */
+    public record Channel(
+            @DefaultValue("POOL") ExecutorMode mode,
+            @DefaultValue("16") int corePoolSize,
+            @DefaultValue("16") int maxPoolSize,
+            @DefaultValue("10000") int queueCapacity,
+            @DefaultValue("0") int virtualConcurrencyLimit,
+            @DefaultValue("false") boolean preserveOrder
+    ) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code permessage-deflate} settings of the {@code /ws} endpoint ({@code app.websocket.compression.*}), applied by
+ * {@link PerMessageDeflateExtension}.
+ *
+ * @param enabled               accept {@code permessage-deflate} when the client offers it
+ * @param minSize               messages smaller than this many bytes are sent uncompressed; deflating a typing
+ *                              notification costs more CPU than the few bytes it saves
+ * @param serverContextTakeover keep the compression window between messages the server sends; off makes every
+ *                              message compress on its own, at a worse ratio
+ * @param clientContextTakeover let clients keep their compression window between messages; off saves client memory
+ */
+@ConfigurationProperties(prefix = "app.websocket.compression")
+public record WebSocketCompressionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1024") int minSize,
+        @DefaultValue("true") boolean serverContextTakeover,
+        @DefaultValue("true") boolean clientContextTakeover
+) {
+}
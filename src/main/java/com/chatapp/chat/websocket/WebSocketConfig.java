@@ -1,34 +1,214 @@
 package com.chatapp.chat.websocket;
 
 import com.chatapp.chat.security.JwtUtils;
+import io.netty.channel.ChannelOption;
+import org.apache.tomcat.websocket.server.Constants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.TcpOperations;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@EnableConfigurationProperties({
+        WebSocketChannelProperties.class,
+        WebSocketCompressionProperties.class,
+        WebSocketTransportProperties.class,
+        BrokerRelayProperties.class,
+        StompRateLimitProperties.class
+})
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    JwtUtils jwtUtils;
+    public static final String TOPIC_PREFIX = "/topic";
+    public static final String QUEUE_PREFIX = "/queue";
+
+    private final JwtUtils jwtUtils;
+    private final String brokerType;
+    private final WebSocketChannelProperties channels;
+    private final InboundMessageMetrics inboundMessageMetrics;
+    private final CborMessageConverter cborMessageConverter;
+    private final WebSocketTransportProperties transport;
+    private final SlowConsumerDecoratorFactory slowConsumerDecoratorFactory;
+    private final BrokerRelayProperties relay;
+    private final StompRateLimitInterceptor rateLimitInterceptor;
+
+    public WebSocketConfig(
+            JwtUtils jwtUtils,
+            @Value("${app.websocket.broker.type:" + ShardedBrokerConfig.SHARDED + "}") String brokerType,
+            WebSocketChannelProperties channels,
+            InboundMessageMetrics inboundMessageMetrics,
+            CborMessageConverter cborMessageConverter,
+            WebSocketTransportProperties transport,
+            SlowConsumerDecoratorFactory slowConsumerDecoratorFactory,
+            BrokerRelayProperties relay,
+            StompRateLimitInterceptor rateLimitInterceptor
+    ) {
+        this.jwtUtils = jwtUtils;
+        this.brokerType = brokerType;
+        this.channels = channels;
+        this.inboundMessageMetrics = inboundMessageMetrics;
+        this.cborMessageConverter = cborMessageConverter;
+        this.transport = transport;
+        this.slowConsumerDecoratorFactory = slowConsumerDecoratorFactory;
+        this.relay = relay;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("*");
+        registry.setPreserveReceiveOrder(channels.inbound().preserveOrder());
+    }
+
+    /**
+     * Spring still wraps every session in its own send-limiting decorator, but sessions reach it already wrapped by
+     * {@link SlowConsumerDecoratorFactory}, whose sends never block, so its limits apply there instead.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(transport.messageSizeLimit())
+                .setSendTimeLimit(transport.sendTimeLimitMs())
+                .setSendBufferSizeLimit(transport.sendBufferSizeLimit())
+                .setTimeToFirstMessage(transport.timeToFirstMessageMs())
+                .addDecoratorFactory(slowConsumerDecoratorFactory);
+    }
+
+    /**
+     * Tomcat rejects WebSocket messages larger than 8 KB by default, before the STOMP message size limit is ever
+     * checked.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> webSocketBufferSizeCustomizer() {
+        String messageSizeLimit = String.valueOf(transport.messageSizeLimit());
+        return factory -> factory.addContextCustomizers(context -> {
+            context.addParameter(Constants.TEXT_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM, messageSizeLimit);
+            context.addParameter(Constants.BINARY_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM, messageSizeLimit);
+        });
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic");
+        registry.setPreservePublishOrder(channels.preservePublishOrder());
+
+        if (ShardedBrokerConfig.SHARDED.equals(brokerType)) {
+            // "/topic" is served by ShardedBrokerMessageHandler; the simple broker still answers CONNECT
+            registry.enableSimpleBroker(QUEUE_PREFIX);
+        } else if (BrokerRelayConfig.RELAY.equals(brokerType)) {
+            registry.enableStompBrokerRelay(TOPIC_PREFIX, QUEUE_PREFIX)
+                    .setRelayHost(relay.host())
+                    .setRelayPort(relay.port())
+                    .setClientLogin(relay.clientLogin())
+                    .setClientPasscode(relay.clientPasscode())
+                    .setSystemLogin(relay.systemLogin())
+                    .setSystemPasscode(relay.systemPasscode())
+                    .setVirtualHost(relay.virtualHost().isEmpty() ? null : relay.virtualHost())
+                    .setSystemHeartbeatSendInterval(relay.systemHeartbeatMs())
+                    .setSystemHeartbeatReceiveInterval(relay.systemHeartbeatMs())
+                    .setTcpClient(relayTcpClient(relay));
+        } else {
+            registry.enableSimpleBroker(TOPIC_PREFIX);
+        }
+    }
+
+    /**
+     * Reactor Netty client the relay opens its broker connections with: one shared system connection plus one per
+     * WebSocket session. The relay shuts it down, event loop included, when it stops.
+     */
+    private static TcpOperations<byte[]> relayTcpClient(BrokerRelayProperties relay) {
+        return new ReactorNettyTcpClient<>(
+                client -> client.host(relay.host())
+                        .port(relay.port())
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, relay.connectTimeoutMs()),
+                new StompReactorNettyCodec()
+        );
     }
 
+    /**
+     * Adds CBOR next to the default converters. It only matches frames with {@code content-type:application/cbor},
+     * so JSON stays the default in both directions.
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(cborMessageConverter);
+        return true;
+    }
+
+    /**
+     * The rate limiter runs after authentication, so it sees the user of the session, and on the sending thread,
+     * so a rejected frame never queues for the executor.
+     */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new JwtChannelInterceptor(jwtUtils));
+        registration.interceptors(new JwtChannelInterceptor(jwtUtils), rateLimitInterceptor, inboundMessageMetrics);
+
+        if (channels.orderByChat()) {
+            registration.executor(new ChatOrderedChannelExecutor(
+                    createExecutor(channels.inbound(), "ws-inbound-"), new ChatIdResolver()
+            ));
+        } else {
+            configureExecutor(registration, channels.inbound(), "ws-inbound-");
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, channels.outbound(), "ws-outbound-");
+    }
+
+    /**
+     * Pool mode keeps Spring's managed {@code ThreadPoolTaskExecutor}, only with explicit bounds. Virtual mode
+     * suits the inbound channel, whose handlers may block on the database: a blocked message parks its virtual
+     * thread instead of holding one of a few platform threads that all other sessions are waiting for.
+     */
+    private static void configureExecutor(
+            ChannelRegistration registration,
+            WebSocketChannelProperties.Channel channel,
+            String threadNamePrefix
+    ) {
+        switch (channel.mode()) {
+            case VIRTUAL -> registration.executor(createExecutor(channel, threadNamePrefix));
+            case POOL -> registration.taskExecutor()
+                    .corePoolSize(channel.corePoolSize())
+                    .maxPoolSize(channel.maxPoolSize())
+                    .queueCapacity(channel.queueCapacity());
+        }
+    }
+
+    /**
+     * Standalone executor for channels whose executor is wrapped, and so cannot be built by Spring's
+     * {@code TaskExecutorRegistration}. A pool created here is shut down by {@link ChatOrderedChannelExecutor}.
+     */
+    private static Executor createExecutor(WebSocketChannelProperties.Channel channel, String threadNamePrefix) {
+        return switch (channel.mode()) {
+            case VIRTUAL -> new VirtualThreadChannelExecutor(threadNamePrefix, channel.virtualConcurrencyLimit());
+            case POOL -> {
+                ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+                pool.setThreadNamePrefix(threadNamePrefix);
+                pool.setCorePoolSize(channel.corePoolSize());
+                pool.setMaxPoolSize(channel.maxPoolSize());
+                pool.setQueueCapacity(channel.queueCapacity());
+                pool.initialize();
+                yield pool;
+            }
+        };
     }
 
 }
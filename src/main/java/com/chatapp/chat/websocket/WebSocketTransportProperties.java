@@ -0,0 +1,42 @@
+package com.chatapp.chat.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits of the {@code /ws} transport and what happens to clients that cannot keep up
+ * ({@code app.websocket.transport.*}). Defaults are Spring's own.
+ *
+ * @param messageSizeLimit     largest inbound STOMP message in bytes; also the largest WebSocket message Tomcat
+ *                             accepts, so a frame is not rejected by the container first
+ * @param sendTimeLimitMs      longest a single send to one client may take; a client stuck beyond it is
+ *                             disconnected whatever the policy
+ * @param sendBufferSizeLimit  bytes buffered per session while earlier messages are still being sent
+ * @param timeToFirstMessageMs connections that send nothing within this time after the handshake are closed
+ * @param slowConsumerPolicy   what to do once a session's buffer exceeds {@code sendBufferSizeLimit}
+ */
+@ConfigurationProperties(prefix = "app.websocket.transport")
+public record WebSocketTransportProperties(
+        @DefaultValue("65536") int messageSizeLimit,
+        @DefaultValue("10000") int sendTimeLimitMs,
+        @DefaultValue("524288") int sendBufferSizeLimit,
+        @DefaultValue("60000") int timeToFirstMessageMs,
+        @DefaultValue("DISCONNECT") SlowConsumerPolicy slowConsumerPolicy
+) {
+
+    public enum SlowConsumerPolicy {
+        /**
+         * Close the session; the client reconnects and catches up from the history endpoint.
+         */
+        DISCONNECT,
+        /**
+         * Drop the oldest buffered messages until the buffer fits again.
+         */
+        DROP_OLDEST,
+        /**
+         * Keep only the newest buffered message per subscription and destination, then drop the oldest if the
+         * buffer still does not fit.
+         */
+        COALESCE
+    }
+}
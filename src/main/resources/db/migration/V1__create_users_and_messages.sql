@@ -0,0 +1,27 @@
+-- Baseline schema, matching what Hibernate generated for the User and Message entities.
+-- Databases created earlier through ddl-auto are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id         UUID                        NOT NULL,
+    email      VARCHAR(255)                NOT NULL,
+    password   VARCHAR(255)                NOT NULL,
+    first_name VARCHAR(30),
+    last_name  VARCHAR(50),
+    username   VARCHAR(30),
+    role       VARCHAR(255)                NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    enabled    BOOLEAN                     NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT uc_user_email UNIQUE (email),
+    CONSTRAINT uc_user_username UNIQUE (username)
+);
+
+CREATE TABLE messages (
+    id         UUID                        NOT NULL,
+    chat_id    VARCHAR(255)                NOT NULL,
+    sender     VARCHAR(255)                NOT NULL,
+    content    TEXT                        NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT messages_pkey PRIMARY KEY (id)
+);
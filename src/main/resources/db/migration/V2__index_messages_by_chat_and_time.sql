@@ -0,0 +1,5 @@
+-- Serves every history read: equality on chat_id, then the (created_at, id) keyset used for ordering and paging.
+-- CONCURRENTLY keeps the table writable while the index is built on an existing database.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_messages_chat_created_id
+    ON messages (chat_id, created_at, id);
@@ -0,0 +1,50 @@
+-- Turns messages into a table range-partitioned by calendar month (UTC) of created_at, named messages_YYYY_MM.
+-- Partitions are created for every month from the oldest message to three months ahead; MessagePartitionManager
+-- keeps creating upcoming months and drops expired ones. Existing rows are copied once, which takes a while on a
+-- large table and holds the lock on messages until it is done.
+-- messages_default catches rows outside every monthly range (clock skew, imported history) so an insert never
+-- fails for want of a partition; it stays near-empty as long as upcoming months are created ahead of time.
+-- A partitioned table's primary key must contain the partition key, hence (id, created_at).
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+ALTER TABLE messages_unpartitioned RENAME CONSTRAINT messages_pkey TO messages_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_messages_chat_created_id;
+
+CREATE TABLE messages (
+    id         UUID                        NOT NULL,
+    chat_id    VARCHAR(255)                NOT NULL,
+    sender     VARCHAR(255)                NOT NULL,
+    content    TEXT                        NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT messages_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_messages_chat_created_id ON messages (chat_id, created_at, id);
+
+DO $$
+DECLARE
+    oldest TIMESTAMPTZ := coalesce((SELECT min(created_at) FROM messages_unpartitioned), now());
+    month  TIMESTAMP   := date_trunc('month', oldest AT TIME ZONE 'UTC');
+    last   TIMESTAMP   := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+    WHILE month <= last LOOP
+        EXECUTE format(
+                'CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                'messages_' || to_char(month, 'YYYY_MM'),
+                month AT TIME ZONE 'UTC',
+                (month + INTERVAL '1 month') AT TIME ZONE 'UTC'
+        );
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+CREATE TABLE messages_default PARTITION OF messages DEFAULT;
+
+INSERT INTO messages (id, chat_id, sender, content, created_at)
+SELECT id, chat_id, sender, content, created_at
+FROM messages_unpartitioned;
+
+DROP TABLE messages_unpartitioned;
+
+ANALYZE messages;
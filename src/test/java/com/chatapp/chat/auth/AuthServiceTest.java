@@ -16,13 +16,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -98,8 +102,10 @@ class AuthServiceTest {
         Authentication auth = mock(Authentication.class);
 
         when(authenticationManager.authenticate(any())).thenReturn(auth);
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
         when(auth.getName()).thenReturn("fuerteBob");
-        when(jwtUtils.generateToken("fuerteBob")).thenReturn("jwt-mocked-token");
+        doReturn(authorities).when(auth).getAuthorities();
+        when(jwtUtils.generateToken("fuerteBob", authorities)).thenReturn("jwt-mocked-token");
 
         // when
         LoginResponse response = subject.login(request);
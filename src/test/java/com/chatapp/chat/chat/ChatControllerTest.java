@@ -2,21 +2,25 @@ package com.chatapp.chat.chat;
 
 import com.chatapp.chat.chat._testconfig.MockedSecurityConfig;
 import com.chatapp.chat.chat.message.Message;
-import com.chatapp.chat.chat.message.MessageService;
+import com.chatapp.chat.chat.message.MessageWriteBuffer;
+import com.chatapp.chat.chat.presence.PresenceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
-import java.util.UUID;
-
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @Import(MockedSecurityConfig.class)
@@ -27,49 +31,47 @@ class ChatControllerTest {
     SimpMessagingTemplate simpMessagingTemplate;
 
     @MockitoBean
-    MessageService messageService;
+    MessageWriteBuffer messageWriteBuffer;
+
+    ObjectProvider<PresenceService> presenceService;
 
     ChatController subject;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
-        subject = new ChatController(simpMessagingTemplate, messageService);
+        presenceService = mock(ObjectProvider.class);
+        subject = new ChatController(simpMessagingTemplate, messageWriteBuffer, presenceService);
     }
 
     @Test
-    @DisplayName("sendMessage() should save message and forward it to the correct topic")
-    void shouldSaveMessageAndForward() {
+    @DisplayName("sendMessage() should queue message for persistence and forward it to the correct topic")
+    void shouldQueueMessageAndForward() {
         // given
         ChatMessage incoming = new ChatMessage();
         incoming.setChatId("room-1");
         incoming.setSender("Alice");
         incoming.setContent("Hello!");
 
-        Message savedEntity = Message.builder()
-                .id(UUID.randomUUID())
-                .chatId("room-1")
-                .content("Hello!")
-                .build();
-
-        when(messageService.save(any(Message.class))).thenReturn(savedEntity);
-
         // when
         subject.sendMessage(incoming);
 
         // then
         ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        InOrder inOrder = inOrder(messageWriteBuffer, simpMessagingTemplate);
 
-        verify(messageService).save(messageCaptor.capture());
-        Message savedArg = messageCaptor.getValue();
-
-        assertThat(savedArg.getChatId()).isEqualTo("room-1");
-        assertThat(savedArg.getSender()).isEqualTo("Alice");
-        assertThat(savedArg.getContent()).isEqualTo("Hello!");
-
-        verify(simpMessagingTemplate).convertAndSend(
+        inOrder.verify(messageWriteBuffer).submit(messageCaptor.capture());
+        inOrder.verify(simpMessagingTemplate).convertAndSend(
                 "/topic/chat.room-1",
                 incoming
         );
+
+        Message queued = messageCaptor.getValue();
+
+        assertThat(queued.getChatId()).isEqualTo("room-1");
+        assertThat(queued.getSender()).isEqualTo("Alice");
+        assertThat(queued.getContent()).isEqualTo("Hello!");
+        assertThat(queued.getCreatedAt()).isNotNull();
     }
 
     @Test
@@ -81,7 +83,7 @@ class ChatControllerTest {
         msg.setSender("bob");
 
         // when
-        subject.addUser(msg);
+        subject.addUser(msg, null);
 
         // then
         assertThat(msg.getType()).isEqualTo(ChatMessageType.JOIN);
@@ -91,4 +93,21 @@ class ChatControllerTest {
                 msg
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("addUser() should leave announcing an authenticated user to presence tracking")
+    void shouldNotBroadcastJoinWithPresence() {
+        // given
+        ChatMessage msg = new ChatMessage();
+        msg.setChatId("room-22");
+        msg.setSender("bob");
+        when(presenceService.getIfAvailable()).thenReturn(mock(PresenceService.class));
+
+        // when
+        subject.addUser(msg, new UsernamePasswordAuthenticationToken("bob", null, null));
+
+        // then
+        assertThat(msg.getType()).isEqualTo(ChatMessageType.JOIN);
+        verifyNoInteractions(simpMessagingTemplate);
+    }
+}
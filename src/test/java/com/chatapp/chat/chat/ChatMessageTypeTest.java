@@ -9,7 +9,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 class ChatMessageTypeTest {
 
     @Test
-    @DisplayName("Should contain exactly CHAT, JOIN, LEAVE values")
+    @DisplayName("Should contain exactly CHAT, JOIN, LEAVE, TYPING values")
     void shouldContainAllEnumValues() {
         // given
         // enum is static, no setup needed
@@ -22,7 +22,8 @@ class ChatMessageTypeTest {
                 .containsExactly(
                         ChatMessageType.CHAT,
                         ChatMessageType.JOIN,
-                        ChatMessageType.LEAVE
+                        ChatMessageType.LEAVE,
+                        ChatMessageType.TYPING
                 );
     }
 
@@ -1,6 +1,8 @@
 package com.chatapp.chat.chat.message;
 
 import com.chatapp.chat.chat._testconfig.MockedSecurityConfig;
+import com.chatapp.chat.chat.message.exception.InvalidHistoryCursorException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,14 +13,28 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
-
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Import(MockedSecurityConfig.class)
@@ -32,6 +48,17 @@ class MessageControllerTest {
     @MockitoBean
     MessageService messageService;
 
+    @MockitoBean
+    RecentMessagesCache recentMessages;
+
+    @BeforeEach
+    void loadThroughCache() {
+        when(recentMessages.latest(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            Supplier<List<MessageResponse>> loader = invocation.getArgument(2);
+            return loader.get();
+        });
+    }
+
     @Test
     @DisplayName("Should return chat message history for given chatId")
     void shouldReturnChatHistory() throws Exception {
@@ -55,7 +82,7 @@ class MessageControllerTest {
                 .createdAt(Instant.parse("2024-01-01T10:01:00Z"))
                 .build();
 
-        when(messageService.getChatHistory("room1"))
+        when(messageService.getChatHistory("room1", null, null, 50))
                 .thenReturn(List.of(m1, m2));
 
         // when + then
@@ -78,7 +105,7 @@ class MessageControllerTest {
     @DisplayName("Should return empty list when chat history is empty")
     void shouldReturnEmptyListWhenNoMessagesExist() throws Exception {
         // given
-        when(messageService.getChatHistory("emptyRoom")).thenReturn(List.of());
+        when(messageService.getChatHistory("emptyRoom", null, null, 50)).thenReturn(List.of());
 
         // when + then
         mockMvc.perform(get("/api/messages/emptyRoom")
@@ -92,13 +119,127 @@ class MessageControllerTest {
     @DisplayName("Should correctly call service with provided chatId")
     void shouldCallServiceWithCorrectChatId() throws Exception {
         // given
-        when(messageService.getChatHistory("roomX")).thenReturn(List.of());
+        when(messageService.getChatHistory("roomX", null, null, 50)).thenReturn(List.of());
 
         // when
         mockMvc.perform(get("/api/messages/roomX"))
                 .andExpect(status().isOk());
 
         // then
-        Mockito.verify(messageService).getChatHistory("roomX");
+        Mockito.verify(messageService).getChatHistory("roomX", null, null, 50);
+    }
+
+    @Test
+    @DisplayName("Should pass keyset cursor and limit to the service")
+    void shouldPassCursorAndLimitToService() throws Exception {
+        // given
+        UUID before = UUID.randomUUID();
+        when(messageService.getChatHistory("room1", before, null, 20)).thenReturn(List.of());
+
+        // when
+        mockMvc.perform(get("/api/messages/room1")
+                        .param("before", before.toString())
+                        .param("limit", "20"))
+                .andExpect(status().isOk());
+
+        // then
+        Mockito.verify(messageService).getChatHistory("room1", before, null, 20);
+    }
+
+    @Test
+    @DisplayName("Should serve the latest page from the recent messages cache")
+    void shouldServeLatestPageFromCache() throws Exception {
+        // given
+        UUID id = UUID.randomUUID();
+        when(recentMessages.latest(eq("room1"), eq(20), any())).thenReturn(List.of(
+                new MessageResponse(id, "room1", "alice", "Cached", Instant.parse("2024-01-01T10:00:00Z"))));
+
+        // when + then
+        mockMvc.perform(get("/api/messages/room1").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id.toString()))
+                .andExpect(jsonPath("$[0].content").value("Cached"));
+
+        Mockito.verifyNoInteractions(messageService);
+    }
+
+    @Test
+    @DisplayName("Should not use the recent messages cache for cursor pages")
+    void shouldBypassCacheForCursorPages() throws Exception {
+        // given
+        UUID after = UUID.randomUUID();
+        when(messageService.getChatHistory("room1", null, after, 50)).thenReturn(List.of());
+
+        // when
+        mockMvc.perform(get("/api/messages/room1").param("after", after.toString()))
+                .andExpect(status().isOk());
+
+        // then
+        Mockito.verify(recentMessages, Mockito.never()).latest(anyString(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the cursor is invalid")
+    void shouldReturn400ForInvalidCursor() throws Exception {
+        // given
+        UUID after = UUID.randomUUID();
+        when(messageService.getChatHistory("room1", null, after, 50))
+                .thenThrow(new InvalidHistoryCursorException("Message " + after + " does not belong to chat room1"));
+
+        // when + then
+        mockMvc.perform(get("/api/messages/room1").param("after", after.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    @DisplayName("Should stream chat history as newline-delimited JSON")
+    void shouldStreamHistoryAsNdjson() throws Exception {
+        // given
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<MessageResponse> sink = invocation.getArgument(2);
+            sink.accept(new MessageResponse(id1, "room1", "alice", "Hello", Instant.parse("2024-01-01T10:00:00Z")));
+            sink.accept(new MessageResponse(id2, "room1", "bob", "Hi!", Instant.parse("2024-01-01T10:01:00Z")));
+            return null;
+        }).when(messageService).streamChatHistory(eq("room1"), isNull(), any());
+
+        // when
+        MvcResult asyncResult = mockMvc.perform(get("/api/messages/room1/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MessageController.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(body.lines().toList())
+                .hasSize(2)
+                .satisfiesExactly(
+                        line -> assertThat(line).contains(id1.toString(), "\"content\":\"Hello\""),
+                        line -> assertThat(line).contains(id2.toString(), "\"content\":\"Hi!\"")
+                );
+    }
+
+    @Test
+    @DisplayName("Should answer a stream with an unknown cursor with 400 before streaming starts")
+    void shouldRejectUnknownStreamCursor() throws Exception {
+        // given
+        UUID after = UUID.randomUUID();
+        when(messageService.findAnchor("room1", after))
+                .thenThrow(new InvalidHistoryCursorException("Message " + after + " does not belong to chat room1"));
+
+        // when + then
+        mockMvc.perform(get("/api/messages/room1/stream").param("after", after.toString()))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+        verify(messageService, never()).streamChatHistory(any(), any(), any());
     }
-}
\ No newline at end of file
+}
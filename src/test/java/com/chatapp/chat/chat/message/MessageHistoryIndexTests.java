@@ -0,0 +1,173 @@
+package com.chatapp.chat.chat.message;
+
+import com.chatapp.chat.config.PersistenceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(PersistenceConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Message history index tests")
+class MessageHistoryIndexTests {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROOMS = 1_000;
+
+    /**
+     * Every partition gets its own copy of {@code idx_messages_chat_created_id}, named after the partition.
+     */
+    private static final String PARTITION_INDEX_SUFFIX = "_chat_id_created_at_id_idx";
+
+    @SuppressWarnings("resource")
+    @Container
+    static PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>("postgres:16")
+                    .withDatabaseName("testdb")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM messages", Integer.class);
+        if (existing != null && existing >= ROWS) {
+            return;
+        }
+        jdbcTemplate.execute("""
+                INSERT INTO messages (id, chat_id, sender, content, created_at)
+                SELECT gen_random_uuid(),
+                       'room-' || (g %% %d),
+                       'user-' || (g %% 50),
+                       'message ' || g,
+                       now() - make_interval(secs => g)
+                FROM generate_series(1, %d) AS g
+                """.formatted(ROOMS, ROWS));
+        jdbcTemplate.execute("ANALYZE messages");
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+
+    @Test
+    @DisplayName("Migrations should create the chat history index")
+    void shouldCreateHistoryIndex() {
+        // given
+        String sql = "SELECT indexdef FROM pg_indexes WHERE tablename = 'messages' AND indexname = ?";
+
+        // when
+        String definition = jdbcTemplate.queryForObject(sql, String.class, "idx_messages_chat_created_id");
+
+        // then
+        assertThat(definition).contains("(chat_id, created_at, id)");
+    }
+
+    @Test
+    @DisplayName("Latest page query should use the index instead of a sequential scan")
+    void latestPageShouldUseIndex() {
+        // given
+        String sql = """
+                SELECT * FROM messages
+                WHERE chat_id = 'room-7'
+                ORDER BY created_at DESC, id DESC
+                LIMIT 50
+                """;
+
+        // when
+        String plan = explain(sql);
+
+        // then
+        assertThat(plan).contains(PARTITION_INDEX_SUFFIX);
+        assertThat(plan).doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("Keyset page query should use the index instead of a sequential scan")
+    void keysetPageShouldUseIndex() {
+        // given
+        String sql = """
+                SELECT * FROM messages
+                WHERE chat_id = 'room-7'
+                  AND (created_at < now() - interval '1 day'
+                       OR (created_at = now() - interval '1 day' AND id < '00000000-0000-0000-0000-000000000000'))
+                ORDER BY created_at DESC, id DESC
+                LIMIT 50
+                """;
+
+        // when
+        String plan = explain(sql);
+
+        // then
+        assertThat(plan).contains(PARTITION_INDEX_SUFFIX);
+        assertThat(plan).doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("Migrations should partition messages by month with a default partition")
+    void shouldPartitionByMonth() {
+        // given
+        String current = MessagePartitionManager.partitionName(YearMonth.now(ZoneOffset.UTC));
+
+        // when
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'messages'::regclass",
+                String.class);
+
+        // then
+        assertThat(partitions).contains(current, MessagePartitionManager.DEFAULT_PARTITION);
+    }
+
+    @Test
+    @DisplayName("Page queries bounded by created_at should only scan the partitions of that range")
+    void boundedQueryShouldPrunePartitions() {
+        // given
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        String sql = """
+                SELECT * FROM messages
+                WHERE chat_id = 'room-7'
+                  AND created_at >= '%s'
+                ORDER BY created_at DESC, id DESC
+                LIMIT 50
+                """.formatted(month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+        // when
+        String plan = explain(sql);
+
+        // then
+        assertThat(plan).contains(MessagePartitionManager.partitionName(month) + PARTITION_INDEX_SUFFIX);
+        assertThat(plan).doesNotContain(MessagePartitionManager.partitionName(month.minusMonths(1)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.chatapp.chat.chat.message;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageInsertRepositoryImplTest {
+
+    @Mock
+    EntityManager entityManager;
+
+    private static List<Message> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Message.builder().chatId("room-1").sender("alice").content("m" + i).build())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Should persist every message and flush once per batch")
+    void shouldFlushPerBatch() {
+        // given
+        MessageInsertRepositoryImpl subject = new MessageInsertRepositoryImpl(entityManager, 2);
+        List<Message> batch = messages(5);
+
+        // when
+        List<Message> result = subject.insertAll(batch);
+
+        // then
+        assertThat(result).isSameAs(batch);
+        verify(entityManager, times(5)).persist(any(Message.class));
+        verify(entityManager, times(3)).flush();
+
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).persist(batch.get(0));
+        inOrder.verify(entityManager).persist(batch.get(1));
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).detach(batch.get(0));
+        inOrder.verify(entityManager).detach(batch.get(1));
+        inOrder.verify(entityManager).persist(batch.get(2));
+    }
+
+    @Test
+    @DisplayName("Should detach every message once it has been flushed")
+    void shouldDetachFlushedMessages() {
+        // given
+        MessageInsertRepositoryImpl subject = new MessageInsertRepositoryImpl(entityManager, 200);
+        List<Message> batch = messages(3);
+
+        // when
+        subject.insertAll(batch);
+
+        // then
+        verify(entityManager).flush();
+        batch.forEach(message -> verify(entityManager).detach(message));
+    }
+
+    @Test
+    @DisplayName("Should not touch the persistence context for an empty list")
+    void shouldIgnoreEmptyList() {
+        // given
+        MessageInsertRepositoryImpl subject = new MessageInsertRepositoryImpl(entityManager, 200);
+
+        // when
+        subject.insertAll(List.of());
+
+        // then
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    @DisplayName("Should reject a message that already has an id instead of merging it")
+    void shouldRejectMessageWithId() {
+        // given
+        MessageInsertRepositoryImpl subject = new MessageInsertRepositoryImpl(entityManager, 200);
+        Message existing = Message.builder().id(UUID.randomUUID()).chatId("room-1").sender("alice").content("x").build();
+
+        // when + then
+        assertThatThrownBy(() -> subject.insertAll(List.of(existing)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not new");
+        verify(entityManager, never()).persist(any());
+        verify(entityManager, never()).merge(any());
+    }
+
+    @Test
+    @DisplayName("Should clear the ids of a failed batch so its messages can be inserted again one by one")
+    void shouldAllowRetryAfterFailedBatch() {
+        // given
+        MessageInsertRepositoryImpl subject = new MessageInsertRepositoryImpl(entityManager, 200);
+        List<Message> batch = messages(3);
+        doAnswer(invocation -> {
+            invocation.<Message>getArgument(0).setId(UUID.randomUUID());
+            return null;
+        }).when(entityManager).persist(any(Message.class));
+        doThrow(new IllegalStateException("batch insert failed")).doNothing().when(entityManager).flush();
+
+        // when
+        assertThatThrownBy(() -> subject.insertAll(batch)).isInstanceOf(IllegalStateException.class);
+        List<UUID> idsAfterFailure = batch.stream().map(Message::getId).toList();
+        batch.forEach(message -> subject.insertAll(List.of(message)));
+
+        // then
+        assertThat(idsAfterFailure).containsOnlyNulls();
+        assertThat(batch).allSatisfy(message -> assertThat(message.getId()).isNotNull());
+        verify(entityManager, times(6)).persist(any(Message.class));
+        batch.forEach(message -> verify(entityManager).detach(message));
+    }
+}
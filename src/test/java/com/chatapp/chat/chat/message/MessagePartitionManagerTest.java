@@ -0,0 +1,203 @@
+package com.chatapp.chat.chat.message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessagePartitionManagerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T12:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final TransactionOperations transactionOperations = new TransactionOperations() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            transactions.incrementAndGet();
+            return action.doInTransaction(new SimpleTransactionStatus());
+        }
+    };
+
+    private MessagePartitionManager manager(int premakeMonths, int retentionMonths) {
+        return new MessagePartitionManager(
+                jdbcTemplate, transactionOperations, registry, CLOCK, premakeMonths, retentionMonths);
+    }
+
+    private void partitioned(boolean partitioned) {
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), any()))
+                .thenReturn(partitioned);
+        lenient().when(jdbcTemplate.queryForObject(contains("FROM messages_default"), eq(Boolean.class), any(), any()))
+                .thenReturn(false);
+    }
+
+    private double failures(String operation) {
+        return registry.get("chat.messages.partitions.failures").tag("operation", operation).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should create the current month and the configured number of months ahead")
+    void shouldCreateUpcomingPartitions() {
+        // given
+        partitioned(true);
+
+        // when
+        manager(3, 0).maintain();
+
+        // then
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS messages_2026_10 PARTITION OF messages "
+                + "FOR VALUES FROM ('2026-10-01T00:00:00Z') TO ('2026-11-01T00:00:00Z')");
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_11 "));
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_12 "));
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS messages_2027_01 PARTITION OF messages "
+                + "FOR VALUES FROM ('2027-01-01T00:00:00Z') TO ('2027-02-01T00:00:00Z')");
+        verify(jdbcTemplate, times(4)).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Should keep every partition when no retention is configured")
+    void shouldKeepEverythingWithoutRetention() {
+        // given
+        partitioned(true);
+
+        // when
+        manager(0, 0).maintain();
+
+        // then
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any());
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+    }
+
+    @Test
+    @DisplayName("Should drop monthly partitions older than the retention and expired rows of the default partition")
+    void shouldDropExpiredPartitions() {
+        // given
+        partitioned(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), any()))
+                .thenReturn(List.of("messages_2026_02", "messages_2026_03", "messages_2026_04", "messages_default"));
+
+        // when
+        manager(0, 6).maintain();
+
+        // then
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS messages_2026_02");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS messages_2026_03");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS messages_2026_04");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS messages_default");
+        verify(jdbcTemplate).update(contains("DELETE FROM messages_default"), eq("2026-04-01T00:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should keep going when one partition cannot be created")
+    void shouldContinueAfterFailedCreate() {
+        // given
+        partitioned(true);
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_10 "));
+
+        // when
+        manager(1, 0).maintain();
+
+        // then
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_11 "));
+        assertThat(failures("create")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should move rows of a month out of the default partition into its new partition in one transaction")
+    void shouldMoveDefaultRowsIntoNewPartition() {
+        // given
+        partitioned(true);
+        when(jdbcTemplate.queryForObject(contains("FROM messages_default"), eq(Boolean.class),
+                eq("2026-11-01T00:00:00Z"), eq("2026-12-01T00:00:00Z")))
+                .thenReturn(true);
+        String range = "created_at >= '2026-11-01T00:00:00Z' AND created_at < '2026-12-01T00:00:00Z'";
+
+        // when
+        manager(1, 0).maintain();
+
+        // then
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("LOCK TABLE messages_default IN ACCESS EXCLUSIVE MODE");
+        order.verify(jdbcTemplate).execute("CREATE TABLE messages_2026_11 (LIKE messages INCLUDING DEFAULTS)");
+        order.verify(jdbcTemplate).update("INSERT INTO messages_2026_11 SELECT * FROM messages_default WHERE " + range);
+        order.verify(jdbcTemplate).update("DELETE FROM messages_default WHERE " + range);
+        order.verify(jdbcTemplate).execute("ALTER TABLE messages ATTACH PARTITION messages_2026_11 "
+                + "FOR VALUES FROM ('2026-11-01T00:00:00Z') TO ('2026-12-01T00:00:00Z')");
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_10 "));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE IF NOT EXISTS messages_2026_11 "));
+        assertThat(transactions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should leave a table that is not partitioned alone")
+    void shouldSkipUnpartitionedTable() {
+        // given
+        partitioned(false);
+
+        // when
+        manager(3, 6).maintain();
+
+        // then
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Should leave databases without PostgreSQL catalogs alone")
+    void shouldSkipUnsupportedDatabase() {
+        // given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any()))
+                .thenThrow(new BadSqlGrammarException("partitioned", "SELECT ...", new SQLException("not found")));
+
+        // when
+        manager(3, 6).maintain();
+
+        // then
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Should map monthly partition names to their month and ignore other tables")
+    void shouldParsePartitionNames() {
+        // when + then
+        assertThat(MessagePartitionManager.monthOf("messages_2026_04")).contains(YearMonth.of(2026, 4));
+        assertThat(MessagePartitionManager.monthOf("messages_default")).isEmpty();
+        assertThat(MessagePartitionManager.monthOf("messages_2026_13")).isEmpty();
+        assertThat(MessagePartitionManager.partitionName(YearMonth.of(2027, 1))).isEqualTo("messages_2027_01");
+    }
+}
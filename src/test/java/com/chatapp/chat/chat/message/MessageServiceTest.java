@@ -1,5 +1,7 @@
 package com.chatapp.chat.chat.message;
 
+import com.chatapp.chat.chat.message.exception.InvalidHistoryCursorException;
+import com.chatapp.chat.common.id.TimeOrderedUuidGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,13 +9,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,11 +35,17 @@ class MessageServiceTest {
     @Mock
     private MessageRepository messageRepository;
 
+    @Mock
+    private RecentMessagesCache recentMessages;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     MessageService subject;
 
     @BeforeEach
     void setUp() {
-        subject = new MessageService(messageRepository);
+        subject = new MessageService(messageRepository, recentMessages, eventPublisher);
     }
 
     @Test
@@ -41,7 +60,7 @@ class MessageServiceTest {
                 .createdAt(Instant.now())
                 .build();
 
-        when(messageRepository.save(input)).thenReturn(input);
+        when(messageRepository.insertAll(List.of(input))).thenReturn(List.of(input));
 
         // when
         Message result = subject.save(input);
@@ -49,41 +68,247 @@ class MessageServiceTest {
         // then
         assertThat(result).isEqualTo(input);
 
-        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
-        verify(messageRepository).save(captor.capture());
-        assertThat(captor.getValue()).isEqualTo(input);
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.captor();
+        verify(messageRepository).insertAll(captor.capture());
+        assertThat(captor.getValue()).containsExactly(input);
     }
 
     @Test
-    @DisplayName("Should return chat history ordered by createdAt using repository")
-    void shouldReturnChatHistory() {
+    @DisplayName("Should insert a batch of messages through the insert-only repository path")
+    void shouldSaveAllMessages() {
+        // given
+        List<Message> batch = List.of(
+                Message.builder().chatId("chat-1").sender("Alice").content("One").build(),
+                Message.builder().chatId("chat-1").sender("Bob").content("Two").build()
+        );
+
+        when(messageRepository.insertAll(batch)).thenReturn(batch);
+
+        // when
+        List<Message> result = subject.saveAll(batch);
+
+        // then
+        assertThat(result).containsExactlyElementsOf(batch);
+        verify(messageRepository).insertAll(batch);
+    }
+
+    @Test
+    @DisplayName("Should add inserted messages to the recent history cache")
+    void shouldAddInsertedMessagesToRecentHistory() {
+        // given
+        Message input = Message.builder().chatId("chat-1").sender("Alice").content("One").build();
+        Message persisted = message("chat-1", "One", Instant.now());
+
+        when(messageRepository.insertAll(List.of(input))).thenReturn(List.of(persisted));
+
+        // when
+        subject.save(input);
+
+        // then
+        verify(recentMessages).addAll(List.of(persisted));
+    }
+
+    @Test
+    @DisplayName("Should publish inserted messages once they are persisted")
+    void shouldPublishPersistedMessages() {
+        // given
+        Message input = Message.builder().chatId("chat-1").sender("Alice").content("One").build();
+        Message persisted = message("chat-1", "One", Instant.now());
+
+        when(messageRepository.insertAll(List.of(input))).thenReturn(List.of(persisted));
+
+        // when
+        subject.saveAll(List.of(input));
+
+        // then
+        verify(eventPublisher).publishEvent(new MessagesPersistedEvent(List.of(persisted)));
+    }
+
+    @Test
+    @DisplayName("Should return latest page in chronological order when no cursor is given")
+    void shouldReturnLatestPageInChronologicalOrder() {
         // given
         String chatId = "chat-xyz";
+        Message older = message(chatId, "First", Instant.parse("2024-01-01T10:00:00Z"));
+        Message newer = message(chatId, "Second", Instant.parse("2024-01-01T10:01:00Z"));
 
-        List<Message> expectedHistory = List.of(
-                Message.builder()
-                        .id(UUID.randomUUID())
-                        .chatId(chatId)
-                        .sender("Bob")
-                        .content("First")
-                        .createdAt(Instant.now())
-                        .build(),
-                Message.builder()
-                        .id(UUID.randomUUID())
-                        .chatId(chatId)
-                        .sender("Alice")
-                        .content("Second")
-                        .createdAt(Instant.now().plusSeconds(1))
-                        .build()
-        );
+        when(messageRepository.findByChatIdOrderByCreatedAtDescIdDesc(chatId, Limit.of(50)))
+                .thenReturn(List.of(newer, older));
+
+        // when
+        List<Message> result = subject.getChatHistory(chatId, null, null, 50);
+
+        // then
+        assertThat(result).containsExactly(older, newer);
+    }
+
+    @Test
+    @DisplayName("Should page backwards from the 'before' message using its (createdAt, id) key")
+    void shouldReturnPageBeforeCursor() {
+        // given
+        String chatId = "chat-xyz";
+        Message anchor = message(chatId, "Anchor", Instant.parse("2024-01-01T10:05:00Z"));
+        Message older = message(chatId, "Older", Instant.parse("2024-01-01T10:00:00Z"));
+        Message oldest = message(chatId, "Oldest", Instant.parse("2024-01-01T09:00:00Z"));
+
+        when(messageRepository.findById(anchor.getId())).thenReturn(Optional.of(anchor));
+        when(messageRepository.findPageBefore(chatId, anchor.getCreatedAt(), anchor.getId(), Limit.of(2)))
+                .thenReturn(List.of(older, oldest));
+
+        // when
+        List<Message> result = subject.getChatHistory(chatId, anchor.getId(), null, 2);
+
+        // then
+        assertThat(result).containsExactly(oldest, older);
+    }
+
+    @Test
+    @DisplayName("Should page forwards from the 'after' message using its (createdAt, id) key")
+    void shouldReturnPageAfterCursor() {
+        // given
+        String chatId = "chat-xyz";
+        Message anchor = message(chatId, "Anchor", Instant.parse("2024-01-01T10:05:00Z"));
+        Message next = message(chatId, "Next", Instant.parse("2024-01-01T10:06:00Z"));
+
+        when(messageRepository.findById(anchor.getId())).thenReturn(Optional.of(anchor));
+        when(messageRepository.findPageAfter(chatId, anchor.getCreatedAt(), anchor.getId(), Limit.of(10)))
+                .thenReturn(List.of(next));
+
+        // when
+        List<Message> result = subject.getChatHistory(chatId, null, anchor.getId(), 10);
+
+        // then
+        assertThat(result).containsExactly(next);
+    }
+
+    @Test
+    @DisplayName("Should look a version 7 anchor up only within the time range its id was generated in")
+    void shouldLookUpVersion7AnchorWithinTimeRange() {
+        // given
+        String chatId = "chat-xyz";
+        Instant generatedAt = Instant.parse("2024-01-01T10:05:00.123Z");
+        UUID id = new TimeOrderedUuidGenerator(Clock.fixed(generatedAt, ZoneOffset.UTC)).next();
+        Message anchor = Message.builder().id(id).chatId(chatId).sender("Alice").content("Anchor")
+                .createdAt(generatedAt.minusMillis(5)).build();
+
+        when(messageRepository.findByIdAndCreatedAtBetween(id,
+                generatedAt.minus(MessageService.ANCHOR_WRITTEN_WITHIN),
+                generatedAt.plus(MessageService.ANCHOR_CLOCK_SKEW)))
+                .thenReturn(Optional.of(anchor));
+        when(messageRepository.findPageBefore(chatId, anchor.getCreatedAt(), id, Limit.of(10)))
+                .thenReturn(List.of());
+
+        // when
+        subject.getChatHistory(chatId, id, null, 10);
+
+        // then
+        verify(messageRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to a lookup by id alone when a version 7 anchor is outside its time range")
+    void shouldFallBackWhenVersion7AnchorOutsideTimeRange() {
+        // given
+        String chatId = "chat-xyz";
+        Instant generatedAt = Instant.parse("2024-01-01T10:05:00Z");
+        UUID id = new TimeOrderedUuidGenerator(Clock.fixed(generatedAt, ZoneOffset.UTC)).next();
+        Message anchor = Message.builder().id(id).chatId(chatId).sender("Alice").content("Imported")
+                .createdAt(Instant.parse("2020-01-01T00:00:00Z")).build();
 
-        when(messageRepository.findAllByChatIdOrderByCreatedAtAsc(chatId)).thenReturn(expectedHistory);
+        when(messageRepository.findByIdAndCreatedAtBetween(any(), any(), any())).thenReturn(Optional.empty());
+        when(messageRepository.findById(id)).thenReturn(Optional.of(anchor));
+        when(messageRepository.findPageAfter(chatId, anchor.getCreatedAt(), id, Limit.of(10)))
+                .thenReturn(List.of());
 
         // when
-        List<Message> result = subject.getChatHistory(chatId);
+        List<Message> result = subject.getChatHistory(chatId, null, id, 10);
 
         // then
-        assertThat(result).hasSize(2).containsExactlyElementsOf(expectedHistory);
-        verify(messageRepository).findAllByChatIdOrderByCreatedAtAsc(chatId);
+        assertThat(result).isEmpty();
+        verify(messageRepository).findById(id);
+    }
+
+    @Test
+    @DisplayName("Should clamp page size to the allowed range")
+    void shouldClampPageSize() {
+        // given
+        when(messageRepository.findByChatIdOrderByCreatedAtDescIdDesc("chat-1", Limit.of(MessageService.MAX_PAGE_SIZE)))
+                .thenReturn(List.of());
+
+        // when
+        subject.getChatHistory("chat-1", null, null, 100_000);
+
+        // then
+        verify(messageRepository).findByChatIdOrderByCreatedAtDescIdDesc("chat-1", Limit.of(MessageService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    @DisplayName("Should reject cursors pointing at a message from another chat")
+    void shouldRejectCursorFromAnotherChat() {
+        // given
+        Message foreign = message("other-chat", "Foreign", Instant.now());
+        when(messageRepository.findById(foreign.getId())).thenReturn(Optional.of(foreign));
+
+        // when + then
+        assertThatThrownBy(() -> subject.getChatHistory("chat-1", foreign.getId(), null, 10))
+                .isInstanceOf(InvalidHistoryCursorException.class)
+                .hasMessageContaining("does not belong to chat chat-1");
+    }
+
+    @Test
+    @DisplayName("Should reject using 'before' and 'after' together")
+    void shouldRejectBothCursors() {
+        // when + then
+        assertThatThrownBy(() -> subject.getChatHistory("chat-1", UUID.randomUUID(), UUID.randomUUID(), 10))
+                .isInstanceOf(InvalidHistoryCursorException.class);
+
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("Should stream full history to the sink in order")
+    void shouldStreamHistory() {
+        // given
+        MessageResponse first = new MessageResponse(UUID.randomUUID(), "chat-1", "Alice", "One", Instant.now());
+        MessageResponse second = new MessageResponse(UUID.randomUUID(), "chat-1", "Bob", "Two", Instant.now());
+
+        when(messageRepository.streamHistory("chat-1")).thenReturn(Stream.of(first, second));
+
+        List<MessageResponse> received = new ArrayList<>();
+
+        // when
+        subject.streamChatHistory("chat-1", null, received::add);
+
+        // then
+        assertThat(received).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("Should stream history after the given message")
+    void shouldStreamHistoryAfterCursor() {
+        // given
+        Message anchor = message("chat-1", "Anchor", Instant.parse("2024-01-01T10:05:00Z"));
+        MessageResponse next = new MessageResponse(UUID.randomUUID(), "chat-1", "Bob", "Next", Instant.now());
+
+        when(messageRepository.streamHistoryAfter("chat-1", anchor.getCreatedAt(), anchor.getId()))
+                .thenReturn(Stream.of(next));
+
+        List<MessageResponse> received = new ArrayList<>();
+
+        // when
+        subject.streamChatHistory("chat-1", anchor, received::add);
+
+        // then
+        assertThat(received).containsExactly(next);
+    }
+
+    private Message message(String chatId, String content, Instant createdAt) {
+        return Message.builder()
+                .id(UUID.randomUUID())
+                .chatId(chatId)
+                .sender("Alice")
+                .content(content)
+                .createdAt(createdAt)
+                .build();
     }
-}
\ No newline at end of file
+}
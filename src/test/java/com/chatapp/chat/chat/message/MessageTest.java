@@ -89,4 +89,21 @@ class MessageTest {
         assertThat(msg.getContent()).isEqualTo("test");
         assertThat(msg.getCreatedAt()).isEqualTo(createdAt);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("@PrePersist should set createdAt only when it is missing")
+    void shouldSetCreatedAtOnlyWhenMissing() {
+        // given
+        Instant receivedAt = Instant.parse("2024-01-01T10:00:00Z");
+        Message received = Message.builder().createdAt(receivedAt).build();
+        Message fresh = new Message();
+
+        // when
+        received.onCreate();
+        fresh.onCreate();
+
+        // then
+        assertThat(received.getCreatedAt()).isEqualTo(receivedAt);
+        assertThat(fresh.getCreatedAt()).isNotNull();
+    }
+}
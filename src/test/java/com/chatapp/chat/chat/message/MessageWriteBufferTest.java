@@ -0,0 +1,243 @@
+package com.chatapp.chat.chat.message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBufferTest {
+
+    @Mock
+    MessageService messageService;
+
+    MessageWriteBuffer subject;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (subject != null) {
+            subject.stop();
+        }
+    }
+
+    private Message message(String content) {
+        return Message.builder()
+                .chatId("room-1")
+                .sender("alice")
+                .content(content)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should flush a full batch as soon as batch size is reached")
+    void shouldFlushWhenBatchIsFull() {
+        // given
+        subject = new MessageWriteBuffer(messageService, 100, 3, 10_000, 100);
+        subject.start();
+
+        // when
+        subject.submit(message("1"));
+        subject.submit(message("2"));
+        subject.submit(message("3"));
+
+        // then
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.captor();
+        verify(messageService, timeout(2_000)).saveAll(captor.capture());
+
+        assertThat(captor.getValue())
+                .extracting(Message::getContent)
+                .containsExactly("1", "2", "3");
+        verify(messageService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should flush a partial batch once the flush interval elapses")
+    void shouldFlushPartialBatchAfterInterval() {
+        // given
+        subject = new MessageWriteBuffer(messageService, 100, 50, 20, 100);
+        subject.start();
+
+        // when
+        subject.submit(message("only"));
+
+        // then
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.captor();
+        verify(messageService, timeout(2_000)).saveAll(captor.capture());
+
+        assertThat(captor.getValue())
+                .extracting(Message::getContent)
+                .containsExactly("only");
+    }
+
+    @Test
+    @DisplayName("Should persist synchronously when the buffer is not running")
+    void shouldSaveSynchronouslyWhenStopped() {
+        // given
+        subject = new MessageWriteBuffer(messageService, 100, 10, 20, 100);
+        Message message = message("direct");
+
+        // when
+        subject.submit(message);
+
+        // then
+        verify(messageService).save(message);
+        verify(messageService, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should apply backpressure by persisting synchronously when the queue is full")
+    void shouldSaveSynchronouslyWhenQueueFull() throws Exception {
+        // given
+        CountDownLatch flushBlocked = new CountDownLatch(1);
+        when(messageService.saveAll(anyList())).thenAnswer(invocation -> {
+            flushBlocked.await();
+            return invocation.getArgument(0);
+        });
+
+        subject = new MessageWriteBuffer(messageService, 1, 1, 10_000, 1);
+        subject.start();
+
+        subject.submit(message("in-flight"));
+        verify(messageService, timeout(2_000)).saveAll(anyList());
+        subject.submit(message("queued"));
+
+        // when
+        Message overflow = message("overflow");
+        subject.submit(overflow);
+
+        // then
+        verify(messageService).save(overflow);
+        flushBlocked.countDown();
+    }
+
+    @Test
+    @DisplayName("Should drain every pending message on stop")
+    void shouldDrainPendingMessagesOnStop() throws InterruptedException {
+        // given
+        List<String> persisted = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            batch.forEach(m -> persisted.add(m.getContent()));
+            return batch;
+        }).when(messageService).saveAll(anyList());
+
+        subject = new MessageWriteBuffer(messageService, 100, 500, 10_000, 100);
+        subject.start();
+
+        for (int i = 0; i < 10; i++) {
+            subject.submit(message("m" + i));
+        }
+
+        // when
+        subject.stop();
+
+        // then
+        assertThat(persisted).hasSize(10);
+        assertThat(subject.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should persist every message submitted while the buffer stops")
+    void shouldNotLoseMessagesSubmittedDuringStop() throws Exception {
+        // given
+        Set<Message> persisted = ConcurrentHashMap.newKeySet();
+        lenient().doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            persisted.addAll(batch);
+            return batch;
+        }).when(messageService).saveAll(anyList());
+        lenient().doAnswer(invocation -> {
+            persisted.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(messageService).save(any(Message.class));
+
+        subject = new MessageWriteBuffer(messageService, 10_000, 50, 10, 100);
+        subject.start();
+        List<Message> submitted = new ArrayList<>();
+        for (int i = 0; i < 4_000; i++) {
+            submitted.add(message("m" + i));
+        }
+
+        // when
+        CountDownLatch producing = new CountDownLatch(4);
+        try (ExecutorService producers = Executors.newFixedThreadPool(4)) {
+            for (int p = 0; p < 4; p++) {
+                List<Message> share = submitted.subList(p * 1_000, (p + 1) * 1_000);
+                producers.execute(() -> {
+                    producing.countDown();
+                    share.forEach(subject::submit);
+                });
+            }
+            producing.await();
+            subject.stop();
+        }
+
+        // then
+        assertThat(persisted).hasSize(4_000);
+        assertThat(subject.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry messages one by one when a batch insert fails")
+    void shouldRetryIndividuallyWhenBatchFails() throws InterruptedException {
+        // given
+        when(messageService.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        subject = new MessageWriteBuffer(messageService, 100, 2, 10_000, 100);
+        subject.start();
+
+        Message first = message("1");
+        Message second = message("2");
+
+        // when
+        subject.submit(first);
+        subject.submit(second);
+
+        // then
+        verify(messageService, timeout(2_000)).save(first);
+        verify(messageService, timeout(2_000)).save(second);
+    }
+
+    @Test
+    @DisplayName("Should time batch and retried inserts and count messages that could not be persisted")
+    void shouldPublishPersistMetrics() throws InterruptedException {
+        // given
+        when(messageService.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+        when(messageService.save(any())).thenThrow(new IllegalStateException("db down"));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject = new MessageWriteBuffer(messageService, 100, 2, 10_000, 100);
+        subject.bindTo(registry);
+        subject.start();
+
+        // when
+        subject.submit(message("1"));
+        subject.submit(message("2"));
+        verify(messageService, timeout(2_000).times(2)).save(any());
+        subject.stop();
+
+        // then
+        assertThat(registry.get("chat.messages.persist").tag("mode", "batch").timer().count()).isEqualTo(1);
+        assertThat(registry.get("chat.messages.persist").tag("mode", "direct").timer().count()).isEqualTo(2);
+        assertThat(registry.get("chat.messages.persist.batch.size").summary().totalAmount()).isEqualTo(2.0);
+        assertThat(registry.get("chat.messages.persist.failures").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("chat.messages.write.pending").gauge().value()).isZero();
+    }
+}
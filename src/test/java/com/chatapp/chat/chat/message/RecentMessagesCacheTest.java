@@ -0,0 +1,233 @@
+package com.chatapp.chat.chat.message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessagesCacheTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-18T12:00:00Z");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static Message message(String chatId, int second) {
+        return Message.builder()
+                .id(UUID.randomUUID())
+                .chatId(chatId)
+                .sender("alice")
+                .content("message " + second)
+                .createdAt(T0.plusSeconds(second))
+                .build();
+    }
+
+    private static List<MessageResponse> responses(List<Message> messages) {
+        return messages.stream().map(MessageResponse::fromEntity).toList();
+    }
+
+    private Supplier<List<MessageResponse>> loader(List<MessageResponse> page) {
+        return () -> {
+            loads.incrementAndGet();
+            return page;
+        };
+    }
+
+    private static List<String> contents(List<MessageResponse> page) {
+        return page.stream().map(MessageResponse::content).toList();
+    }
+
+    @Test
+    @DisplayName("Should load a room once and then serve its latest page from memory")
+    void shouldServeSecondLoadFromMemory() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        List<MessageResponse> page = responses(IntStream.range(0, 50).mapToObj(i -> message("room-1", i)).toList());
+
+        // when
+        List<MessageResponse> first = subject.latest("room-1", 50, loader(page));
+        List<MessageResponse> second = subject.latest("room-1", 50, loader(List.of()));
+
+        // then
+        assertThat(first).isEqualTo(page);
+        assertThat(second).isEqualTo(page);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should append inserted messages to cached rooms")
+    void shouldAppendToCachedRooms() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        subject.latest("room-1", 2, loader(responses(List.of(message("room-1", 0)))));
+
+        // when
+        subject.addAll(List.of(message("room-1", 1), message("room-1", 2)));
+
+        // then
+        assertThat(contents(subject.latest("room-1", 2, loader(List.of()))))
+                .containsExactly("message 1", "message 2");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore inserted messages of rooms that are not cached")
+    void shouldIgnoreUncachedRooms() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        subject.addAll(List.of(message("room-1", 0)));
+
+        // when
+        subject.latest("room-1", 10, loader(List.of()));
+
+        // then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should serve a larger page from a room whose whole history is cached")
+    void shouldServeCompleteRoom() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        subject.latest("room-1", 10, loader(responses(List.of(message("room-1", 0), message("room-1", 1)))));
+
+        // when
+        List<MessageResponse> page = subject.latest("room-1", 50, loader(List.of()));
+
+        // then
+        assertThat(contents(page)).containsExactly("message 0", "message 1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest messages and reload when more are asked for")
+    void shouldKeepOnlyNewestMessages() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(3, 1_000_000, 60_000, null, false, null);
+        subject.latest("room-1", 3, loader(List.of()));
+        subject.addAll(IntStream.range(0, 5).mapToObj(i -> message("room-1", i)).toList());
+
+        // when
+        List<MessageResponse> latest = subject.latest("room-1", 3, loader(List.of()));
+
+        // then
+        assertThat(contents(latest)).containsExactly("message 2", "message 3", "message 4");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should always load pages larger than the room capacity")
+    void shouldLoadPagesLargerThanCapacity() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(10, 1_000_000, 60_000, null, false, null);
+
+        // when
+        subject.latest("room-1", 20, loader(List.of()));
+        subject.latest("room-1", 20, loader(List.of()));
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should order messages that are inserted out of order and skip duplicates")
+    void shouldOrderAndDeduplicate() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(10, 1_000_000, 60_000, null, false, null);
+        Message first = message("room-1", 1);
+        subject.latest("room-1", 10, loader(responses(List.of(first))));
+
+        // when
+        subject.addAll(List.of(message("room-1", 3), message("room-1", 2), first));
+
+        // then
+        assertThat(contents(subject.latest("room-1", 10, loader(List.of()))))
+                .containsExactly("message 1", "message 2", "message 3");
+    }
+
+    @Test
+    @DisplayName("Should not cache a page when a message of the room was inserted while it was loading")
+    void shouldNotCachePageRacingWithInsert() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        List<MessageResponse> stale = new ArrayList<>();
+
+        // when
+        subject.latest("room-1", 10, () -> {
+            loads.incrementAndGet();
+            subject.addAll(List.of(message("room-1", 0)));
+            return stale;
+        });
+        subject.latest("room-1", 10, loader(List.of()));
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should count lookups served from memory and from the loader")
+    void shouldCountHitsAndMisses() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, null, false, null);
+        subject.bindTo(registry);
+
+        // when
+        subject.latest("room-1", 10, loader(List.of()));
+        subject.latest("room-1", 10, loader(List.of()));
+        subject.latest("room-1", 10, loader(List.of()));
+
+        // then
+        assertThat(registry.get("cache.gets").tags("cache", RecentMessagesCache.CACHE_NAME, "result", "hit")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tags("cache", RecentMessagesCache.CACHE_NAME, "result", "miss")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", RecentMessagesCache.CACHE_NAME).gauge().value())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache by default with cluster fan-out or the broker relay")
+    void shouldBypassCacheWhenMultiInstance() {
+        // given
+        List<RecentMessagesCache> multiInstance = List.of(
+                new RecentMessagesCache(100, 1_000_000, 60_000, null, true, null),
+                new RecentMessagesCache(100, 1_000_000, 60_000, null, false, "relay"),
+                new RecentMessagesCache(100, 1_000_000, 60_000, false, false, null)
+        );
+        List<MessageResponse> page = responses(List.of(message("room-1", 0)));
+
+        // when
+        for (RecentMessagesCache subject : multiInstance) {
+            subject.latest("room-1", 50, loader(page));
+            subject.latest("room-1", 50, loader(page));
+        }
+
+        // then
+        assertThat(loads).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("Should cache with the broker relay when explicitly enabled")
+    void shouldCacheWhenEnabledExplicitly() {
+        // given
+        RecentMessagesCache subject = new RecentMessagesCache(100, 1_000_000, 60_000, true, false, "relay");
+        List<MessageResponse> page = responses(List.of(message("room-1", 0)));
+
+        // when
+        subject.latest("room-1", 50, loader(page));
+        List<MessageResponse> second = subject.latest("room-1", 50, loader(page));
+
+        // then
+        assertThat(second).isEqualTo(page);
+        assertThat(loads).hasValue(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.chatapp.chat.chat.message.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvalidHistoryCursorExceptionTest {
+
+    @Test
+    @DisplayName("Should store the provided message")
+    void shouldStoreProvidedMessage() {
+        // given
+        String message = "Message 42 does not belong to chat room-1";
+
+        // when
+        InvalidHistoryCursorException ex = new InvalidHistoryCursorException(message);
+
+        // then
+        assertThat(ex)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage(message);
+    }
+}
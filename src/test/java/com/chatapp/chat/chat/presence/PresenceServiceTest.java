@@ -0,0 +1,172 @@
+package com.chatapp.chat.chat.presence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PresenceServiceTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private PresenceService subject;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        subject = new PresenceService(messagingTemplate);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination, String user) {
+        Principal principal = user == null ? null : new UsernamePasswordAuthenticationToken(user, null, null);
+        subject.onSubscribe(new SessionSubscribeEvent(this,
+                frame(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination), principal));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        subject.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                frame(StompCommand.UNSUBSCRIBE, sessionId, subscriptionId, null)));
+    }
+
+    private void disconnect(String sessionId) {
+        subject.onDisconnect(new SessionDisconnectEvent(this,
+                frame(StompCommand.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL));
+    }
+
+    private PresenceDiff flushedDiff(String chatId) {
+        ArgumentCaptor<PresenceDiff> diff = ArgumentCaptor.forClass(PresenceDiff.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/presence." + chatId), diff.capture());
+        return diff.getValue();
+    }
+
+    @Test
+    @DisplayName("Should broadcast everybody who joined within one interval as a single diff")
+    void shouldCoalesceJoins() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1", "alice");
+        subscribe("s2", "sub-1", "/topic/chat.room-1", "bob");
+        subscribe("s3", "sub-1", "/topic/chat.room-1", "carol");
+
+        // when
+        subject.flush();
+
+        // then
+        PresenceDiff diff = flushedDiff("room-1");
+        assertThat(diff.chatId()).isEqualTo("room-1");
+        assertThat(diff.joined()).containsExactly("alice", "bob", "carol");
+        assertThat(diff.left()).isEmpty();
+        assertThat(subject.roster("room-1").members()).containsExactlyInAnyOrder("alice", "bob", "carol");
+    }
+
+    @Test
+    @DisplayName("Should leave a user who reconnected within one interval out of the diff")
+    void shouldCancelLeaveAndJoinWithinInterval() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1", "alice");
+        subscribe("s2", "sub-1", "/topic/chat.room-1", "bob");
+        subject.flush();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject.bindTo(registry);
+
+        // when
+        disconnect("s1");
+        subscribe("s3", "sub-1", "/topic/chat.room-1", "alice");
+        unsubscribe("s2", "sub-1");
+        subject.flush();
+
+        // then
+        ArgumentCaptor<PresenceDiff> diffs = ArgumentCaptor.forClass(PresenceDiff.class);
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), diffs.capture());
+        PresenceDiff diff = diffs.getAllValues().get(1);
+        assertThat(diff.joined()).isEmpty();
+        assertThat(diff.left()).containsExactly("bob");
+        assertThat(subject.roster("room-1").members()).containsExactly("alice");
+        assertThat(registry.get("chat.presence.coalesced").counter().count()).isEqualTo(1);
+        assertThat(registry.get("chat.presence.changes").tag("change", "left").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep a user in the room until their last session leaves it")
+    void shouldCountSessionsOfOneUserOnce() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1", "alice");
+        subscribe("s2", "sub-1", "/topic/chat.room-1", "alice");
+        subject.flush();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject.bindTo(registry);
+        double membersBefore = registry.get("chat.presence.members").gauge().value();
+
+        // when
+        disconnect("s1");
+        subject.flush();
+        boolean presentAfterFirstSession = subject.roster("room-1").members().contains("alice");
+        disconnect("s2");
+
+        // then
+        assertThat(membersBefore).isEqualTo(1);
+        assertThat(presentAfterFirstSession).isTrue();
+        assertThat(subject.roster("room-1").members()).isEmpty();
+        assertThat(registry.get("chat.presence.rooms").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should send nothing when no room changed")
+    void shouldNotBroadcastWithoutChanges() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1", "alice");
+        unsubscribe("s1", "sub-1");
+
+        // when
+        subject.flush();
+
+        // then
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Should ignore anonymous sessions and destinations other than rooms")
+    void shouldIgnoreAnonymousAndOtherDestinations() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1", null);
+        subscribe("s2", "sub-1", "/topic/presence.room-1", "alice");
+        subscribe("s3", "sub-1", "/queue/errors", "bob");
+
+        // when
+        subject.flush();
+
+        // then
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertThat(subject.roster("room-1").members()).isEmpty();
+    }
+}
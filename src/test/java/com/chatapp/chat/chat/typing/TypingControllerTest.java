@@ -0,0 +1,68 @@
+package com.chatapp.chat.chat.typing;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TypingControllerTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private TypingThrottle typingThrottle;
+    private TypingController subject;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        typingThrottle = mock(TypingThrottle.class);
+        subject = new TypingController(messagingTemplate, typingThrottle);
+    }
+
+    private static ChatMessage signal(String chatId, String sender) {
+        ChatMessage message = new ChatMessage();
+        message.setChatId(chatId);
+        message.setSender(sender);
+        message.setContent("draft text");
+        return message;
+    }
+
+    @Test
+    @DisplayName("typing() should broadcast a TYPING signal without content to the typing topic of the room")
+    void shouldBroadcastTypingSignal() {
+        // given
+        ChatMessage message = signal("room-1", "alice");
+        when(typingThrottle.tryAcquire("room-1", "alice")).thenReturn(true);
+
+        // when
+        subject.typing(message, null);
+
+        // then
+        assertThat(message.getType()).isEqualTo(ChatMessageType.TYPING);
+        assertThat(message.getContent()).isNull();
+        verify(messagingTemplate).convertAndSend("/topic/typing.room-1", message);
+    }
+
+    @Test
+    @DisplayName("typing() should drop a signal the throttle rejects, keyed by the authenticated user")
+    void shouldDropThrottledSignal() {
+        // given
+        ChatMessage message = signal("room-1", "somebody-else");
+        when(typingThrottle.tryAcquire("room-1", "alice")).thenReturn(false);
+
+        // when
+        subject.typing(message, new UsernamePasswordAuthenticationToken("alice", null, null));
+
+        // then
+        verify(typingThrottle).tryAcquire("room-1", "alice");
+        verifyNoInteractions(messagingTemplate);
+    }
+}
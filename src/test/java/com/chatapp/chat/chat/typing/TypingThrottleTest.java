@@ -0,0 +1,47 @@
+package com.chatapp.chat.chat.typing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypingThrottleTest {
+
+    @Test
+    @DisplayName("Should let one signal per sender and room through within an interval")
+    void shouldThrottlePerSenderAndRoom() {
+        // given
+        TypingThrottle subject = new TypingThrottle(60_000, 1_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject.bindTo(registry);
+
+        // when
+        boolean first = subject.tryAcquire("room-1", "alice");
+        boolean repeated = subject.tryAcquire("room-1", "alice");
+        boolean otherSender = subject.tryAcquire("room-1", "bob");
+        boolean otherRoom = subject.tryAcquire("room-2", "alice");
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(repeated).isFalse();
+        assertThat(otherSender).isTrue();
+        assertThat(otherRoom).isTrue();
+        assertThat(registry.get("chat.typing.signals").tag("result", "broadcast").counter().count()).isEqualTo(3);
+        assertThat(registry.get("chat.typing.signals").tag("result", "throttled").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should let the next signal through once the interval has passed")
+    void shouldReleaseAfterInterval() throws InterruptedException {
+        // given
+        TypingThrottle subject = new TypingThrottle(50, 1_000);
+        subject.tryAcquire("room-1", "alice");
+
+        // when
+        Thread.sleep(100);
+
+        // then
+        assertThat(subject.tryAcquire("room-1", "alice")).isTrue();
+    }
+}
@@ -0,0 +1,251 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import com.chatapp.chat.security.JwtUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances of the application sharing one Testcontainers Postgres. A client on node A sends to a room, a
+ * subscriber on node A receives the local broadcast and a subscriber on node B the one fanned out over
+ * {@code LISTEN/NOTIFY}; the difference between both latencies is what the fan-out adds.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Cluster fan-out across two instances")
+class ClusterFanoutIntegrationTests {
+
+    private static final String ROOM = "cluster-room";
+    private static final int MESSAGES = 200;
+    private static final char TIMESTAMP_SEPARATOR = '@';
+
+    /**
+     * The application without the mocked configurations that other tests keep under {@code com.chatapp.chat}.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackages = "com.chatapp.chat")
+    @ComponentScan(
+            basePackages = "com.chatapp.chat",
+            excludeFilters = @ComponentScan.Filter(
+                    type = FilterType.REGEX,
+                    pattern = {
+                            ".*\\._testconfig\\..*",
+                            ".*\\.Mocked.*Config",
+                            ".*\\.ChatApplication",
+                            ".*\\.loadtest\\..*",
+                            ".*\\.ClusterFanoutIntegrationTests.*"
+                    }
+            )
+    )
+    static class NodeApplication {
+    }
+
+    @SuppressWarnings("resource")
+    @Container
+    static PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>("postgres:16")
+                    .withDatabaseName("testdb")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    static ConfigurableApplicationContext nodeA;
+    static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        // one after the other, so only the first runs the Flyway migrations
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(NodeApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.jwt.secret=cluster-test-secret-cluster-test-secret-cluster",
+                        "app.jwt.expiration-ms=3600000",
+                        "app.cluster.fanout.enabled=true",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+
+    private static String url(ConfigurableApplicationContext node) {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        return "ws://localhost:" + port + "/ws";
+    }
+
+    private static StompSession connect(WebSocketStompClient client, ConfigurableApplicationContext node, String user)
+            throws Exception {
+        String token = "Bearer " + node.getBean(JwtUtils.class)
+                .generateToken(user, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        WebSocketHttpHeaders handshake = new WebSocketHttpHeaders();
+        handshake.add("Authorization", token);
+        StompHeaders connect = new StompHeaders();
+        connect.add("Authorization", token);
+        return client.connectAsync(url(node), handshake, connect, new StompSessionHandlerAdapter() { })
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private static void subscribe(StompSession session, BlockingQueue<Received> received) {
+        session.subscribe("/topic/chat." + ROOM, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(new Received((ChatMessage) payload, System.nanoTime()));
+            }
+        });
+    }
+
+    private static void awaitListening(ConfigurableApplicationContext node) throws InterruptedException {
+        MeterRegistry registry = node.getBean(MeterRegistry.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("cluster.fanout.rooms").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(registry.get("cluster.fanout.rooms").gauge().value()).as("rooms listened to").isEqualTo(1);
+    }
+
+    private static List<Received> take(BlockingQueue<Received> queue, int count) throws InterruptedException {
+        List<Received> received = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Received next = queue.poll(15, TimeUnit.SECONDS);
+            assertThat(next).as("message %d of %d", i + 1, count).isNotNull();
+            received.add(next);
+        }
+        return received;
+    }
+
+    private static Histogram latencies(List<Received> received) {
+        Histogram histogram = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        for (Received message : received) {
+            String content = message.message().getContent();
+            long sentAt = Long.parseLong(content.substring(content.indexOf(TIMESTAMP_SEPARATOR) + 1));
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(message.receivedAt() - sentAt));
+        }
+        return histogram;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    @Test
+    @DisplayName("Should deliver messages sent on one node to subscribers on the other, in order")
+    void shouldDeliverAcrossNodes() throws Exception {
+        // given
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(64 * 1024);
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient(container));
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+
+        BlockingQueue<Received> local = new LinkedBlockingQueue<>();
+        BlockingQueue<Received> remote = new LinkedBlockingQueue<>();
+        StompSession sender = connect(client, nodeA, "alice");
+        subscribe(sender, local);
+        subscribe(connect(client, nodeB, "bob"), remote);
+        awaitListening(nodeB);
+
+        List<String> sent = new ArrayList<>();
+
+        // when
+        for (int n = 0; n < MESSAGES; n++) {
+            ChatMessage message = new ChatMessage();
+            message.setChatId(ROOM);
+            message.setSender("alice");
+            message.setType(ChatMessageType.CHAT);
+            message.setContent(n + String.valueOf(TIMESTAMP_SEPARATOR) + System.nanoTime());
+            sender.send("/app/chat.sendMessage", message);
+            sent.add(message.getContent());
+            Thread.sleep(5);
+        }
+        ChatMessage large = new ChatMessage();
+        large.setChatId(ROOM);
+        large.setSender("alice");
+        large.setType(ChatMessageType.CHAT);
+        large.setContent("x".repeat(20_000) + TIMESTAMP_SEPARATOR + System.nanoTime());
+        sender.send("/app/chat.sendMessage", large);
+        sent.add(large.getContent());
+
+        // then
+        List<Received> localReceived = take(local, sent.size());
+        List<Received> remoteReceived = take(remote, sent.size());
+
+        assertThat(remoteReceived).extracting(received -> received.message().getContent())
+                .containsExactlyElementsOf(sent);
+        assertThat(remoteReceived).extracting(received -> received.message().getSender()).containsOnly("alice");
+
+        Histogram localLatency = latencies(localReceived);
+        Histogram remoteLatency = latencies(remoteReceived);
+        System.out.printf("cluster fan-out latency ms  local p50 %.2f p99 %.2f | remote p50 %.2f p99 %.2f"
+                        + " | added p50 %.2f p99 %.2f%n",
+                millis(localLatency, 50), millis(localLatency, 99),
+                millis(remoteLatency, 50), millis(remoteLatency, 99),
+                millis(remoteLatency, 50) - millis(localLatency, 50),
+                millis(remoteLatency, 99) - millis(localLatency, 99));
+
+        MeterRegistry registryB = nodeB.getBean(MeterRegistry.class);
+        assertThat(registryB.get("cluster.fanout.received").tag("result", "delivered").counter().count())
+                .isEqualTo(sent.size());
+        assertThat(nodeA.getBean(MeterRegistry.class)
+                .get("cluster.fanout.published").tag("payload", "reference").counter().count())
+                .isEqualTo(1);
+        assertThat(millis(remoteLatency, 99)).as("remote p99 latency in ms").isLessThan(2_000);
+    }
+
+    private record Received(ChatMessage message, long receivedAt) {
+    }
+}
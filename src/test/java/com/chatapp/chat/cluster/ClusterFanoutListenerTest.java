@@ -0,0 +1,148 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.PGNotification;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClusterFanoutListenerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final RoomSubscriptions subscriptions = new RoomSubscriptions();
+    private final MessageService messageService = mock(MessageService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ClusterFanoutListener subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new ClusterFanoutListener(
+                mock(DataSource.class),
+                subscriptions,
+                new RoomChannels("chat:"),
+                objectMapper,
+                messageService,
+                messagingTemplate,
+                "node-b",
+                new ClusterFanoutProperties(true, "chat:", 7900, 250, 5000)
+        );
+        subject.bindTo(registry);
+        subscriptions.subscribe("s1", "sub-1", "room-1");
+    }
+
+    private PGNotification notification(RoomNotification payload) throws Exception {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn("chat:" + payload.chatId());
+        when(notification.getParameter()).thenReturn(objectMapper.writeValueAsString(payload));
+        return notification;
+    }
+
+    private static RoomNotification fromNode(String node, String chatId, String content) {
+        return new RoomNotification(node, UUID.randomUUID(), chatId, "alice", content, Instant.now());
+    }
+
+    private double received(String result) {
+        return registry.get("cluster.fanout.received").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should broadcast a message of another node to the local subscribers of its room")
+    void shouldBroadcastInlineMessage() throws Exception {
+        // given
+        RoomNotification payload = fromNode("node-a", "room-1", "hello");
+
+        // when
+        subject.receive(notification(payload));
+
+        // then
+        ArgumentCaptor<ChatMessage> broadcast = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/chat.room-1"), broadcast.capture());
+        assertThat(broadcast.getValue().getContent()).isEqualTo("hello");
+        assertThat(broadcast.getValue().getSender()).isEqualTo("alice");
+        assertThat(broadcast.getValue().getType()).isEqualTo(ChatMessageType.CHAT);
+        assertThat(received("delivered")).isEqualTo(1);
+        assertThat(registry.get("cluster.fanout.delay").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should load a referenced message before broadcasting it")
+    void shouldLoadReferencedMessage() throws Exception {
+        // given
+        RoomNotification payload = fromNode("node-a", "room-1", "x".repeat(10_000)).reference();
+        Message stored = Message.builder()
+                .id(payload.id())
+                .chatId("room-1")
+                .sender("alice")
+                .content("x".repeat(10_000))
+                .createdAt(payload.createdAt())
+                .build();
+        when(messageService.findById(payload.id())).thenReturn(Optional.of(stored));
+
+        // when
+        subject.receive(notification(payload));
+
+        // then
+        ArgumentCaptor<ChatMessage> broadcast = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/chat.room-1"), broadcast.capture());
+        assertThat(broadcast.getValue().getContent()).isEqualTo(stored.getContent());
+    }
+
+    @Test
+    @DisplayName("Should skip its own notifications, rooms without local subscribers and missing messages")
+    void shouldSkipUndeliverable() throws Exception {
+        // given
+        RoomNotification missing = fromNode("node-a", "room-1", null);
+        when(messageService.findById(missing.id())).thenReturn(Optional.empty());
+
+        // when
+        subject.receive(notification(fromNode("node-b", "room-1", "own")));
+        subject.receive(notification(fromNode("node-a", "room-2", "nobody here")));
+        subject.receive(notification(missing));
+
+        // then
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertThat(received("own")).isEqualTo(1);
+        assertThat(received("unsubscribed")).isEqualTo(1);
+        assertThat(received("missing")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore malformed notifications")
+    void shouldIgnoreMalformedPayload() {
+        // given
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn("chat:room-1");
+        when(notification.getParameter()).thenReturn("not json");
+
+        // when
+        subject.receive(notification);
+
+        // then
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertThat(received("invalid")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,138 @@
+package com.chatapp.chat.cluster;
+
+import com.chatapp.chat.chat.message.Message;
+import com.chatapp.chat.chat.message.MessagesPersistedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ClusterFanoutPublisherTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ClusterFanoutPublisher subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new ClusterFanoutPublisher(jdbcTemplate, objectMapper, new RoomChannels("chat:"), "node-a", 300);
+        subject.bindTo(registry);
+    }
+
+    private static Message message(String chatId, String content) {
+        return Message.builder()
+                .id(UUID.randomUUID())
+                .chatId(chatId)
+                .sender("alice")
+                .content(content)
+                .createdAt(Instant.parse("2026-01-01T10:00:00Z"))
+                .build();
+    }
+
+    /**
+     * Runs the statement setter captured from the template and returns the two text arrays it bound.
+     */
+    private List<Object[]> boundArrays() throws Exception {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).query(eq(ClusterFanoutPublisher.NOTIFY_SQL), setter.capture(), any(RowCallbackHandler.class));
+
+        List<Object[]> arrays = new ArrayList<>();
+        Connection connection = mock(Connection.class);
+        when(connection.createArrayOf(eq("text"), any())).thenAnswer(invocation -> {
+            arrays.add(invocation.getArgument(1));
+            return mock(Array.class);
+        });
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.getConnection()).thenReturn(connection);
+
+        setter.getValue().setValues(statement);
+        return arrays;
+    }
+
+    @Test
+    @DisplayName("Should notify the channel of each room in one statement with the message inlined")
+    void shouldNotifyInline() throws Exception {
+        // given
+        Message first = message("room-1", "hello");
+        Message second = message("room-2", "hi");
+
+        // when
+        subject.onPersisted(new MessagesPersistedEvent(List.of(first, second)));
+
+        // then
+        List<Object[]> arrays = boundArrays();
+        assertThat(arrays.get(0)).containsExactly("chat:room-1", "chat:room-2");
+
+        RoomNotification notification = objectMapper.readValue((String) arrays.get(1)[0], RoomNotification.class);
+        assertThat(notification).isEqualTo(RoomNotification.of("node-a", first));
+        assertThat(registry.get("cluster.fanout.published").tag("payload", "inline").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should only reference messages whose notification would exceed the inline limit")
+    void shouldReferenceLargeMessages() throws Exception {
+        // given
+        Message large = message("room-1", "x".repeat(500));
+
+        // when
+        subject.onPersisted(new MessagesPersistedEvent(List.of(large)));
+
+        // then
+        RoomNotification notification = objectMapper.readValue((String) boundArrays().get(1)[0], RoomNotification.class);
+        assertThat(notification.inline()).isFalse();
+        assertThat(notification.id()).isEqualTo(large.getId());
+        assertThat(notification.chatId()).isEqualTo("room-1");
+        assertThat(registry.get("cluster.fanout.published").tag("payload", "reference").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a failed notification without failing the write")
+    void shouldSwallowFailures() {
+        // given
+        doThrow(new DataAccessResourceFailureException("connection lost")).when(jdbcTemplate)
+                .query(eq(ClusterFanoutPublisher.NOTIFY_SQL), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        // when
+        subject.onPersisted(new MessagesPersistedEvent(List.of(message("room-1", "hello"))));
+
+        // then
+        assertThat(registry.get("cluster.fanout.publish.failures").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cluster.fanout.published").tag("payload", "inline").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not touch the database for an empty batch")
+    void shouldSkipEmptyBatch() {
+        // when
+        subject.onPersisted(new MessagesPersistedEvent(List.of()));
+
+        // then
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,58 @@
+package com.chatapp.chat.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomChannelsTest {
+
+    private final RoomChannels subject = new RoomChannels("chat:");
+
+    @Test
+    @DisplayName("Should name the channel after the chat id when it fits")
+    void shouldUseChatId() {
+        // when
+        String channel = subject.channel("room-1");
+
+        // then
+        assertThat(channel).isEqualTo("chat:room-1");
+    }
+
+    @Test
+    @DisplayName("Should hash chat ids that do not fit into a channel name")
+    void shouldHashLongChatIds() {
+        // given
+        String longChatId = "room-" + "x".repeat(100);
+        String otherLongChatId = "room-" + "y".repeat(100);
+        String multiByteChatId = "pokój-" + "ż".repeat(30);
+
+        // when
+        String channel = subject.channel(longChatId);
+
+        // then
+        assertThat(channel).startsWith("chat:#").isEqualTo(subject.channel(longChatId));
+        assertThat(channel.getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(RoomChannels.MAX_CHANNEL_BYTES);
+        assertThat(subject.channel(otherLongChatId)).isNotEqualTo(channel);
+        assertThat(subject.channel(multiByteChatId).getBytes(StandardCharsets.UTF_8))
+                .hasSizeLessThanOrEqualTo(RoomChannels.MAX_CHANNEL_BYTES);
+    }
+
+    @Test
+    @DisplayName("Should quote channel names for LISTEN")
+    void shouldQuoteChannel() {
+        // when + then
+        assertThat(RoomChannels.quoted("chat:Room \"A\"")).isEqualTo("\"chat:Room \"\"A\"\"\"");
+    }
+
+    @Test
+    @DisplayName("Should reject prefixes that leave no room for a hashed chat id")
+    void shouldRejectLongPrefix() {
+        // when + then
+        assertThatThrownBy(() -> new RoomChannels("p".repeat(30)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
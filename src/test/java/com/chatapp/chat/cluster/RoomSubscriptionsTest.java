@@ -0,0 +1,88 @@
+package com.chatapp.chat.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomSubscriptionsTest {
+
+    private final RoomSubscriptions subject = new RoomSubscriptions();
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        subject.onSubscribe(new SessionSubscribeEvent(this,
+                frame(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination)));
+    }
+
+    @Test
+    @DisplayName("Should report a room as changed when it gains its first and loses its last subscriber")
+    void shouldTrackFirstAndLastSubscriber() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s2", "sub-1", "/topic/chat.room-1");
+        Set<String> afterSubscribe = subject.drainChanged();
+
+        // when
+        subject.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s1", "sub-1", null)));
+        Set<String> afterFirstUnsubscribe = subject.drainChanged();
+        boolean stillSubscribed = subject.hasSubscribers("room-1");
+        subject.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s2", "sub-1", null)));
+
+        // then
+        assertThat(afterSubscribe).containsExactly("room-1");
+        assertThat(afterFirstUnsubscribe).isEmpty();
+        assertThat(stillSubscribed).isTrue();
+        assertThat(subject.drainChanged()).containsExactly("room-1");
+        assertThat(subject.hasSubscribers("room-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should release all rooms of a disconnected session")
+    void shouldReleaseRoomsOnDisconnect() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s1", "sub-2", "/topic/chat.room-2");
+        subscribe("s2", "sub-1", "/topic/chat.room-2");
+        subject.drainChanged();
+
+        // when
+        subject.onDisconnect(new SessionDisconnectEvent(this,
+                frame(StompCommand.DISCONNECT, "s1", null, null), "s1", CloseStatus.NORMAL));
+
+        // then
+        assertThat(subject.rooms()).containsExactly("room-2");
+        assertThat(subject.drainChanged()).containsExactly("room-1");
+    }
+
+    @Test
+    @DisplayName("Should ignore subscriptions to destinations other than rooms")
+    void shouldIgnoreOtherDestinations() {
+        // when
+        subscribe("s1", "sub-1", "/queue/errors");
+        subscribe("s1", "sub-2", "/topic/other");
+
+        // then
+        assertThat(subject.rooms()).isEmpty();
+        assertThat(subject.drainChanged()).isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package com.chatapp.chat.common.exception;
 
+import com.chatapp.chat.chat.message.exception.InvalidHistoryCursorException;
 import com.chatapp.chat.user.exception.EmailAlreadyUsedException;
 import com.chatapp.chat.user.exception.UsernameAlreadyUsedException;
 import org.junit.jupiter.api.DisplayName;
@@ -59,6 +60,24 @@ class GlobalExceptionHandlerTest {
         assertThat(map).containsEntry("message", "Username already in use: johnny");
     }
 
+    @Test
+    @DisplayName("Should return 400 for InvalidHistoryCursorException")
+    void handleInvalidHistoryCursor() {
+        // given
+        InvalidHistoryCursorException ex = new InvalidHistoryCursorException("bad cursor");
+
+        // when
+        ResponseEntity<Object> response = handler.handleInvalidHistoryCursor(ex);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) response.getBody();
+
+        assertThat(map).containsEntry("message", "bad cursor");
+    }
+
     @Test
     @DisplayName("Should return 500 for general Exception")
     void handleGeneralException() {
@@ -0,0 +1,144 @@
+package com.chatapp.chat.common.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedUuidGeneratorTest {
+
+    private static final long NOW = Instant.parse("2026-10-18T12:00:00Z").toEpochMilli();
+
+    private static long timestampOf(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    private static int sequenceOf(UUID uuid) {
+        return (int) (uuid.getMostSignificantBits() & 0xFFF);
+    }
+
+    @Test
+    @DisplayName("Should generate version 7 UUIDs with the IETF variant and the current time")
+    void shouldGenerateVersion7() {
+        // given
+        TimeOrderedUuidGenerator subject = new TimeOrderedUuidGenerator(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+        // when
+        UUID uuid = subject.next();
+
+        // then
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(timestampOf(uuid)).isEqualTo(NOW);
+    }
+
+    @Test
+    @DisplayName("Should generate strictly increasing ids within one millisecond")
+    void shouldIncreaseWithinMillisecond() {
+        // given
+        TimeOrderedUuidGenerator subject = new TimeOrderedUuidGenerator(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+        // when
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(subject.next());
+        }
+
+        // then
+        assertThat(ids).isSorted();
+        assertThat(new HashSet<>(ids)).hasSize(ids.size());
+        assertThat(timestampOf(ids.getFirst())).isEqualTo(NOW);
+        assertThat(sequenceOf(ids.get(1))).isEqualTo(sequenceOf(ids.getFirst()) + 1);
+    }
+
+    @Test
+    @DisplayName("Should carry the timestamp forward when the clock steps back")
+    void shouldNotGoBackInTime() {
+        // given
+        AtomicLong millis = new AtomicLong(NOW);
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+        };
+        TimeOrderedUuidGenerator subject = new TimeOrderedUuidGenerator(clock);
+        UUID before = subject.next();
+
+        // when
+        millis.set(NOW - 1_000);
+        UUID after = subject.next();
+
+        // then
+        assertThat(after).isGreaterThan(before);
+        assertThat(timestampOf(after)).isEqualTo(NOW);
+    }
+
+    @Test
+    @DisplayName("Should hand out unique ids to concurrent callers")
+    void shouldBeUniqueAcrossThreads() throws InterruptedException {
+        // given
+        TimeOrderedUuidGenerator subject = new TimeOrderedUuidGenerator();
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    ids.add(subject.next());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        assertThat(ids).hasSize(20_000);
+    }
+
+    @Test
+    @DisplayName("Should read the creation time back from a generated id")
+    void shouldReadTimestamp() {
+        // given
+        TimeOrderedUuidGenerator subject = new TimeOrderedUuidGenerator(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+        // when
+        Instant timestamp = TimeOrderedUuidGenerator.timestampOf(subject.next());
+
+        // then
+        assertThat(timestamp).isEqualTo(Instant.ofEpochMilli(NOW));
+    }
+
+    @Test
+    @DisplayName("Should refuse to read a timestamp from a UUID that is not version 7")
+    void shouldRejectOtherVersions() {
+        // when + then
+        assertThatThrownBy(() -> TimeOrderedUuidGenerator.timestampOf(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.chatapp.chat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistenceConfigTest {
+
+    private final BeanPostProcessor rewriteBatchedInserts = PersistenceConfig.rewriteBatchedInsertsPostProcessor();
+
+    private static HikariDataSource dataSource(String jdbcUrl) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(jdbcUrl);
+        return dataSource;
+    }
+
+    @Test
+    @DisplayName("Should enable reWriteBatchedInserts on a PostgreSQL pool")
+    void shouldEnableRewriteForPostgres() {
+        // given
+        HikariDataSource dataSource = dataSource("jdbc:postgresql://localhost:5432/chatdb");
+
+        // when
+        rewriteBatchedInserts.postProcessAfterInitialization(dataSource, "dataSource");
+
+        // then
+        assertThat(dataSource.getDataSourceProperties()).containsEntry("reWriteBatchedInserts", "true");
+    }
+
+    @Test
+    @DisplayName("Should keep reWriteBatchedInserts configured in the JDBC URL or data source properties")
+    void shouldKeepExplicitRewriteSetting() {
+        // given
+        HikariDataSource inUrl = dataSource("jdbc:postgresql://localhost:5432/chatdb?reWriteBatchedInserts=false");
+        HikariDataSource inProperties = dataSource("jdbc:postgresql://localhost:5432/chatdb");
+        inProperties.addDataSourceProperty("reWriteBatchedInserts", "false");
+
+        // when
+        rewriteBatchedInserts.postProcessAfterInitialization(inUrl, "dataSource");
+        rewriteBatchedInserts.postProcessAfterInitialization(inProperties, "dataSource");
+
+        // then
+        assertThat(inUrl.getDataSourceProperties()).doesNotContainKey("reWriteBatchedInserts");
+        assertThat(inProperties.getDataSourceProperties()).containsEntry("reWriteBatchedInserts", "false");
+    }
+
+    @Test
+    @DisplayName("Should leave other databases untouched")
+    void shouldIgnoreOtherDatabases() {
+        // given
+        HikariDataSource dataSource = dataSource("jdbc:h2:mem:chat");
+
+        // when
+        rewriteBatchedInserts.postProcessAfterInitialization(dataSource, "dataSource");
+
+        // then
+        assertThat(dataSource.getDataSourceProperties()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should enable ordered inserts and JDBC batches of the write-behind batch size")
+    void shouldConfigureHibernateBatching() {
+        // given
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.order_inserts", false);
+
+        // when
+        new PersistenceConfig().jdbcBatchingCustomizer(150).customize(properties);
+
+        // then
+        assertThat(properties)
+                .containsEntry("hibernate.jdbc.batch_size", 150)
+                .containsEntry("hibernate.order_inserts", false);
+    }
+}
@@ -0,0 +1,52 @@
+package com.chatapp.chat.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Shape of one load run, read from {@code -Dload.*} system properties.
+ *
+ * @param connections          authenticated STOMP sessions to open
+ * @param rooms                number of {@code /topic/chat.{chatId}} rooms the sessions are spread over
+ * @param distribution         how sessions are spread over rooms
+ * @param zipfExponent         skew of the {@code ZIPF} distribution; higher puts more sessions in the first rooms
+ * @param publishers           sessions that also publish to their room
+ * @param messagesPerPublisher messages each publisher sends
+ * @param publishRate          messages per second of one publisher, {@code 0} for as fast as possible
+ * @param connectConcurrency   handshakes in flight at once while connecting
+ * @param timeout              how long to wait for all deliveries once publishing is done
+ */
+public record LoadProfile(
+        int connections,
+        int rooms,
+        RoomDistribution.Kind distribution,
+        double zipfExponent,
+        int publishers,
+        int messagesPerPublisher,
+        int publishRate,
+        int connectConcurrency,
+        Duration timeout
+) {
+
+    public LoadProfile {
+        if (connections < 1 || rooms < 1) {
+            throw new IllegalArgumentException("connections and rooms must be positive");
+        }
+        if (publishers < 0 || publishers > connections) {
+            throw new IllegalArgumentException("publishers must be between 0 and connections");
+        }
+    }
+
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("load.connections", 1_000),
+                Integer.getInteger("load.rooms", 20),
+                RoomDistribution.Kind.valueOf(System.getProperty("load.distribution", "ZIPF").toUpperCase()),
+                Double.parseDouble(System.getProperty("load.zipf-exponent", "1.0")),
+                Integer.getInteger("load.publishers", 100),
+                Integer.getInteger("load.messages-per-publisher", 50),
+                Integer.getInteger("load.publish-rate", 20),
+                Integer.getInteger("load.connect-concurrency", 100),
+                Duration.ofSeconds(Integer.getInteger("load.timeout-seconds", 120))
+        );
+    }
+}
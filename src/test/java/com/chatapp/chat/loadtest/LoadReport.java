@@ -0,0 +1,69 @@
+package com.chatapp.chat.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load run: publish and delivery throughput and the send-to-receive latency histogram
+ * (microseconds).
+ */
+public record LoadReport(
+        LoadProfile profile,
+        Duration connectTime,
+        Duration runTime,
+        long published,
+        long expectedDeliveries,
+        long delivered,
+        Histogram latency
+) {
+
+    public double publishedPerSecond() {
+        return perSecond(published);
+    }
+
+    public double deliveredPerSecond() {
+        return perSecond(delivered);
+    }
+
+    public boolean complete() {
+        return delivered == expectedDeliveries;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n=== STOMP load test ===%n");
+        out.printf("profile            %s%n", profile);
+        out.printf("connect            %d sessions in %d ms%n", profile.connections(), connectTime.toMillis());
+        out.printf("run                %d ms%n", runTime.toMillis());
+        out.printf("published          %d (%.0f msg/s)%n", published, publishedPerSecond());
+        out.printf("delivered          %d of %d (%.0f msg/s)%n", delivered, expectedDeliveries, deliveredPerSecond());
+        out.printf("latency ms         p50 %.2f | p90 %.2f | p99 %.2f | p99.9 %.2f | max %.2f%n",
+                percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                latency.getMaxValue() / 1_000.0);
+    }
+
+    /**
+     * Writes the full percentile distribution in HdrHistogram's {@code .hgrm} format, which plotting tools such as
+     * the HdrHistogram plotter read directly.
+     */
+    public void writeHistogram(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latency.outputPercentileDistribution(out, 1_000.0);
+        }
+    }
+
+    private double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    private double perSecond(long count) {
+        long nanos = runTime.toNanos();
+        return nanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatapp.chat.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Assigns sessions to rooms. {@code UNIFORM} fills rooms round robin; {@code ZIPF} draws rooms with probability
+ * proportional to {@code 1 / rank^exponent}, which gives a few large rooms and a long tail of small ones.
+ * Draws are seeded, so the same profile always produces the same rooms.
+ */
+public final class RoomDistribution {
+
+    public enum Kind {
+        UNIFORM,
+        ZIPF
+    }
+
+    private final Kind kind;
+    private final int rooms;
+    private final double[] cumulative;
+    private final Random random;
+
+    public RoomDistribution(Kind kind, int rooms, double exponent, long seed) {
+        this.kind = kind;
+        this.rooms = rooms;
+        this.random = new Random(seed);
+        this.cumulative = new double[rooms];
+
+        double total = 0;
+        for (int rank = 1; rank <= rooms; rank++) {
+            total += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < rooms; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    /**
+     * Room of the {@code session}-th session, between {@code 0} and {@code rooms - 1}.
+     */
+    public int roomOf(int session) {
+        if (kind == Kind.UNIFORM) {
+            return session % rooms;
+        }
+        double draw = random.nextDouble();
+        int index = Arrays.binarySearch(cumulative, draw);
+        return Math.min(index >= 0 ? index : -index - 1, rooms - 1);
+    }
+}
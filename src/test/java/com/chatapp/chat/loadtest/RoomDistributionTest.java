@@ -0,0 +1,56 @@
+package com.chatapp.chat.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomDistributionTest {
+
+    private static int[] sessionsPerRoom(RoomDistribution distribution, int rooms, int sessions) {
+        int[] counts = new int[rooms];
+        IntStream.range(0, sessions).forEach(i -> counts[distribution.roomOf(i)]++);
+        return counts;
+    }
+
+    @Test
+    @DisplayName("Should spread sessions evenly over rooms with the uniform distribution")
+    void shouldSpreadUniformly() {
+        // given
+        RoomDistribution subject = new RoomDistribution(RoomDistribution.Kind.UNIFORM, 4, 1.0, 42);
+
+        // when
+        int[] counts = sessionsPerRoom(subject, 4, 100);
+
+        // then
+        assertThat(counts).containsExactly(25, 25, 25, 25);
+    }
+
+    @Test
+    @DisplayName("Should put most sessions into the first rooms with the zipf distribution")
+    void shouldSkewWithZipf() {
+        // given
+        RoomDistribution subject = new RoomDistribution(RoomDistribution.Kind.ZIPF, 10, 1.0, 42);
+
+        // when
+        int[] counts = sessionsPerRoom(subject, 10, 10_000);
+
+        // then
+        assertThat(IntStream.of(counts).sum()).isEqualTo(10_000);
+        assertThat(counts[0]).isGreaterThan(counts[1]).isGreaterThan(counts[9] * 5);
+        assertThat(counts[0]).isBetween(3_000, 3_800);
+    }
+
+    @Test
+    @DisplayName("Should assign the same rooms for the same seed")
+    void shouldBeDeterministic() {
+        // given
+        RoomDistribution first = new RoomDistribution(RoomDistribution.Kind.ZIPF, 10, 1.2, 7);
+        RoomDistribution second = new RoomDistribution(RoomDistribution.Kind.ZIPF, 10, 1.2, 7);
+
+        // when + then
+        assertThat(sessionsPerRoom(first, 10, 1_000)).containsExactly(sessionsPerRoom(second, 10, 1_000));
+    }
+}
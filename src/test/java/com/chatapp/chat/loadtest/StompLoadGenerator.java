@@ -0,0 +1,209 @@
+package com.chatapp.chat.loadtest;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Drives {@code /ws} with many in-process STOMP sessions.
+ * <p>
+ * Every session connects with its own JWT, subscribes to the room picked by the profile's
+ * {@link RoomDistribution} and, if it is one of the publishers, sends {@code /app/chat.sendMessage} to that room.
+ * Each message carries its {@link System#nanoTime()} send time, so receivers in the same JVM record the
+ * send-to-receive latency of every delivery.
+ */
+public class StompLoadGenerator implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final char TIMESTAMP_SEPARATOR = '@';
+
+    private final String url;
+    private final IntFunction<String> tokens;
+    private final LoadProfile profile;
+    private final WebSocketStompClient client;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private final Recorder latency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final AtomicLong delivered = new AtomicLong();
+
+    /**
+     * @param url    WebSocket endpoint, e.g. {@code ws://localhost:8080/ws}
+     * @param tokens JWT for the {@code n}-th session
+     */
+    public StompLoadGenerator(String url, IntFunction<String> tokens, LoadProfile profile) {
+        this.url = url;
+        this.tokens = tokens;
+        this.profile = profile;
+
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("load-heartbeat-");
+        scheduler.initialize();
+
+        client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        client.setTaskScheduler(scheduler);
+        client.setInboundMessageSizeLimit(64 * 1024);
+    }
+
+    public LoadReport run() throws InterruptedException, TimeoutException {
+        RoomDistribution distribution = new RoomDistribution(
+                profile.distribution(), profile.rooms(), profile.zipfExponent(), 42
+        );
+        int[] roomOfSession = new int[profile.connections()];
+        long[] subscribersPerRoom = new long[profile.rooms()];
+        for (int i = 0; i < roomOfSession.length; i++) {
+            roomOfSession[i] = distribution.roomOf(i);
+            subscribersPerRoom[roomOfSession[i]]++;
+        }
+
+        long connectStart = System.nanoTime();
+        connectAll(roomOfSession);
+        Duration connectTime = Duration.ofNanos(System.nanoTime() - connectStart);
+
+        long expectedDeliveries = 0;
+        for (int i = 0; i < profile.publishers(); i++) {
+            expectedDeliveries += profile.messagesPerPublisher() * subscribersPerRoom[roomOfSession[i]];
+        }
+
+        latency.reset();
+        long runStart = System.nanoTime();
+        long published = publishAll(roomOfSession);
+        awaitDeliveries(expectedDeliveries);
+        Duration runTime = Duration.ofNanos(System.nanoTime() - runStart);
+
+        Histogram histogram = latency.getIntervalHistogram();
+        return new LoadReport(
+                profile, connectTime, runTime, published, expectedDeliveries, delivered.get(), histogram
+        );
+    }
+
+    private void connectAll(int[] roomOfSession) throws InterruptedException, TimeoutException {
+        Semaphore inFlight = new Semaphore(profile.connectConcurrency());
+        List<CompletableFuture<StompSession>> pending = new ArrayList<>(roomOfSession.length);
+
+        for (int i = 0; i < roomOfSession.length; i++) {
+            inFlight.acquire();
+            String token = "Bearer " + tokens.apply(i);
+            WebSocketHttpHeaders handshake = new WebSocketHttpHeaders();
+            handshake.add("Authorization", token);
+            StompHeaders connect = new StompHeaders();
+            connect.add("Authorization", token);
+
+            String destination = "/topic/chat." + chatId(roomOfSession[i]);
+            CompletableFuture<StompSession> session = client
+                    .connectAsync(url, handshake, connect, new StompSessionHandlerAdapter() { })
+                    .thenApply(connected -> {
+                        connected.subscribe(destination, new LatencyRecordingHandler());
+                        return connected;
+                    })
+                    .whenComplete((connected, error) -> inFlight.release());
+            pending.add(session);
+        }
+
+        for (CompletableFuture<StompSession> session : pending) {
+            try {
+                sessions.add(session.get(profile.timeout().toMillis(), TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("STOMP connection failed", e.getCause());
+            }
+        }
+        // SUBSCRIBE frames are sent without receipts; give the broker a moment to register them
+        Thread.sleep(Math.max(500, profile.connections() / 5));
+    }
+
+    private long publishAll(int[] roomOfSession) throws InterruptedException {
+        AtomicLong published = new AtomicLong();
+        long pauseNanos = profile.publishRate() > 0 ? TimeUnit.SECONDS.toNanos(1) / profile.publishRate() : 0;
+
+        try (ExecutorService publishers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < profile.publishers(); i++) {
+                StompSession session = sessions.get(i);
+                String chatId = chatId(roomOfSession[i]);
+                String sender = "load-user-" + i;
+                publishers.submit(() -> {
+                    for (int n = 0; n < profile.messagesPerPublisher(); n++) {
+                        ChatMessage message = new ChatMessage();
+                        message.setChatId(chatId);
+                        message.setSender(sender);
+                        message.setType(ChatMessageType.CHAT);
+                        message.setContent(n + String.valueOf(TIMESTAMP_SEPARATOR) + System.nanoTime());
+                        session.send("/app/chat.sendMessage", message);
+                        published.incrementAndGet();
+                        if (pauseNanos > 0) {
+                            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return published.get();
+    }
+
+    private void awaitDeliveries(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + profile.timeout().toNanos();
+        while (delivered.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static String chatId(int room) {
+        return "load-room-" + room;
+    }
+
+    @Override
+    public void close() {
+        for (StompSession session : sessions) {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        }
+        client.stop();
+        scheduler.shutdown();
+    }
+
+    private final class LatencyRecordingHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return ChatMessage.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long receivedAt = System.nanoTime();
+            String content = ((ChatMessage) payload).getContent();
+            int separator = content == null ? -1 : content.indexOf(TIMESTAMP_SEPARATOR);
+            if (separator < 0) {
+                return;
+            }
+            long sentAt = Long.parseLong(content, separator + 1, content.length(), 10);
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(receivedAt - sentAt), HIGHEST_TRACKABLE_MICROS));
+            delivered.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.chatapp.chat.loadtest;
+
+import com.chatapp.chat.security.JwtUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fan-out load test against the embedded application and a Testcontainers Postgres. Excluded from the default
+ * build; run it with the {@code load-test} profile and shape it with {@code -Dload.*} properties
+ * (see {@link LoadProfile}):
+ * <pre>
+ * ./mvnw test -Pload-test -Dload.connections=5000 -Dload.rooms=50 -Dload.distribution=zipf
+ * </pre>
+ * The summary is printed to stdout, the latency distribution is written to
+ * {@code target/load-test/latency.hgrm}.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(
+        classes = StompLoadTest.LoadTestApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "app.jwt.secret=load-test-secret-load-test-secret-load-test-secret",
+                "app.jwt.expiration-ms=3600000",
+                "server.tomcat.max-connections=20000",
+                "logging.level.root=WARN"
+        }
+)
+@DisplayName("STOMP fan-out load test")
+class StompLoadTest {
+
+    /**
+     * The application without the mocked configurations that other tests keep under {@code com.chatapp.chat}.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackages = "com.chatapp.chat")
+    @ComponentScan(
+            basePackages = "com.chatapp.chat",
+            excludeFilters = @ComponentScan.Filter(
+                    type = FilterType.REGEX,
+                    pattern = {".*\\._testconfig\\..*", ".*\\.Mocked.*Config", ".*\\.ChatApplication", ".*\\.loadtest\\..*"}
+            )
+    )
+    static class LoadTestApplication {
+    }
+
+    @SuppressWarnings("resource")
+    @Container
+    static PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>("postgres:16")
+                    .withDatabaseName("loadtest")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        // the generator is one client flooding the node on purpose
+        registry.add("app.websocket.rate-limit.enabled", () -> "false");
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JwtUtils jwtUtils;
+
+    @Test
+    @DisplayName("Should deliver every published message to every subscriber of its room")
+    void fanOutLoad() throws Exception {
+        // given
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        List<SimpleGrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+        // when
+        LoadReport report;
+        try (StompLoadGenerator generator = new StompLoadGenerator(
+                "ws://localhost:" + port + "/ws",
+                session -> jwtUtils.generateToken("load-user-" + session, roles),
+                profile
+        )) {
+            report = generator.run();
+        }
+
+        // then
+        report.print(System.out);
+        report.writeHistogram(Path.of("target", "load-test", "latency.hgrm"));
+        assertThat(report.complete())
+                .as("delivered %d of %d messages", report.delivered(), report.expectedDeliveries())
+                .isTrue();
+    }
+}
@@ -1,14 +1,17 @@
 package com.chatapp.chat.security;
 
 import com.chatapp.chat.user.User;
+import com.chatapp.chat.user.UserChangedEvent;
 import com.chatapp.chat.user.UserRepository;
 import com.chatapp.chat.user.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
@@ -16,6 +19,8 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,11 +29,23 @@ class CustomUserDetailsServiceTest {
     @Mock
     UserRepository userRepository;
 
+    SimpleMeterRegistry meterRegistry;
+
     CustomUserDetailsService subject;
 
     @BeforeEach
     void setUp() {
-        subject = new CustomUserDetailsService(userRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        subject = new CustomUserDetailsService(userRepository, meterRegistry, 100, 60_000);
+    }
+
+    private User alice() {
+        return User.builder()
+                .username("alice")
+                .password("encodedPass")
+                .role(UserRole.USER)
+                .enabled(true)
+                .build();
     }
 
     @Test
@@ -93,4 +110,101 @@ class CustomUserDetailsServiceTest {
                 .isInstanceOf(UsernameNotFoundException.class)
                 .hasMessageContaining("User not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should serve repeated lookups from cache")
+    void shouldServeRepeatedLookupsFromCache() {
+        // given
+        when(userRepository.findByUsername("alice"))
+                .thenReturn(Optional.of(alice()));
+
+        // when
+        subject.loadUserByUsername("alice");
+        UserDetails result = subject.loadUserByUsername("alice");
+
+        // then
+        assertThat(result.getUsername()).isEqualTo("alice");
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should not cache users that do not exist")
+    void shouldNotCacheMissingUsers() {
+        // given
+        when(userRepository.findByUsername("ghost"))
+                .thenReturn(Optional.empty());
+
+        // when
+        assertThatThrownBy(() -> subject.loadUserByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> subject.loadUserByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+
+        // then
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("Should return fresh UserDetails so erased credentials do not leak into the cache")
+    void shouldKeepCachedPasswordAfterCredentialsErased() {
+        // given
+        when(userRepository.findByUsername("alice"))
+                .thenReturn(Optional.of(alice()));
+        UserDetails first = subject.loadUserByUsername("alice");
+
+        // when
+        ((CredentialsContainer) first).eraseCredentials();
+        UserDetails second = subject.loadUserByUsername("alice");
+
+        // then
+        assertThat(first.getPassword()).isNull();
+        assertThat(second.getPassword()).isEqualTo("encodedPass");
+    }
+
+    @Test
+    @DisplayName("Should reload the user after a UserChangedEvent")
+    void shouldReloadAfterUserChanged() {
+        // given
+        User disabled = alice();
+        disabled.setEnabled(false);
+        when(userRepository.findByUsername("alice"))
+                .thenReturn(Optional.of(alice()))
+                .thenReturn(Optional.of(disabled));
+        subject.loadUserByUsername("alice");
+
+        // when
+        subject.onUserChanged(new UserChangedEvent("alice", UserRole.USER, false));
+        UserDetails result = subject.loadUserByUsername("alice");
+
+        // then
+        assertThat(result.isEnabled()).isFalse();
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should expose hit, miss and eviction metrics for the cache")
+    void shouldExposeCacheMetrics() {
+        // given
+        when(userRepository.findByUsername("alice"))
+                .thenReturn(Optional.of(alice()));
+
+        // when
+        subject.loadUserByUsername("alice");
+        subject.loadUserByUsername("alice");
+
+        // then
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CustomUserDetailsService.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CustomUserDetailsService.CACHE_NAME)
+                .tag("result", "miss")
+                .functionCounter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.find("cache.evictions")
+                .tag("cache", CustomUserDetailsService.CACHE_NAME)
+                .functionCounter()).isNotNull();
+    }
+}
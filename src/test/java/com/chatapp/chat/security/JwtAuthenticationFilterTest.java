@@ -10,12 +10,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.security.Principal;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -29,6 +33,9 @@ class JwtAuthenticationFilterTest {
     @Mock
     CustomUserDetailsService customUserDetailsService;
 
+    @Mock
+    UserAccessRegistry userAccessRegistry;
+
     @Mock
     HttpServletRequest httpServletRequest;
 
@@ -43,7 +50,17 @@ class JwtAuthenticationFilterTest {
     @BeforeEach
     void setUp() {
         SecurityContextHolder.clearContext();
-        subject = new JwtAuthenticationFilter(jwtUtils, customUserDetailsService);
+        subject = new JwtAuthenticationFilter(jwtUtils, customUserDetailsService, userAccessRegistry, true, false, null);
+    }
+
+    private VerifiedToken tokenWithoutClaims(String username) {
+        Instant now = Instant.now();
+        return new VerifiedToken(username, null, true, now, now.plusSeconds(3600));
+    }
+
+    private VerifiedToken tokenWithRoles(String username, String... roles) {
+        Instant now = Instant.now();
+        return new VerifiedToken(username, List.of(roles), true, now, now.plusSeconds(3600));
     }
 
     @Test
@@ -79,23 +96,7 @@ class JwtAuthenticationFilterTest {
     void shouldIgnoreWhenTokenInvalid() throws Exception {
         // given
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer abc");
-        when(jwtUtils.isValid("abc")).thenReturn(false);
-
-        // when
-        subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
-
-        // then
-        verify(filterChain).doFilter(httpServletRequest, httpServletResponse);
-        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
-    }
-
-    @Test
-    @DisplayName("Should skip authentication when extractUserName returns null")
-    void shouldIgnoreWhenUsernameNull() throws Exception {
-        // given
-        when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer abc");
-        when(jwtUtils.isValid("abc")).thenReturn(true);
-        when(jwtUtils.extractUserName("abc")).thenReturn(null);
+        when(jwtUtils.verify("abc")).thenReturn(Optional.empty());
 
         // when
         subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
@@ -114,8 +115,7 @@ class JwtAuthenticationFilterTest {
         );
 
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer abc");
-        when(jwtUtils.isValid("abc")).thenReturn(true);
-        when(jwtUtils.extractUserName("abc")).thenReturn("john");
+        when(jwtUtils.verify("abc")).thenReturn(Optional.of(tokenWithoutClaims("john")));
 
         // when
         subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
@@ -129,8 +129,7 @@ class JwtAuthenticationFilterTest {
     void shouldIgnoreWhenUserNotFound() throws Exception {
         // given
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer abc");
-        when(jwtUtils.isValid("abc")).thenReturn(true);
-        when(jwtUtils.extractUserName("abc")).thenReturn("john");
+        when(jwtUtils.verify("abc")).thenReturn(Optional.of(tokenWithoutClaims("john")));
         when(customUserDetailsService.loadUserByUsername("john"))
                 .thenThrow(new UsernameNotFoundException("not found"));
 
@@ -147,8 +146,7 @@ class JwtAuthenticationFilterTest {
     void shouldAuthenticateWhenTokenValid() throws Exception {
         // given
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer token123");
-        when(jwtUtils.isValid("token123")).thenReturn(true);
-        when(jwtUtils.extractUserName("token123")).thenReturn("john");
+        when(jwtUtils.verify("token123")).thenReturn(Optional.of(tokenWithoutClaims("john")));
 
         UserDetails details = org.springframework.security.core.userdetails.User
                 .withUsername("john")
@@ -174,8 +172,7 @@ class JwtAuthenticationFilterTest {
     void shouldContinueChainWhenUserNotFoundAndReturnEarly() throws Exception {
         // given
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer abc");
-        when(jwtUtils.isValid("abc")).thenReturn(true);
-        when(jwtUtils.extractUserName("abc")).thenReturn("john");
+        when(jwtUtils.verify("abc")).thenReturn(Optional.of(tokenWithoutClaims("john")));
 
         when(customUserDetailsService.loadUserByUsername("john"))
                 .thenThrow(new UsernameNotFoundException("not found"));
@@ -198,8 +195,7 @@ class JwtAuthenticationFilterTest {
         );
 
         when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer token123");
-        when(jwtUtils.isValid("token123")).thenReturn(true);
-        when(jwtUtils.extractUserName("token123")).thenReturn("john");
+        when(jwtUtils.verify("token123")).thenReturn(Optional.of(tokenWithoutClaims("john")));
 
         // when
         subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
@@ -208,4 +204,76 @@ class JwtAuthenticationFilterTest {
         verifyNoInteractions(customUserDetailsService);
         verify(filterChain, times(1)).doFilter(httpServletRequest, httpServletResponse);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should authenticate from token claims without loading the user in stateless mode")
+    void shouldAuthenticateFromClaimsInStatelessMode() throws Exception {
+        // given
+        when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer token123");
+        VerifiedToken token = tokenWithRoles("john", "ROLE_ADMIN");
+        when(jwtUtils.verify("token123")).thenReturn(Optional.of(token));
+        when(userAccessRegistry.isRevoked(token)).thenReturn(false);
+
+        // when
+        subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication())
+                .isNotNull()
+                .satisfies(auth -> {
+                    assertThat(auth.getName()).isEqualTo("john");
+                    assertThat(auth.getAuthorities())
+                            .extracting(GrantedAuthority::getAuthority)
+                            .containsExactly("ROLE_ADMIN");
+                });
+
+        verifyNoInteractions(customUserDetailsService);
+        verify(filterChain).doFilter(httpServletRequest, httpServletResponse);
+    }
+
+    @Test
+    @DisplayName("Should skip authentication when token claims are revoked in stateless mode")
+    void shouldIgnoreRevokedTokenInStatelessMode() throws Exception {
+        // given
+        when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer token123");
+        VerifiedToken token = tokenWithRoles("john", "ROLE_ADMIN");
+        when(jwtUtils.verify("token123")).thenReturn(Optional.of(token));
+        when(userAccessRegistry.isRevoked(token)).thenReturn(true);
+
+        // when
+        subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(customUserDetailsService);
+        verify(filterChain, times(1)).doFilter(httpServletRequest, httpServletResponse);
+    }
+
+    @Test
+    @DisplayName("Should load the user even for tokens with claims when stateless mode is disabled")
+    void shouldLoadUserWhenStatelessModeDisabled() throws Exception {
+        // given
+        subject = new JwtAuthenticationFilter(jwtUtils, customUserDetailsService, userAccessRegistry, false, false, null);
+
+        when(httpServletRequest.getHeader("Authorization")).thenReturn("Bearer token123");
+        when(jwtUtils.verify("token123")).thenReturn(Optional.of(tokenWithRoles("john", "ROLE_USER")));
+
+        UserDetails details = org.springframework.security.core.userdetails.User
+                .withUsername("john")
+                .password("pass")
+                .authorities(Collections.emptyList())
+                .build();
+
+        when(customUserDetailsService.loadUserByUsername("john")).thenReturn(details);
+
+        // when
+        subject.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication())
+                .isNotNull()
+                .extracting(Principal::getName).isEqualTo("john");
+
+        verifyNoInteractions(userAccessRegistry);
+    }
+}
@@ -3,15 +3,21 @@ package com.chatapp.chat.security;
 import com.chatapp.chat.security.exception.InvalidJwtSecretException;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.lang.reflect.Field;
 import java.security.Key;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -168,6 +174,176 @@ class JwtUtilsTest {
                 .isEqualTo(truncateToSeconds(fixed.plusMillis(60_000)));
     }
 
+    @Test
+    @DisplayName("Should return subject from validateAndGetSubject for a valid token")
+    void shouldReturnSubjectForValidToken() {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+        String token = utils.generateToken("alice");
+
+        // when
+        Optional<String> subject = utils.validateAndGetSubject(token);
+
+        // then
+        assertThat(subject).contains("alice");
+    }
+
+    @Test
+    @DisplayName("Should return empty from validateAndGetSubject and cache nothing for an invalid token")
+    void shouldReturnEmptyForInvalidToken() {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+
+        // when
+        Optional<String> subject = utils.validateAndGetSubject("bad.token.value");
+
+        // then
+        assertThat(subject).isEmpty();
+        assertThat(utils.cachedTokens()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated token from cache without verifying the signature again")
+    void shouldSkipVerificationForCachedToken() throws Exception {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+        String token = utils.generateToken("alice");
+        utils.validateAndGetSubject(token);
+
+        Field keyField = JwtUtils.class.getDeclaredField("signingKey");
+        keyField.setAccessible(true);
+        keyField.set(utils, mock(Key.class));
+
+        // when
+        Optional<String> subject = utils.validateAndGetSubject(token);
+
+        // then
+        assertThat(subject).contains("alice");
+        assertThat(utils.cachedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict a cached token once it expires")
+    void shouldEvictCachedTokenAtExpiration() {
+        // given
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T12:00:00Z"));
+        JwtUtils utils = new JwtUtils("a".repeat(40), 60_000, clock);
+        String token = utils.generateToken("alice");
+        assertThat(utils.validateAndGetSubject(token)).contains("alice");
+
+        // when
+        clock.advance(Duration.ofMinutes(2));
+        Optional<String> subject = utils.validateAndGetSubject(token);
+
+        // then
+        assertThat(subject).isEmpty();
+        assertThat(utils.cachedTokens()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not grow the cache beyond its configured size")
+    void shouldBoundCacheSize() {
+        // given
+        JwtUtils utils = new JwtUtils("a".repeat(40), 3600000L, Clock.systemUTC(), 2);
+
+        // when
+        for (String name : List.of("alice", "bob", "carol")) {
+            assertThat(utils.validateAndGetSubject(utils.generateToken(name))).contains(name);
+        }
+
+        // then
+        assertThat(utils.cachedTokens()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count cache hits and misses and time verifications once bound to a registry")
+    void shouldPublishCacheAndVerificationMetrics() {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        utils.bindTo(registry);
+        String token = utils.generateToken("alice");
+
+        // when
+        utils.verify(token);
+        utils.verify(token);
+        utils.verify(token);
+        utils.verify("not-a-token");
+
+        // then
+        assertThat(registry.get("cache.gets").tags("cache", JwtUtils.CACHE_NAME, "result", "hit").counter().count())
+                .isEqualTo(2.0);
+        assertThat(registry.get("cache.gets").tags("cache", JwtUtils.CACHE_NAME, "result", "miss").counter().count())
+                .isEqualTo(2.0);
+        assertThat(registry.get("jwt.verification").tag("outcome", "valid").timer().count()).isEqualTo(1);
+        assertThat(registry.get("jwt.verification").tag("outcome", "invalid").timer().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", JwtUtils.CACHE_NAME).gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should embed authorities and enabled flag when generating a token with authorities")
+    void shouldGenerateTokenWithAuthorities() {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+
+        // when
+        String token = utils.generateToken("alice", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        Optional<VerifiedToken> verified = utils.verify(token);
+
+        // then
+        assertThat(verified).hasValueSatisfying(claims -> {
+            assertThat(claims.subject()).isEqualTo("alice");
+            assertThat(claims.roles()).containsExactly("ROLE_ADMIN");
+            assertThat(claims.enabled()).isTrue();
+            assertThat(claims.carriesAuthorities()).isTrue();
+        });
+    }
+
+    @Test
+    @DisplayName("Should verify a token without authority claims as not carrying authorities")
+    void shouldVerifyTokenWithoutAuthorities() {
+        // given
+        JwtUtils utils = createJwtUtils("a".repeat(40), 3600000L);
+        String token = utils.generateToken("alice");
+
+        // when
+        Optional<VerifiedToken> verified = utils.verify(token);
+
+        // then
+        assertThat(verified).hasValueSatisfying(claims -> {
+            assertThat(claims.subject()).isEqualTo("alice");
+            assertThat(claims.carriesAuthorities()).isFalse();
+        });
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
     private Key utilsTestKey(JwtUtils utils) {
         try {
             Field f = JwtUtils.class.getDeclaredField("signingKey");
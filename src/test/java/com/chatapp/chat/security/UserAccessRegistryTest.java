@@ -0,0 +1,136 @@
+package com.chatapp.chat.security;
+
+import com.chatapp.chat.user.UserChangedEvent;
+import com.chatapp.chat.user.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAccessRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    UserAccessRegistry subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new UserAccessRegistry(60_000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private VerifiedToken token(String username, boolean enabled, String... roles) {
+        return new VerifiedToken(username, List.of(roles), enabled, NOW, NOW.plusSeconds(60));
+    }
+
+    @Test
+    @DisplayName("Should accept a token when the user has not changed")
+    void shouldAcceptTokenOfUnchangedUser() {
+        // given
+        VerifiedToken token = token("alice", true, "ROLE_USER");
+
+        // when
+        boolean revoked = subject.isRevoked(token);
+
+        // then
+        assertThat(revoked).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should revoke a token whose enabled claim is false")
+    void shouldRevokeTokenOfDisabledClaim() {
+        // given
+        VerifiedToken token = token("alice", false, "ROLE_USER");
+
+        // when
+        boolean revoked = subject.isRevoked(token);
+
+        // then
+        assertThat(revoked).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should revoke tokens of a user that was disabled")
+    void shouldRevokeTokenOfDisabledUser() {
+        // given
+        subject.onUserChanged(new UserChangedEvent("alice", UserRole.USER, false));
+
+        // when
+        boolean revoked = subject.isRevoked(token("alice", true, "ROLE_USER"));
+
+        // then
+        assertThat(revoked).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should revoke tokens issued with a role the user no longer has")
+    void shouldRevokeTokenWithOutdatedRole() {
+        // given
+        subject.onUserChanged(new UserChangedEvent("alice", UserRole.USER, true));
+
+        // when
+        boolean revoked = subject.isRevoked(token("alice", true, "ROLE_ADMIN"));
+
+        // then
+        assertThat(revoked).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should accept tokens whose claims match the changed user state")
+    void shouldAcceptTokenMatchingCurrentState() {
+        // given
+        subject.onUserChanged(new UserChangedEvent("alice", UserRole.ADMIN, true));
+
+        // when
+        boolean revoked = subject.isRevoked(token("alice", true, "ROLE_ADMIN"));
+
+        // then
+        assertThat(revoked).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should forget changes older than one token lifetime")
+    void shouldPurgeChangesOlderThanTokenLifetime() {
+        // given
+        MutableClock clock = new MutableClock(NOW);
+        UserAccessRegistry registry = new UserAccessRegistry(60_000, clock);
+        registry.onUserChanged(new UserChangedEvent("alice", UserRole.USER, false));
+
+        // when
+        clock.now = NOW.plusSeconds(120);
+        registry.onUserChanged(new UserChangedEvent("bob", UserRole.USER, false));
+
+        // then
+        assertThat(registry.trackedUsers()).isEqualTo(1);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.chatapp.chat.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenTest {
+
+    @Test
+    @DisplayName("Should report authorities when the roles claim is present")
+    void shouldCarryAuthoritiesWhenRolesPresent() {
+        // given
+        Instant now = Instant.now();
+
+        // when
+        VerifiedToken token = new VerifiedToken("alice", List.of(), true, now, now.plusSeconds(60));
+
+        // then
+        assertThat(token.carriesAuthorities()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not report authorities when the roles claim is missing")
+    void shouldNotCarryAuthoritiesWhenRolesMissing() {
+        // given
+        Instant now = Instant.now();
+
+        // when
+        VerifiedToken token = new VerifiedToken("alice", null, true, now, now.plusSeconds(60));
+
+        // then
+        assertThat(token.carriesAuthorities()).isFalse();
+    }
+}
@@ -0,0 +1,58 @@
+package com.chatapp.chat.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class UserChangeListenerTest {
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    UserChangeListener subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new UserChangeListener(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should publish the current role and enabled flag after a user is saved")
+    void shouldPublishUserChangedEvent() {
+        // given
+        User user = User.builder()
+                .username("alice")
+                .role(UserRole.ADMIN)
+                .enabled(false)
+                .build();
+
+        // when
+        subject.onChange(user);
+
+        // then
+        verify(eventPublisher).publishEvent(new UserChangedEvent("alice", UserRole.ADMIN, false));
+    }
+
+    @Test
+    @DisplayName("Should not publish anything for a user without username")
+    void shouldSkipUserWithoutUsername() {
+        // given
+        User user = User.builder()
+                .email("alice@example.com")
+                .build();
+
+        // when
+        subject.onChange(user);
+
+        // then
+        verifyNoInteractions(eventPublisher);
+    }
+}
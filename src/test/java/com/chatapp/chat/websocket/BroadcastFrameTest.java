@@ -0,0 +1,76 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastFrameTest {
+
+    private static final byte[] PAYLOAD = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private static final Map<String, List<String>> SHARED = Map.of(
+            "destination", List.of("/topic/chat.room-1"),
+            "content-type", List.of("application/json")
+    );
+
+    private static Map<String, List<String>> recipientHeaders() {
+        Map<String, List<String>> headers = new HashMap<>(SHARED);
+        headers.put("subscription", List.of("sub-1"));
+        headers.put("message-id", List.of("s1-0"));
+        return headers;
+    }
+
+    @Test
+    @DisplayName("Should pre-encode shared headers and body as the regular encoder writes them")
+    void shouldEncodeTail() {
+        // when
+        BroadcastFrame frame = BroadcastFrame.encode(SHARED, PAYLOAD);
+
+        // then
+        byte[] regular = new StompEncoder().encode(
+                StompHeaderAccessor.create(StompCommand.MESSAGE, SHARED).getMessageHeaders(), PAYLOAD
+        );
+        byte[] command = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+        assertThat(frame.tail()).isEqualTo(Arrays.copyOfRange(regular, command.length, regular.length));
+        assertThat(new String(frame.tail(), StandardCharsets.UTF_8))
+                .contains("content-length:5")
+                .endsWith("\n\nhello\0");
+    }
+
+    @Test
+    @DisplayName("Should match a recipient that only adds subscription and message id")
+    void shouldMatchUnchangedRecipient() {
+        // given
+        BroadcastFrame frame = BroadcastFrame.encode(SHARED, PAYLOAD);
+
+        // when + then
+        assertThat(frame.matches(recipientHeaders(), PAYLOAD)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not match a recipient with changed headers or another body")
+    void shouldNotMatchChangedRecipient() {
+        // given
+        BroadcastFrame frame = BroadcastFrame.encode(SHARED, PAYLOAD);
+        Map<String, List<String>> changedDestination = recipientHeaders();
+        changedDestination.put("destination", List.of("/topic/chat.room-2"));
+        Map<String, List<String>> withoutMessageId = recipientHeaders();
+        withoutMessageId.remove("message-id");
+
+        // when + then
+        assertThat(frame.matches(changedDestination, PAYLOAD)).isFalse();
+        assertThat(frame.matches(withoutMessageId, PAYLOAD)).isFalse();
+        assertThat(frame.matches(recipientHeaders(), PAYLOAD.clone())).isFalse();
+        assertThat(frame.matches(null, PAYLOAD)).isFalse();
+    }
+}
@@ -0,0 +1,111 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastStompEncoderTest {
+
+    private final BroadcastStompEncoder subject = new BroadcastStompEncoder();
+
+    private static final byte[] PAYLOAD = "{\"chatId\":\"room-1\",\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static BroadcastFrame frame() {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("destination", List.of("/topic/chat.room-1"));
+        headers.put("content-type", List.of("application/json"));
+        return BroadcastFrame.encode(headers, PAYLOAD);
+    }
+
+    private static StompHeaderAccessor recipient(BroadcastFrame frame, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE, frame.nativeHeaders());
+        accessor.setSessionId("s1");
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setMessageId("s1-0");
+        accessor.setHeader(BroadcastFrame.HEADER, frame);
+        return accessor;
+    }
+
+    private static Message<byte[]> decode(byte[] bytes) {
+        List<Message<byte[]>> messages = new StompDecoder().decode(ByteBuffer.wrap(bytes));
+        assertThat(messages).hasSize(1);
+        return messages.get(0);
+    }
+
+    @Test
+    @DisplayName("Should produce the same frame as the regular encoder from the pre-encoded broadcast")
+    void shouldMatchRegularEncoding() {
+        // given
+        StompHeaderAccessor accessor = recipient(frame(), "sub:1");
+
+        // when
+        byte[] encoded = subject.encode(accessor.getMessageHeaders(), PAYLOAD);
+
+        // then
+        byte[] regular = new StompEncoder().encode(accessor.getMessageHeaders(), PAYLOAD);
+        Message<byte[]> fast = decode(encoded);
+        Message<byte[]> expected = decode(regular);
+
+        assertThat(encoded).hasSameSizeAs(regular);
+        assertThat(fast.getPayload()).isEqualTo(PAYLOAD);
+        assertThat(StompHeaderAccessor.wrap(fast).toNativeHeaderMap())
+                .isEqualTo(StompHeaderAccessor.wrap(expected).toNativeHeaderMap())
+                .containsEntry("subscription", List.of("sub:1"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to regular encoding when a shared header was changed on the way out")
+    void shouldFallBackWhenHeadersDiffer() {
+        // given
+        StompHeaderAccessor accessor = recipient(frame(), "sub-1");
+        accessor.setNativeHeader("x-trace", "abc");
+
+        // when
+        byte[] encoded = subject.encode(accessor.getMessageHeaders(), PAYLOAD);
+
+        // then
+        assertThat(StompHeaderAccessor.wrap(decode(encoded)).getFirstNativeHeader("x-trace")).isEqualTo("abc");
+    }
+
+    @Test
+    @DisplayName("Should fall back to regular encoding when the body is not the broadcast body")
+    void shouldFallBackWhenPayloadDiffers() {
+        // given
+        StompHeaderAccessor accessor = recipient(frame(), "sub-1");
+        byte[] otherPayload = "other".getBytes(StandardCharsets.UTF_8);
+
+        // when
+        byte[] encoded = subject.encode(accessor.getMessageHeaders(), otherPayload);
+
+        // then
+        assertThat(decode(encoded).getPayload()).isEqualTo(otherPayload);
+    }
+
+    @Test
+    @DisplayName("Should encode frames without a broadcast like the regular encoder")
+    void shouldEncodeOtherFrames() {
+        // given
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+        accessor.setMessage("boom");
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        // when
+        byte[] encoded = subject.encode(message);
+
+        // then
+        assertThat(encoded).isEqualTo(new StompEncoder().encode(message));
+    }
+}
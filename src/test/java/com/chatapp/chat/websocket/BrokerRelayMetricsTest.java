@@ -0,0 +1,54 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BrokerRelayMetricsTest {
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<AbstractBrokerMessageHandler> provider(AbstractBrokerMessageHandler handler) {
+        ObjectProvider<AbstractBrokerMessageHandler> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(handler);
+        return provider;
+    }
+
+    @Test
+    @DisplayName("Should report the availability and connections of the relay")
+    void shouldReadRelayState() {
+        // given
+        StompBrokerRelayMessageHandler relay = mock(StompBrokerRelayMessageHandler.class);
+        when(relay.isBrokerAvailable()).thenReturn(true);
+        when(relay.getConnectionCount()).thenReturn(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BrokerRelayMetrics subject = new BrokerRelayMetrics(provider(relay));
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.broker.relay.available").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("websocket.broker.relay.connections").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should report zero while the relay handler does not exist")
+    void shouldReadZeroWithoutRelay() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        new BrokerRelayMetrics(provider(null)).bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.broker.relay.available").gauge().value()).isZero();
+        assertThat(registry.get("websocket.broker.relay.connections").gauge().value()).isZero();
+    }
+}
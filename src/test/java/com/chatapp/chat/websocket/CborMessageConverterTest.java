@@ -0,0 +1,114 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.chat.ChatMessage;
+import com.chatapp.chat.chat.ChatMessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CborMessageConverterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final CborMessageConverter subject = new CborMessageConverter(new Jackson2ObjectMapperBuilder());
+
+    private static ChatMessage chatMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setChatId("room-1");
+        message.setSender("alice");
+        message.setContent("Hello everyone");
+        message.setType(ChatMessageType.CHAT);
+        return message;
+    }
+
+    private static MessageHeaders headers(MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        return accessor.getMessageHeaders();
+    }
+
+    @Test
+    @DisplayName("Should encode and decode a chat message as CBOR")
+    void shouldRoundTrip() {
+        // given
+        ChatMessage original = chatMessage();
+
+        // when
+        Message<?> encoded = subject.toMessage(original, headers(CborMessageConverter.APPLICATION_CBOR));
+        Object decoded = subject.fromMessage(encoded, ChatMessage.class);
+
+        // then
+        assertThat(encoded).isNotNull();
+        assertThat(decoded).isEqualTo(original);
+    }
+
+    @Test
+    @DisplayName("Should produce a smaller payload than JSON")
+    void shouldBeSmallerThanJson() throws Exception {
+        // given
+        ChatMessage message = chatMessage();
+
+        // when
+        Message<?> encoded = subject.toMessage(message, headers(CborMessageConverter.APPLICATION_CBOR));
+
+        // then
+        assertThat(encoded).isNotNull();
+        assertThat(((byte[]) encoded.getPayload()).length).isLessThan(objectMapper.writeValueAsBytes(message).length);
+    }
+
+    @Test
+    @DisplayName("Should leave messages without a CBOR content type to the other converters")
+    void shouldOnlyMatchCborContentType() {
+        // given
+        Message<byte[]> json = MessageBuilder.createMessage(
+                "{\"chatId\":\"room-1\"}".getBytes(StandardCharsets.UTF_8), headers(MimeTypeUtils.APPLICATION_JSON));
+        Message<byte[]> untyped = MessageBuilder.createMessage(new byte[0], headers(null));
+
+        // when + then
+        assertThat(subject.fromMessage(json, ChatMessage.class)).isNull();
+        assertThat(subject.fromMessage(untyped, ChatMessage.class)).isNull();
+        assertThat(subject.toMessage(chatMessage(), headers(null))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should transcode a JSON document into the CBOR encoding of the same value")
+    void shouldTranscodeJson() throws Exception {
+        // given
+        byte[] json = objectMapper.writeValueAsBytes(chatMessage());
+
+        // when
+        byte[] cbor = subject.fromJson(json);
+
+        // then
+        assertThat(cbor).isEqualTo(subject.getObjectMapper().writeValueAsBytes(chatMessage()));
+        assertThat(subject.getObjectMapper().readValue(cbor, ChatMessage.class)).isEqualTo(chatMessage());
+    }
+
+    @Test
+    @DisplayName("Should recognise JSON and CBOR content types in message headers")
+    void shouldDetectContentTypes() {
+        // when + then
+        assertThat(CborMessageConverter.isJson(headers(MimeTypeUtils.APPLICATION_JSON))).isTrue();
+        assertThat(CborMessageConverter.isJson(headers(MimeType.valueOf("application/vnd.chat+json")))).isTrue();
+        assertThat(CborMessageConverter.isJson(headers(null))).isFalse();
+        assertThat(CborMessageConverter.isJson(new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, "application/json"))))
+                .isTrue();
+        assertThat(CborMessageConverter.isCbor(MimeType.valueOf("application/cbor;charset=UTF-8"))).isTrue();
+        assertThat(CborMessageConverter.isCbor(MimeTypeUtils.TEXT_PLAIN)).isFalse();
+    }
+}
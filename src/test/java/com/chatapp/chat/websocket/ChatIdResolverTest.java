@@ -0,0 +1,102 @@
+package com.chatapp.chat.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatIdResolverTest {
+
+    private final ChatIdResolver subject = new ChatIdResolver();
+
+    private Message<byte[]> frame(SimpMessageType type, String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    @Test
+    @DisplayName("Should read chatId from a chat message payload")
+    void shouldReadChatId() {
+        // given
+        Message<byte[]> message = frame(
+                SimpMessageType.MESSAGE,
+                "/app/chat.sendMessage",
+                "{\"sender\":\"alice\",\"meta\":{\"chatId\":\"nested\"},\"chatId\":\"room-1\",\"content\":\"hi\"}"
+        );
+
+        // when
+        String chatId = subject.apply(message);
+
+        // then
+        assertThat(chatId).isEqualTo("room-1");
+    }
+
+    @Test
+    @DisplayName("Should read chatId from a CBOR payload and only when the frame is marked as CBOR")
+    void shouldReadChatIdFromCbor() throws Exception {
+        // given
+        byte[] payload = new ObjectMapper(new CBORFactory())
+                .writeValueAsBytes(Map.of("sender", "alice", "chatId", "room-1"));
+        Message<byte[]> cbor = MessageBuilder.withPayload(payload)
+                .copyHeaders(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "").getHeaders())
+                .setHeader(MessageHeaders.CONTENT_TYPE, CborMessageConverter.APPLICATION_CBOR)
+                .build();
+        Message<byte[]> unmarked = MessageBuilder.withPayload(payload)
+                .copyHeaders(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "").getHeaders())
+                .build();
+
+        // when + then
+        assertThat(subject.apply(cbor)).isEqualTo("room-1");
+        assertThat(subject.apply(unmarked)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should accept a numeric chatId")
+    void shouldReadNumericChatId() {
+        // given
+        Message<byte[]> message = frame(SimpMessageType.MESSAGE, "/app/chat.addUser", "{\"chatId\":42}");
+
+        // when
+        String chatId = subject.apply(message);
+
+        // then
+        assertThat(chatId).isEqualTo("42");
+    }
+
+    @Test
+    @DisplayName("Should return null for frames that are not chat messages")
+    void shouldIgnoreOtherFrames() {
+        // given
+        Message<byte[]> subscribe = frame(SimpMessageType.SUBSCRIBE, "/app/chat.sendMessage", "{\"chatId\":\"room-1\"}");
+        Message<byte[]> otherDestination = frame(SimpMessageType.MESSAGE, "/app/other", "{\"chatId\":\"room-1\"}");
+
+        // when + then
+        assertThat(subject.apply(subscribe)).isNull();
+        assertThat(subject.apply(otherDestination)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should return null when the payload has no usable chatId")
+    void shouldReturnNullForUnusablePayload() {
+        // when + then
+        assertThat(subject.apply(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "{\"content\":\"hi\"}")))
+                .isNull();
+        assertThat(subject.apply(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "{\"chatId\":null}")))
+                .isNull();
+        assertThat(subject.apply(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "{\"chatId\":")))
+                .isNull();
+        assertThat(subject.apply(frame(SimpMessageType.MESSAGE, "/app/chat.sendMessage", "not json")))
+                .isNull();
+    }
+}
@@ -0,0 +1,294 @@
+package com.chatapp.chat.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatOrderedChannelExecutorTest {
+
+    private static final String CHAT_HEADER = "chat";
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    private final ChatOrderedChannelExecutor subject = new ChatOrderedChannelExecutor(
+            pool, message -> (String) message.getHeaders().get(CHAT_HEADER)
+    );
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static Runnable task(String chatId, Runnable body) {
+        return task(MessageBuilder.withPayload("payload").setHeader(CHAT_HEADER, chatId).build(), body);
+    }
+
+    private static Runnable task(Message<?> message, Runnable body) {
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> { };
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should run messages of one chat one at a time in submission order")
+    void shouldKeepOrderWithinChat() throws InterruptedException {
+        // given
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(500);
+
+        // when
+        IntStream.range(0, 500).forEach(i -> subject.execute(task("room-1", () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            handled.add(i);
+            running.decrementAndGet();
+            done.countDown();
+        })));
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactlyElementsOf(IntStream.range(0, 500).boxed().toList());
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the order of CBOR frames sent to one chat")
+    void shouldKeepOrderOfCborFrames() throws Exception {
+        // given
+        ChatOrderedChannelExecutor ordered = new ChatOrderedChannelExecutor(pool, new ChatIdResolver());
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/app/chat.sendMessage");
+        accessor.setContentType(CborMessageConverter.APPLICATION_CBOR);
+        MessageHeaders headers = accessor.getMessageHeaders();
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(500);
+
+        // when
+        for (int i = 0; i < 500; i++) {
+            int index = i;
+            byte[] payload = cbor.writeValueAsBytes(Map.of("chatId", "room-1", "content", "m" + i));
+            ordered.execute(task(MessageBuilder.createMessage(payload, headers), () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                handled.add(index);
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactlyElementsOf(IntStream.range(0, 500).boxed().toList());
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drain a long chat on a virtual executor limited to one message at a time")
+    void shouldNotBlockOnThrottledVirtualExecutor() throws InterruptedException {
+        // given
+        ChatOrderedChannelExecutor throttled = new ChatOrderedChannelExecutor(
+                new VirtualThreadChannelExecutor("throttled-", 1),
+                message -> (String) message.getHeaders().get(CHAT_HEADER)
+        );
+        int messages = 3 * ChatOrderedChannelExecutor.MAX_BATCH + 8;
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(messages);
+
+        // when
+        IntStream.range(0, messages).forEach(i -> throttled.execute(task("room-1", () -> {
+            handled.add(i);
+            done.countDown();
+        })));
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).as("remaining %d", done.getCount()).isTrue();
+        assertThat(handled).containsExactlyElementsOf(IntStream.range(0, messages).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("Should run different chats in parallel")
+    void shouldRunChatsInParallel() throws InterruptedException {
+        // given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            bothStarted.countDown();
+            await(release);
+        };
+
+        // when
+        subject.execute(task("room-1", blocking));
+        subject.execute(task("room-2", blocking));
+
+        // then
+        assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(subject.activeChats()).isEqualTo(2);
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should count messages queued behind a running message of the same chat")
+    void shouldCountPendingMessages() throws InterruptedException {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        subject.execute(task("room-1", () -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        }));
+        started.await(2, TimeUnit.SECONDS);
+
+        // when
+        subject.execute(task("room-1", done::countDown));
+        subject.execute(task("room-1", done::countDown));
+
+        // then
+        assertThat(subject.pending()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(subject.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop a chat lane once its messages are handled")
+    void shouldRetireIdleLanes() throws InterruptedException {
+        // given
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        subject.execute(task("room-1", done::countDown));
+
+        // then
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (subject.activeChats() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(subject.activeChats()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep handling a chat after one of its messages fails")
+    void shouldContinueAfterFailure() throws InterruptedException {
+        // given
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        subject.execute(task("room-1", () -> {
+            throw new IllegalStateException("handler failed");
+        }));
+        subject.execute(task("room-1", done::countDown));
+
+        // then
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should pass messages without a chat straight to the delegate")
+    void shouldDelegateUnkeyedMessages() throws InterruptedException {
+        // given
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        subject.execute(done::countDown);
+
+        // then
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(subject.activeChats()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rethrow and forget the message when the delegate rejects it")
+    void shouldPropagateRejection() {
+        // given
+        ChatOrderedChannelExecutor rejecting = new ChatOrderedChannelExecutor(
+                task -> {
+                    throw new RejectedExecutionException("full");
+                },
+                message -> (String) message.getHeaders().get(CHAT_HEADER)
+        );
+
+        // when + then
+        assertThatThrownBy(() -> rejecting.execute(task("room-1", () -> { })))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(rejecting.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should handle the rest of a lane inline when the delegate rejects its next batch")
+    void shouldRunRemainingTasksInlineWhenRescheduleRejected() {
+        // given
+        List<Runnable> accepted = new ArrayList<>();
+        ChatOrderedChannelExecutor saturating = new ChatOrderedChannelExecutor(
+                task -> {
+                    if (!accepted.isEmpty()) {
+                        throw new RejectedExecutionException("full");
+                    }
+                    accepted.add(task);
+                },
+                message -> (String) message.getHeaders().get(CHAT_HEADER)
+        );
+        List<Integer> handled = new ArrayList<>();
+        int total = ChatOrderedChannelExecutor.MAX_BATCH + 5;
+        IntStream.range(0, total).forEach(i -> saturating.execute(task("room-1", () -> handled.add(i))));
+
+        // when
+        accepted.getFirst().run();
+
+        // then
+        assertThat(handled).containsExactlyElementsOf(IntStream.range(0, total).boxed().toList());
+        assertThat(saturating.pending()).isZero();
+        assertThat(saturating.activeChats()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
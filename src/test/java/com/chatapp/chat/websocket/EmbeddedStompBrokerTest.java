@@ -0,0 +1,125 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddedStompBrokerTest {
+
+    private EmbeddedStompBroker broker;
+    private ThreadPoolTaskScheduler receiptScheduler;
+    private ReactorNettyTcpStompClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        broker = new EmbeddedStompBroker("localhost", port);
+        broker.start();
+
+        int brokerPort = port;
+        client = new ReactorNettyTcpStompClient(new ReactorNettyTcpClient<>(
+                tcpClient -> tcpClient.host("localhost").port(brokerPort),
+                new StompReactorNettyCodec()
+        ));
+        client.setMessageConverter(new StringMessageConverter());
+        receiptScheduler = new ThreadPoolTaskScheduler();
+        receiptScheduler.initialize();
+        client.setTaskScheduler(receiptScheduler);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        receiptScheduler.shutdown();
+        broker.stop();
+    }
+
+    private StompSession connect() throws Exception {
+        StompHeaders headers = new StompHeaders();
+        headers.setLogin("guest");
+        headers.setPasscode("guest");
+        return client.connectAsync(headers, new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static StompSession.Receiptable subscribe(
+            StompSession session,
+            String destination,
+            BlockingQueue<String> received
+    ) {
+        session.setAutoReceipt(true);
+        return session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(headers.getDestination() + " " + payload);
+            }
+        });
+    }
+
+    private static void awaitReceipt(StompSession.Receiptable receiptable) throws InterruptedException {
+        BlockingQueue<Boolean> receipt = new LinkedBlockingQueue<>();
+        receiptable.addReceiptTask(() -> receipt.add(true));
+        assertThat(receipt.poll(10, TimeUnit.SECONDS)).as("subscription receipt").isTrue();
+    }
+
+    @Test
+    @DisplayName("Should deliver a message sent to a room topic to every subscriber of that room only")
+    void shouldFanOutRoomTopics() throws Exception {
+        // given
+        BlockingQueue<String> first = new LinkedBlockingQueue<>();
+        BlockingQueue<String> second = new LinkedBlockingQueue<>();
+        BlockingQueue<String> otherRoom = new LinkedBlockingQueue<>();
+        awaitReceipt(subscribe(connect(), "/topic/chat.room-1", first));
+        awaitReceipt(subscribe(connect(), "/topic/chat.room-1", second));
+        awaitReceipt(subscribe(connect(), "/topic/chat.room-2", otherRoom));
+
+        // when
+        connect().send("/topic/chat.room-1", "hello");
+
+        // then
+        assertThat(first.poll(10, TimeUnit.SECONDS)).isEqualTo("/topic/chat.room-1 hello");
+        assertThat(second.poll(10, TimeUnit.SECONDS)).isEqualTo("/topic/chat.room-1 hello");
+        assertThat(otherRoom.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should deliver a queue message to one subscriber only")
+    void shouldDeliverQueueMessagesOnce() throws Exception {
+        // given
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        awaitReceipt(subscribe(connect(), "/queue/jobs", received));
+        awaitReceipt(subscribe(connect(), "/queue/jobs", received));
+
+        // when
+        connect().send("/queue/jobs", "job-1");
+
+        // then
+        assertThat(received.poll(10, TimeUnit.SECONDS)).isEqualTo("/queue/jobs job-1");
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InboundMessageMetricsTest {
+
+    SimpleMeterRegistry registry;
+    ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        channel = new ExecutorSubscribableChannel();
+        channel.addInterceptor(new InboundMessageMetrics(registry));
+    }
+
+    private static Message<byte[]> stomp(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination("/app/chat.sendMessage");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    @DisplayName("Should time each handler separately, tagged with the STOMP command")
+    void shouldTimeEachHandler() {
+        // given
+        channel.subscribe(new FirstHandler());
+        channel.subscribe(new SecondHandler());
+
+        // when
+        channel.send(stomp(StompCommand.SEND));
+        channel.send(stomp(StompCommand.SEND));
+
+        // then
+        assertThat(registry.get("websocket.inbound.handling")
+                .tags("command", "SEND", "handler", "FirstHandler", "outcome", "success")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("websocket.inbound.handling")
+                .tags("command", "SEND", "handler", "SecondHandler", "outcome", "success")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should tag a frame whose handler failed as an error")
+    void shouldTagFailedHandling() {
+        // given
+        channel.subscribe(message -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // when + then
+        assertThatThrownBy(() -> channel.send(stomp(StompCommand.SUBSCRIBE)))
+                .isInstanceOf(MessageDeliveryException.class);
+        assertThat(registry.get("websocket.inbound.handling")
+                .tags("command", "SUBSCRIBE", "outcome", "error")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the message type for frames without a STOMP command")
+    void shouldTagHeartbeatsByMessageType() {
+        // given
+        channel.subscribe(new FirstHandler());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+
+        // when
+        channel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+        // then
+        assertThat(registry.get("websocket.inbound.handling").tag("command", "HEARTBEAT").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static final class FirstHandler implements MessageHandler {
+
+        @Override
+        public void handleMessage(Message<?> message) {
+        }
+    }
+
+    private static final class SecondHandler implements MessageHandler {
+
+        @Override
+        public void handleMessage(Message<?> message) {
+        }
+    }
+}
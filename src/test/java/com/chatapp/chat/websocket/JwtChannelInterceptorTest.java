@@ -19,6 +19,7 @@ import static org.mockito.Mockito.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.security.Principal;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 class JwtChannelInterceptorTest {
@@ -100,7 +101,7 @@ class JwtChannelInterceptorTest {
         // given
         Message<?> msg = buildMessage(StompCommand.CONNECT, "Bearer token123");
 
-        when(jwtUtils.isValid("token123")).thenReturn(false);
+        when(jwtUtils.validateAndGetSubject("token123")).thenReturn(Optional.empty());
 
         // when
         Message<?> result = subject.preSend(msg, channel);
@@ -116,8 +117,7 @@ class JwtChannelInterceptorTest {
         // given
         Message<?> msg = buildMessage(StompCommand.CONNECT, "Bearer token123");
 
-        when(jwtUtils.isValid("token123")).thenReturn(true);
-        when(jwtUtils.extractUserName("token123")).thenReturn("Alice");
+        when(jwtUtils.validateAndGetSubject("token123")).thenReturn(Optional.of("Alice"));
 
         // when
         Message<?> result = subject.preSend(msg, channel);
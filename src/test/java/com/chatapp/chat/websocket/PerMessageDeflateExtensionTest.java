@@ -0,0 +1,182 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.Extension;
+import org.apache.tomcat.websocket.Constants;
+import org.apache.tomcat.websocket.MessagePart;
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.apache.tomcat.websocket.TransformationFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PerMessageDeflateExtensionTest {
+
+    private static final int RSV1 = 0b100;
+    private static final String CHAT_MESSAGE =
+            "{\"chatId\":\"room-1\",\"sender\":\"alice\",\"content\":\"Hello everyone, how are you doing today?\"}";
+
+    private PerMessageDeflateExtension subject;
+
+    @AfterEach
+    void tearDown() {
+        subject.destroy();
+    }
+
+    private static WebSocketCompressionProperties properties(boolean enabled, boolean contextTakeover) {
+        return new WebSocketCompressionProperties(enabled, 1024, contextTakeover, contextTakeover);
+    }
+
+    private static MessagePart text(String payload) {
+        MessagePart part = mock(MessagePart.class);
+        when(part.getOpCode()).thenReturn(Constants.OPCODE_TEXT);
+        when(part.isFin()).thenReturn(true);
+        when(part.getPayload()).thenReturn(ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+        return part;
+    }
+
+    private static String inflate(ByteBuffer payload) throws Exception {
+        byte[] compressed = new byte[payload.remaining() + 4];
+        payload.duplicate().get(compressed, 0, payload.remaining());
+        compressed[compressed.length - 2] = (byte) 0xff;
+        compressed[compressed.length - 1] = (byte) 0xff;
+
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inflater.inflate(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        inflater.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> parameterNames(Transformation transformation) {
+        return transformation.getExtensionResponse().getParameters().stream()
+                .map(Extension.Parameter::getName)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Should replace Tomcat's permessage-deflate builder and restore it on shutdown")
+    void shouldRegisterWithTomcat() {
+        // given
+        subject = new PerMessageDeflateExtension(properties(true, true));
+
+        // when
+        TransformationFactory factory = TransformationFactory.getInstance();
+        Transformation negotiated = factory.create(PerMessageDeflate.NAME, List.of(List.of()), true);
+        subject.destroy();
+        Transformation restored = factory.create(PerMessageDeflate.NAME, List.of(List.of()), true);
+
+        // then
+        assertThat(negotiated).isInstanceOf(PerMessageDeflateExtension.ThresholdDeflate.class);
+        assertThat(restored).isInstanceOf(PerMessageDeflate.class);
+    }
+
+    @Test
+    @DisplayName("Should decline permessage-deflate when compression is disabled")
+    void shouldDeclineWhenDisabled() {
+        // given
+        subject = new PerMessageDeflateExtension(properties(false, true));
+
+        // when
+        Transformation transformation = subject.build(List.of(List.of()), true);
+
+        // then
+        assertThat(transformation).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer with no_context_takeover parameters when context takeover is off")
+    void shouldDisableContextTakeover() {
+        // given
+        PerMessageDeflateExtension withTakeover = new PerMessageDeflateExtension(properties(true, true));
+        subject = new PerMessageDeflateExtension(properties(true, false));
+
+        // when
+        Transformation defaults = withTakeover.build(List.of(List.of()), true);
+        Transformation withoutTakeover = subject.build(List.of(List.of()), true);
+
+        // then
+        assertThat(parameterNames(defaults)).isEmpty();
+        assertThat(parameterNames(withoutTakeover)).containsExactlyInAnyOrder(
+                PerMessageDeflateExtension.SERVER_NO_CONTEXT_TAKEOVER,
+                PerMessageDeflateExtension.CLIENT_NO_CONTEXT_TAKEOVER
+        );
+    }
+
+    @Test
+    @DisplayName("Should send messages below the minimum size uncompressed")
+    void shouldSkipSmallMessages() throws Exception {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject = new PerMessageDeflateExtension(properties(true, true));
+        subject.bindTo(registry);
+        Transformation transformation = subject.build(List.of(List.of()), true);
+        MessagePart typing = text(CHAT_MESSAGE);
+
+        // when
+        List<MessagePart> sent = transformation.sendMessagePart(List.of(typing));
+
+        // then
+        assertThat(sent).containsExactly(typing);
+        assertThat(registry.get("websocket.compression.messages").tag("result", "skipped").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should deflate messages from the minimum size on and record size and time")
+    void shouldCompressLargeMessages() throws Exception {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject = new PerMessageDeflateExtension(properties(true, true));
+        subject.bindTo(registry);
+        Transformation transformation = subject.build(List.of(List.of()), true);
+        String history = "[" + String.join(",", Collections.nCopies(30, CHAT_MESSAGE)) + "]";
+
+        // when
+        List<MessagePart> sent = transformation.sendMessagePart(List.of(text(history)));
+
+        // then
+        assertThat(sent).hasSize(1);
+        assertThat(sent.getFirst().getRsv() & RSV1).isEqualTo(RSV1);
+        assertThat(inflate(sent.getFirst().getPayload())).isEqualTo(history);
+
+        double original = registry.get("websocket.compression.bytes").tag("size", "original").counter().count();
+        double compressed = registry.get("websocket.compression.bytes").tag("size", "compressed").counter().count();
+        assertThat(original).isEqualTo(history.length());
+        assertThat(compressed).isEqualTo(sent.getFirst().getPayload().remaining()).isLessThan(original / 5);
+        assertThat(registry.get("websocket.compression.ratio").summary().mean()).isEqualTo(compressed / original);
+        assertThat(registry.get("websocket.compression.deflate").timer().count()).isEqualTo(1);
+        assertThat(registry.get("websocket.compression.messages").tag("result", "compressed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave client connections to Tomcat's permessage-deflate")
+    void shouldNotChangeClientSide() {
+        // given
+        subject = new PerMessageDeflateExtension(properties(false, false));
+
+        // when
+        Transformation transformation = subject.build(List.of(List.of()), false);
+
+        // then
+        assertThat(transformation).isInstanceOf(PerMessageDeflate.class);
+    }
+}
@@ -0,0 +1,405 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.chat.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedBrokerMessageHandlerTest {
+
+    @Mock
+    SubscribableChannel clientInboundChannel;
+
+    @Mock
+    SubscribableChannel brokerChannel;
+
+    BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+
+    MessageChannel clientOutboundChannel = (message, timeout) -> sent.add(message);
+
+    ShardedBrokerMessageHandler subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new ShardedBrokerMessageHandler(
+                clientInboundChannel, clientOutboundChannel, brokerChannel, List.of("/topic"), 4
+        );
+        subject.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        subject.stop();
+    }
+
+    private Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination,
+                                  String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        subject.handleMessage(frame(SimpMessageType.SUBSCRIBE, sessionId, subscriptionId, destination, ""));
+    }
+
+    private void publish(String destination, String payload) {
+        subject.handleMessage(frame(SimpMessageType.MESSAGE, null, null, destination, payload));
+    }
+
+    private List<Message<?>> receive(int count) throws InterruptedException {
+        List<Message<?>> received = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message<?> message = sent.poll(2, TimeUnit.SECONDS);
+            assertThat(message).as("message %d of %d", i + 1, count).isNotNull();
+            received.add(message);
+        }
+        return received;
+    }
+
+    private void subscribeCbor(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(CborMessageConverter.APPLICATION_CBOR);
+        subject.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private void publishJson(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        subject.handleMessage(MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders()));
+    }
+
+    private static String body(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should deliver a broadcast only to subscribers of that room")
+    void shouldDeliverOnlyToRoomSubscribers() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s2", "sub-2", "/topic/chat.room-1");
+        subscribe("s3", "sub-3", "/topic/chat.room-2");
+
+        // when
+        publish("/topic/chat.room-1", "hello");
+
+        // then
+        List<Message<?>> received = receive(2);
+        assertThat(received)
+                .extracting(m -> SimpMessageHeaderAccessor.getSessionId(m.getHeaders()))
+                .containsExactlyInAnyOrder("s1", "s2");
+        assertThat(received)
+                .extracting(m -> SimpMessageHeaderAccessor.getSubscriptionId(m.getHeaders()))
+                .containsExactlyInAnyOrder("sub-1", "sub-2");
+        assertThat(received)
+                .allSatisfy(m -> {
+                    assertThat(SimpMessageHeaderAccessor.getMessageType(m.getHeaders()))
+                            .isEqualTo(SimpMessageType.MESSAGE);
+                    assertThat(SimpMessageHeaderAccessor.getDestination(m.getHeaders()))
+                            .isEqualTo("/topic/chat.room-1");
+                    assertThat(body(m)).isEqualTo("hello");
+                });
+        assertThat(sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should encode a broadcast once and share its body with every recipient")
+    void shouldShareOneFramePerBroadcast() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s2", "sub-2", "/topic/chat.room-1");
+
+        // when
+        publish("/topic/chat.room-1", "hello");
+
+        // then
+        List<Message<?>> received = receive(2);
+        BroadcastFrame frame = (BroadcastFrame) received.get(0).getHeaders().get(BroadcastFrame.HEADER);
+        assertThat(frame).isNotNull();
+        assertThat(received).allSatisfy(m -> {
+            assertThat(m.getHeaders().get(BroadcastFrame.HEADER)).isSameAs(frame);
+            assertThat(m.getPayload()).isSameAs(frame.payload());
+            assertThat(StompHeaderAccessor.getCommand(m.getHeaders())).isEqualTo(StompCommand.MESSAGE);
+        });
+        assertThat(received)
+                .extracting(m -> StompHeaderAccessor.wrap(m).getMessageId())
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Should copy a broadcast without a byte[] body per recipient")
+    void shouldCopyNonBinaryBroadcast() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/chat.room-1");
+
+        // when
+        subject.handleMessage(MessageBuilder.createMessage("text", accessor.getMessageHeaders()));
+
+        // then
+        Message<?> received = receive(1).get(0);
+        assertThat(received.getPayload()).isEqualTo("text");
+        assertThat(received.getHeaders()).doesNotContainKey(BroadcastFrame.HEADER);
+        assertThat(SimpMessageHeaderAccessor.getSubscriptionId(received.getHeaders())).isEqualTo("sub-1");
+    }
+
+    @Test
+    @DisplayName("Should keep publish order within a room")
+    void shouldPreserveOrderWithinRoom() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+
+        // when
+        for (int i = 0; i < 500; i++) {
+            publish("/topic/chat.room-1", "m" + i);
+        }
+
+        // then
+        List<String> bodies = receive(500).stream().map(ShardedBrokerMessageHandlerTest::body).toList();
+        for (int i = 0; i < 500; i++) {
+            assertThat(bodies.get(i)).isEqualTo("m" + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Should stop delivering after UNSUBSCRIBE")
+    void shouldStopDeliveringAfterUnsubscribe() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+
+        // when
+        subject.handleMessage(frame(SimpMessageType.UNSUBSCRIBE, "s1", "sub-1", null, ""));
+        publish("/topic/chat.room-1", "hello");
+
+        // then
+        assertThat(subject.subscriptionCount("/topic/chat.room-1")).isZero();
+        assertThat(subject.sessionCount()).isZero();
+        assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should time broadcasts and report recipients, sessions and subscriptions once bound to a registry")
+    void shouldPublishBrokerMetrics() throws InterruptedException {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject.bindTo(registry);
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s2", "sub-2", "/topic/chat.room-1");
+        subscribe("s2", "sub-3", "/topic/chat.room-2");
+
+        // when
+        publish("/topic/chat.room-1", "hello");
+        receive(2);
+        subject.stop();
+
+        // then
+        assertThat(registry.get("websocket.broker.sessions").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("websocket.broker.subscriptions").gauge().value()).isEqualTo(3.0);
+        assertThat(registry.get("websocket.broker.destinations").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("websocket.broker.lane.wait").timer().count()).isEqualTo(1);
+        assertThat(registry.get("websocket.broker.broadcast").timer().count()).isEqualTo(1);
+        assertThat(registry.get("websocket.broker.broadcast.recipients").summary().totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should remove every subscription of a session on DISCONNECT")
+    void shouldRemoveSessionOnDisconnect() {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribe("s1", "sub-2", "/topic/chat.room-2");
+        subscribe("s2", "sub-3", "/topic/chat.room-1");
+
+        // when
+        subject.handleMessage(frame(SimpMessageType.DISCONNECT, "s1", null, null, ""));
+
+        // then
+        assertThat(subject.subscriptionCount("/topic/chat.room-1")).isEqualTo(1);
+        assertThat(subject.subscriptionCount("/topic/chat.room-2")).isZero();
+        assertThat(subject.sessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should deliver to pattern subscriptions")
+    void shouldDeliverToPatternSubscriptions() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/topic/chat.*");
+
+        // when
+        publish("/topic/chat.room-7", "hello");
+
+        // then
+        Message<?> received = receive(1).get(0);
+        assertThat(SimpMessageHeaderAccessor.getSubscriptionId(received.getHeaders())).isEqualTo("sub-1");
+        assertThat(subject.subscriptionCount("/topic/chat.*")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should leave CONNECT and destinations outside its prefixes to other brokers")
+    void shouldIgnoreConnectAndForeignDestinations() throws InterruptedException {
+        // given
+        subscribe("s1", "sub-1", "/queue/errors");
+
+        // when
+        subject.handleMessage(frame(SimpMessageType.CONNECT, "s1", null, null, ""));
+        publish("/queue/errors", "hello");
+
+        // then
+        assertThat(subject.sessionCount()).isZero();
+        assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reuse one ordered outbound channel per session when publish order is preserved")
+    void shouldReuseOrderedChannelPerSession() {
+        // given
+        ShardedBrokerMessageHandler ordered = new ShardedBrokerMessageHandler(
+                clientInboundChannel, new ExecutorSubscribableChannel(), brokerChannel, List.of("/topic"), 1
+        );
+        ordered.setPreservePublishOrder(true);
+
+        // when
+        MessageChannel first = ordered.getClientOutboundChannelForSession("s1");
+        MessageChannel second = ordered.getClientOutboundChannelForSession("s1");
+        MessageChannel other = ordered.getClientOutboundChannelForSession("s2");
+
+        // then
+        assertThat(first).isSameAs(second).isNotSameAs(other);
+        assertThat(subject.getClientOutboundChannelForSession("s1")).isSameAs(clientOutboundChannel);
+    }
+
+    @Test
+    @DisplayName("Should deliver JSON broadcasts in CBOR to subscriptions that asked for it, transcoded once")
+    void shouldTranscodeForCborSubscriptions() throws Exception {
+        // given
+        CborMessageConverter cbor = new CborMessageConverter(new Jackson2ObjectMapperBuilder());
+        subject.setCborConverter(cbor);
+        subscribe("s1", "sub-1", "/topic/chat.room-1");
+        subscribeCbor("s2", "sub-2", "/topic/chat.room-1");
+        subscribeCbor("s3", "sub-3", "/topic/chat.room-1");
+
+        // when
+        publishJson("/topic/chat.room-1", "{\"chatId\":\"room-1\",\"sender\":\"alice\",\"content\":\"hi\"}");
+
+        // then
+        List<Message<?>> received = receive(3);
+        Message<?> json = received.stream()
+                .filter(m -> "s1".equals(SimpMessageHeaderAccessor.getSessionId(m.getHeaders())))
+                .findFirst().orElseThrow();
+        List<Message<?>> binary = received.stream().filter(m -> m != json).toList();
+
+        assertThat(body(json)).startsWith("{");
+        assertThat(binary).allSatisfy(m -> {
+            assertThat(SimpMessageHeaderAccessor.getFirstNativeHeader("content-type", m.getHeaders()))
+                    .isEqualTo("application/cbor");
+            assertThat(m.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                    .as("sent as a binary WebSocket message")
+                    .isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            ChatMessage decoded = cbor.getObjectMapper().readValue((byte[]) m.getPayload(), ChatMessage.class);
+            assertThat(decoded.getSender()).isEqualTo("alice");
+            assertThat(decoded.getContent()).isEqualTo("hi");
+        });
+        assertThat(binary.get(0).getPayload()).isSameAs(binary.get(1).getPayload());
+    }
+
+    @Test
+    @DisplayName("Should send the published payload to CBOR subscriptions when it is not JSON")
+    void shouldNotTranscodeNonJsonPayloads() throws InterruptedException {
+        // given
+        subject.setCborConverter(new CborMessageConverter(new Jackson2ObjectMapperBuilder()));
+        subscribeCbor("s1", "sub-1", "/topic/chat.room-1");
+
+        // when
+        publish("/topic/chat.room-1", "plain text");
+
+        // then
+        assertThat(body(receive(1).getFirst())).isEqualTo("plain text");
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive lane count")
+    void shouldRejectNonPositiveLaneCount() {
+        // when + then
+        assertThatThrownBy(() -> new ShardedBrokerMessageHandler(
+                clientInboundChannel, clientOutboundChannel, brokerChannel, List.of("/topic"), 0
+        ))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("lane count");
+    }
+
+    @Test
+    @DisplayName("Should drop and count broadcasts once a lane's queue is full, and report queued broadcasts")
+    void shouldBoundLaneQueue() throws Exception {
+        // given
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MessageChannel blockingChannel = (message, timeout) -> {
+            sending.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS) && sent.add(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+        ShardedBrokerMessageHandler bounded = new ShardedBrokerMessageHandler(
+                clientInboundChannel, blockingChannel, brokerChannel, List.of("/topic"), 1, 2
+        );
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bounded.bindTo(registry);
+        bounded.start();
+        bounded.handleMessage(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-1", "/topic/chat.1", ""));
+
+        // when
+        bounded.handleMessage(frame(SimpMessageType.MESSAGE, null, null, "/topic/chat.1", "m0"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            bounded.handleMessage(frame(SimpMessageType.MESSAGE, null, null, "/topic/chat.1", "m" + i));
+        }
+        double queued = registry.get("websocket.broker.lane.queued").tag("lane", "0").gauge().value();
+        release.countDown();
+
+        // then
+        assertThat(receive(3)).extracting(ShardedBrokerMessageHandlerTest::body).containsExactly("m0", "m1", "m2");
+        assertThat(queued).isEqualTo(2);
+        assertThat(registry.get("websocket.broker.lane.dropped").counter().count()).isEqualTo(2);
+        bounded.stop();
+    }
+}
@@ -0,0 +1,108 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.websocket.WebSocketTransportProperties.SlowConsumerPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerDecoratorFactoryTest {
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SlowConsumerDecoratorFactory subject;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        subject.destroy();
+    }
+
+    private static WebSocketTransportProperties properties(int sendBufferSizeLimit) {
+        return new WebSocketTransportProperties(65536, 10_000, sendBufferSizeLimit, 60_000, SlowConsumerPolicy.DISCONNECT);
+    }
+
+    private WebSocketSession blockingSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    @Test
+    @DisplayName("Should hand the decorated session to the handler for the whole connection")
+    void shouldDecorateSession() throws Exception {
+        // given
+        subject = new SlowConsumerDecoratorFactory(properties(1024));
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler decorated = subject.decorate(handler);
+        WebSocketSession session = blockingSession();
+        TextMessage message = new TextMessage("CONNECT\n\n\0");
+
+        // when
+        decorated.afterConnectionEstablished(session);
+        decorated.handleMessage(session, message);
+        decorated.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        // then
+        ArgumentCaptor<WebSocketSession> established = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(established.capture());
+        assertThat(established.getValue()).isInstanceOf(SlowConsumerSessionDecorator.class);
+        verify(handler).handleMessage(established.getValue(), message);
+        verify(handler).afterConnectionClosed(established.getValue(), CloseStatus.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Should report buffered bytes and count overflow disconnects")
+    void shouldReportBuffersAndOverflows() throws Exception {
+        // given
+        subject = new SlowConsumerDecoratorFactory(properties(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subject.bindTo(registry);
+
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketSession session = blockingSession();
+        subject.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> established = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(established.capture());
+        WebSocketSession decorated = established.getValue();
+
+        // when
+        decorated.sendMessage(new TextMessage("first"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        decorated.sendMessage(new TextMessage("12345678"));
+
+        // then
+        assertThat(registry.get("websocket.session.buffer.bytes").gauge().value()).isEqualTo(8);
+        assertThat(registry.get("websocket.session.buffer.max").gauge().value()).isEqualTo(8);
+        assertThat(registry.get("websocket.session.buffer.sessions").gauge().value()).isEqualTo(1);
+
+        assertThatThrownBy(() -> decorated.sendMessage(new TextMessage("overflow")))
+                .isInstanceOf(SessionLimitExceededException.class);
+        assertThat(registry.get("websocket.session.overflow.disconnects").tag("limit", "buffer").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("websocket.session.buffer.sessions").gauge().value()).isZero();
+    }
+}
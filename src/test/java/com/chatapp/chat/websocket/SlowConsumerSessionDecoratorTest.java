@@ -0,0 +1,293 @@
+package com.chatapp.chat.websocket;
+
+import com.chatapp.chat.websocket.WebSocketTransportProperties.SlowConsumerPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerSessionDecoratorTest {
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+    private final List<String> overflows = new CopyOnWriteArrayList<>();
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private WebSocketSession session;
+
+    private final SlowConsumerSessionDecorator.OverflowListener listener =
+            new SlowConsumerSessionDecorator.OverflowListener() {
+                @Override
+                public void dropped(int messages) {
+                    overflows.add("dropped " + messages);
+                }
+
+                @Override
+                public void coalesced(int messages) {
+                    overflows.add("coalesced " + messages);
+                }
+
+                @Override
+                public void disconnected(String limit) {
+                    overflows.add("disconnected " + limit);
+                }
+            };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            sent.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        sender.shutdownNow();
+    }
+
+    private SlowConsumerSessionDecorator decorator(SlowConsumerPolicy policy, int bufferSizeLimit) {
+        return decorator(policy, bufferSizeLimit, List.of());
+    }
+
+    private SlowConsumerSessionDecorator decorator(
+            SlowConsumerPolicy policy,
+            int bufferSizeLimit,
+            List<String> droppableDestinations
+    ) {
+        return new SlowConsumerSessionDecorator(
+                session, sender, 10_000, bufferSizeLimit, policy, droppableDestinations, listener);
+    }
+
+    /**
+     * Sends a first message and waits until the sender thread is stuck writing it.
+     */
+    private static void block(SlowConsumerSessionDecorator subject, CountDownLatch sending) throws Exception {
+        subject.sendMessage(new TextMessage("first"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static TextMessage frame(String subscription, String destination, String body) {
+        return new TextMessage("MESSAGE\nsubscription:" + subscription + "\ndestination:" + destination
+                + "\nmessage-id:1\n\n" + body + "\0");
+    }
+
+    private List<String> receive(int count) throws InterruptedException {
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String message = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(message).as("message %d of %d", i + 1, count).isNotNull();
+            received.add(message);
+        }
+        assertThat(sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        return received;
+    }
+
+    private static List<String> bodies(List<String> frames) {
+        List<String> bodies = new ArrayList<>();
+        for (String frame : frames) {
+            int start = frame.indexOf("\n\n");
+            bodies.add(start < 0 ? frame : frame.substring(start + 2, frame.length() - 1));
+        }
+        return bodies;
+    }
+
+    @Test
+    @DisplayName("Should return immediately and send messages in order on the sender thread")
+    void shouldSendInOrder() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.DISCONNECT, 1024);
+
+        // when
+        block(subject, sending);
+        subject.sendMessage(new TextMessage("second"));
+        subject.sendMessage(new TextMessage("third"));
+        int buffered = subject.getBufferSize();
+        release.countDown();
+
+        // then
+        assertThat(buffered).isEqualTo("secondthird".length());
+        assertThat(receive(3)).containsExactly("first", "second", "third");
+        assertThat(subject.getBufferSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should disconnect a session whose buffer exceeds the limit under the DISCONNECT policy")
+    void shouldDisconnect() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.DISCONNECT, 10);
+        block(subject, sending);
+        subject.sendMessage(new TextMessage("0123456789"));
+
+        // when + then
+        assertThatThrownBy(() -> subject.sendMessage(new TextMessage("overflow")))
+                .isInstanceOf(SessionLimitExceededException.class)
+                .extracting(e -> ((SessionLimitExceededException) e).getStatus())
+                .isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(overflows).containsExactly("disconnected buffer");
+        assertThat(subject.getBufferSize()).isZero();
+
+        subject.sendMessage(new TextMessage("after"));
+        release.countDown();
+        assertThat(receive(1)).containsExactly("first");
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest buffered messages under the DROP_OLDEST policy")
+    void shouldDropOldest() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.DROP_OLDEST, 10);
+        block(subject, sending);
+
+        // when
+        for (String message : List.of("aaaa", "bbbb", "cccc", "dddd")) {
+            subject.sendMessage(new TextMessage(message));
+        }
+        release.countDown();
+
+        // then
+        assertThat(receive(3)).containsExactly("first", "cccc", "dddd");
+        assertThat(overflows).containsExactly("dropped 1", "dropped 1");
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest message per subscription and destination under the COALESCE policy")
+    void shouldCoalesce() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.COALESCE, 200);
+        block(subject, sending);
+
+        // when
+        subject.sendMessage(frame("sub-1", "/topic/chat.a", "a1"));
+        subject.sendMessage(frame("sub-2", "/topic/chat.b", "b1"));
+        subject.sendMessage(frame("sub-1", "/topic/chat.a", "a2"));
+        subject.sendMessage(frame("sub-1", "/topic/chat.a", "a3"));
+        release.countDown();
+
+        // then
+        assertThat(bodies(receive(3))).containsExactly("first", "b1", "a3");
+        assertThat(overflows).containsExactly("coalesced 1", "coalesced 1");
+    }
+
+    @Test
+    @DisplayName("Should discard droppable messages before the policy disconnects the session")
+    void shouldDropDroppableFirst() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.DISCONNECT, 220, List.of("/topic/typing."));
+        block(subject, sending);
+
+        // when
+        subject.sendMessage(frame("sub-1", "/topic/typing.a", "t1"));
+        subject.sendMessage(frame("sub-2", "/topic/chat.a", "a1"));
+        subject.sendMessage(frame("sub-1", "/topic/typing.a", "t2"));
+        subject.sendMessage(frame("sub-2", "/topic/chat.a", "a2"));
+        release.countDown();
+
+        // then
+        assertThat(bodies(receive(4))).containsExactly("first", "a1", "t2", "a2");
+        assertThat(overflows).containsExactly("dropped 1");
+    }
+
+    @Test
+    @DisplayName("Should disconnect a session stuck on one send for longer than the send time limit")
+    void shouldDisconnectOnSendTimeLimit() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject =
+                new SlowConsumerSessionDecorator(
+                        session, sender, 50, 1024, SlowConsumerPolicy.DROP_OLDEST, List.of(), listener);
+        block(subject, sending);
+        Thread.sleep(100);
+
+        // when + then
+        assertThatThrownBy(() -> subject.sendMessage(new TextMessage("late")))
+                .isInstanceOf(SessionLimitExceededException.class);
+        assertThat(overflows).containsExactly("disconnected time");
+    }
+
+    @Test
+    @DisplayName("Should close the session when a send fails")
+    void shouldCloseOnSendFailure() throws Exception {
+        // given
+        WebSocketSession failing = mock(WebSocketSession.class);
+        doAnswer(invocation -> {
+            throw new IOException("broken pipe");
+        }).when(failing).sendMessage(any());
+        SlowConsumerSessionDecorator subject =
+                new SlowConsumerSessionDecorator(
+                        failing, sender, 10_000, 1024, SlowConsumerPolicy.DISCONNECT, List.of(), listener);
+
+        // when
+        subject.sendMessage(new TextMessage("lost"));
+
+        // then
+        verify(failing, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    @DisplayName("Should write what is buffered before closing, unless the session is closed as not reliable")
+    void shouldFlushBeforeClosing() throws Exception {
+        // given
+        SlowConsumerSessionDecorator subject = decorator(SlowConsumerPolicy.DISCONNECT, 1024);
+        block(subject, sending);
+        subject.sendMessage(new TextMessage("ERROR"));
+
+        // when
+        subject.close(CloseStatus.PROTOCOL_ERROR);
+        subject.sendMessage(new TextMessage("after close"));
+        release.countDown();
+
+        // then
+        assertThat(receive(2)).containsExactly("first", "ERROR");
+        verify(session, timeout(5000)).close(CloseStatus.PROTOCOL_ERROR);
+    }
+
+    @Test
+    @DisplayName("Should read subscription and destination of MESSAGE frames only")
+    void shouldReadCoalescingKey() {
+        // given
+        WebSocketMessage<?> text = frame("sub-1", "/topic/chat.a", "{}");
+        WebSocketMessage<?> binary = new BinaryMessage(
+                "MESSAGE\r\ndestination:/topic/chat.b\r\nsubscription:sub-2\r\n\r\n\0".getBytes(StandardCharsets.UTF_8));
+        WebSocketMessage<?> receipt = new TextMessage("RECEIPT\nreceipt-id:1\n\n\0");
+        WebSocketMessage<?> heartbeat = new TextMessage("\n");
+
+        // when + then
+        assertThat(SlowConsumerSessionDecorator.coalescingKey(text)).isEqualTo("sub-1\n/topic/chat.a");
+        assertThat(SlowConsumerSessionDecorator.coalescingKey(binary)).isEqualTo("sub-2\n/topic/chat.b");
+        assertThat(SlowConsumerSessionDecorator.coalescingKey(receipt)).isNull();
+        assertThat(SlowConsumerSessionDecorator.coalescingKey(heartbeat)).isNull();
+    }
+}
@@ -0,0 +1,208 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompRateLimitInterceptorTest {
+
+    private static final String SEND_MESSAGE = "/app/chat.sendMessage";
+    private static final String TYPING = "/app/chat.typing";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final List<Message<?>> sentToClients = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private StompRateLimitInterceptor interceptor(StompRateLimitProperties.ExceededAction action) {
+        StompRateLimitProperties properties = new StompRateLimitProperties(
+                true,
+                action,
+                new StompRateLimitProperties.Rule(2, 3, 0, 0),
+                Map.of(TYPING, new StompRateLimitProperties.Rule(0, 0, 1, 2)),
+                1000
+        );
+        MessageChannel outbound = (message, timeout) -> sentToClients.add(message);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MessageChannel> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(outbound);
+        return new StompRateLimitInterceptor(properties, provider, clock, registry);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String destination, String user,
+                                         String receipt) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        if (user != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, null));
+        }
+        if (receipt != null) {
+            accessor.setReceipt(receipt);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static long accepted(StompRateLimitInterceptor subject, int frames, String sessionId, String destination,
+                                 String user) {
+        return IntStream.range(0, frames)
+                .filter(i -> subject.preSend(frame(StompCommand.SEND, sessionId, destination, user, null), null) != null)
+                .count();
+    }
+
+    @Test
+    @DisplayName("Should let a session send its burst, then one frame per refill interval")
+    void shouldLimitEachSession() {
+        // given
+        StompRateLimitInterceptor subject = interceptor(StompRateLimitProperties.ExceededAction.REJECT);
+
+        // when
+        long burst = accepted(subject, 10, "s1", SEND_MESSAGE, "alice");
+        long otherSession = accepted(subject, 10, "s2", SEND_MESSAGE, "alice");
+        clock.advance(Duration.ofMillis(500));
+        long afterHalfSecond = accepted(subject, 10, "s1", SEND_MESSAGE, "alice");
+
+        // then
+        assertThat(burst).isEqualTo(3);
+        assertThat(otherSession).isEqualTo(3);
+        assertThat(afterHalfSecond).isEqualTo(1);
+        assertThat(registry.get("websocket.inbound.throttled")
+                .tags("scope", "session", "rule", "default")
+                .counter().count()).isEqualTo(23);
+    }
+
+    @Test
+    @DisplayName("Should share a user's bucket between their sessions and keep destinations apart")
+    void shouldLimitUserAcrossSessions() {
+        // given
+        StompRateLimitInterceptor subject = interceptor(StompRateLimitProperties.ExceededAction.REJECT);
+
+        // when
+        long firstSession = accepted(subject, 5, "s1", TYPING, "alice");
+        long secondSession = accepted(subject, 5, "s2", TYPING, "alice");
+        long otherUser = accepted(subject, 5, "s3", TYPING, "bob");
+        long otherDestination = accepted(subject, 5, "s1", SEND_MESSAGE, "alice");
+
+        // then
+        assertThat(firstSession).isEqualTo(2);
+        assertThat(secondSession).isZero();
+        assertThat(otherUser).isEqualTo(2);
+        assertThat(otherDestination).isEqualTo(3);
+        assertThat(registry.get("websocket.inbound.throttled")
+                .tags("scope", "user", "rule", TYPING)
+                .counter().count()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Should answer a throttled frame's receipt request with a rate-limited receipt")
+    void shouldReceiptThrottledFrame() {
+        // given
+        StompRateLimitInterceptor subject = interceptor(StompRateLimitProperties.ExceededAction.REJECT);
+        accepted(subject, 4, "s1", SEND_MESSAGE, "alice");
+
+        // when
+        Message<?> result = subject.preSend(frame(StompCommand.SEND, "s1", SEND_MESSAGE, "alice", "r-7"), null);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(sentToClients).hasSize(1);
+        StompHeaderAccessor receipt = StompHeaderAccessor.wrap(sentToClients.get(0));
+        assertThat(receipt.getCommand()).isEqualTo(StompCommand.RECEIPT);
+        assertThat(receipt.getSessionId()).isEqualTo("s1");
+        assertThat(receipt.getReceiptId()).isEqualTo("r-7");
+        assertThat(receipt.getFirstNativeHeader("rate-limited")).isEqualTo("session");
+        assertThat(receipt.getFirstNativeHeader("retry-after-ms")).isEqualTo("500");
+    }
+
+    @Test
+    @DisplayName("Should send an ERROR frame to a throttled session when set to disconnect")
+    void shouldSendErrorWhenDisconnecting() {
+        // given
+        StompRateLimitInterceptor subject = interceptor(StompRateLimitProperties.ExceededAction.DISCONNECT);
+
+        // when
+        long accepted = accepted(subject, 4, "s1", SEND_MESSAGE, "alice");
+
+        // then
+        assertThat(accepted).isEqualTo(3);
+        assertThat(sentToClients).hasSize(1);
+        StompHeaderAccessor error = StompHeaderAccessor.wrap(sentToClients.get(0));
+        assertThat(error.getCommand()).isEqualTo(StompCommand.ERROR);
+        assertThat(error.getMessage()).isEqualTo("Rate limit exceeded");
+        assertThat(error.getFirstNativeHeader("rate-limited")).isEqualTo("session");
+    }
+
+    @Test
+    @DisplayName("Should forget a session's buckets on DISCONNECT and leave other frames alone")
+    void shouldForgetSessionOnDisconnect() {
+        // given
+        StompRateLimitInterceptor subject = interceptor(StompRateLimitProperties.ExceededAction.REJECT);
+        accepted(subject, 3, "s1", SEND_MESSAGE, "alice");
+
+        // when
+        Message<?> subscribe = subject.preSend(frame(StompCommand.SUBSCRIBE, "s1", "/topic/chat.1", "alice", null), null);
+        subject.preSend(frame(StompCommand.DISCONNECT, "s1", null, "alice", null), null);
+        long afterReconnect = accepted(subject, 1, "s1", SEND_MESSAGE, "alice");
+
+        // then
+        assertThat(subscribe).isNotNull();
+        assertThat(afterReconnect).isEqualTo(1);
+        assertThat(sentToClients).isEmpty();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
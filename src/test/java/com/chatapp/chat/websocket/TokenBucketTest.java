@@ -0,0 +1,82 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Should allow a full burst, then refill at the configured rate")
+    void shouldAllowBurstThenRefill() {
+        // given
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long start = 42 * SECOND;
+
+        // when
+        long burst = IntStream.range(0, 10).filter(i -> bucket.tryConsume(start)).count();
+        boolean afterOneInterval = bucket.tryConsume(start + SECOND / 10);
+        boolean twiceInOneInterval = bucket.tryConsume(start + SECOND / 10);
+        long afterIdleSecond = IntStream.range(0, 10).filter(i -> bucket.tryConsume(start + 2 * SECOND)).count();
+
+        // then
+        assertThat(burst).isEqualTo(5);
+        assertThat(afterOneInterval).isTrue();
+        assertThat(twiceInOneInterval).isFalse();
+        assertThat(afterIdleSecond).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should tell how long until the next token")
+    void shouldTellTimeUntilNextToken() {
+        // given
+        TokenBucket bucket = new TokenBucket(4, 2);
+
+        // when
+        long beforeConsuming = bucket.nanosUntilNextToken(0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        // then
+        assertThat(beforeConsuming).isZero();
+        assertThat(bucket.nanosUntilNextToken(0)).isEqualTo(SECOND / 4);
+        assertThat(bucket.nanosUntilNextToken(SECOND / 4)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand out exactly the burst to concurrent consumers")
+    void shouldNotOverspendUnderContention() throws Exception {
+        // given
+        TokenBucket bucket = new TokenBucket(1, 1000);
+        AtomicInteger granted = new AtomicInteger();
+
+        // when
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            Future<?>[] tasks = IntStream.range(0, 8)
+                    .mapToObj(t -> executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            if (bucket.tryConsume(0)) {
+                                granted.incrementAndGet();
+                            }
+                        }
+                    }))
+                    .toArray(Future[]::new);
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+
+        // then
+        assertThat(granted).hasValue(1000);
+    }
+}
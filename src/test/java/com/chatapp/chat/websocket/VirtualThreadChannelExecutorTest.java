@@ -0,0 +1,89 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadChannelExecutorTest {
+
+    @Test
+    @DisplayName("Should run tasks on named virtual threads")
+    void shouldRunTasksOnVirtualThreads() throws Exception {
+        // given
+        VirtualThreadChannelExecutor subject = new VirtualThreadChannelExecutor("ws-inbound-", 0);
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+        // when
+        subject.execute(() -> thread.complete(Thread.currentThread()));
+
+        // then
+        Thread used = thread.get(2, TimeUnit.SECONDS);
+        assertThat(used.isVirtual()).isTrue();
+        assertThat(used.getName()).startsWith("ws-inbound-");
+    }
+
+    @Test
+    @DisplayName("Should count running tasks as active")
+    void shouldCountActiveTasks() throws Exception {
+        // given
+        VirtualThreadChannelExecutor subject = new VirtualThreadChannelExecutor("ws-inbound-", 0);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            subject.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        started.await(2, TimeUnit.SECONDS);
+
+        // then
+        assertThat(subject.active()).isEqualTo(2);
+        assertThat(subject.waiting()).isZero();
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should block the sender and count it as waiting once the concurrency limit is reached")
+    void shouldCountWaitingTasksAtConcurrencyLimit() throws Exception {
+        // given
+        VirtualThreadChannelExecutor subject = new VirtualThreadChannelExecutor("ws-inbound-", 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        subject.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(2, TimeUnit.SECONDS);
+
+        // when
+        Thread sender = Thread.ofVirtual().start(() -> subject.execute(() -> { }));
+        while (subject.waiting() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // then
+        assertThat(subject.waiting()).isEqualTo(1);
+        assertThat(sender.isAlive()).isTrue();
+
+        release.countDown();
+        sender.join(2_000);
+        assertThat(sender.isAlive()).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.chatapp.chat.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebSocketChannelMetricsTest {
+
+    private static ObjectProvider<ExecutorSubscribableChannel> provider(ExecutorSubscribableChannel channel) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (channel != null) {
+            beanFactory.addBean("channel", channel);
+        }
+        return beanFactory.getBeanProvider(ExecutorSubscribableChannel.class);
+    }
+
+    private static ObjectProvider<WebSocketHandler> handler(WebSocketHandler handler) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (handler != null) {
+            beanFactory.addBean("subProtocolWebSocketHandler", handler);
+        }
+        return beanFactory.getBeanProvider(WebSocketHandler.class);
+    }
+
+    @Test
+    @DisplayName("Should report queue depth and active threads of a pooled channel")
+    void shouldReportPooledChannel() throws InterruptedException {
+        // given
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(10);
+        pool.initialize();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        pool.execute(() -> { });
+        pool.execute(() -> { });
+        started.await(2, TimeUnit.SECONDS);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketChannelMetrics subject = new WebSocketChannelMetrics(
+                provider(new ExecutorSubscribableChannel(pool)), provider(null), handler(null)
+        );
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.channel.queued").tag("channel", "inbound").gauge().value())
+                .isEqualTo(2.0);
+        assertThat(registry.get("websocket.channel.active").tag("channel", "inbound").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(registry.get("websocket.channel.queued").tag("channel", "outbound").gauge().value())
+                .isZero();
+
+        release.countDown();
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should report waiting and active messages of a virtual thread channel")
+    void shouldReportVirtualThreadChannel() throws InterruptedException {
+        // given
+        VirtualThreadChannelExecutor executor = new VirtualThreadChannelExecutor("ws-outbound-", 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(2, TimeUnit.SECONDS);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketChannelMetrics subject = new WebSocketChannelMetrics(
+                provider(null), provider(new ExecutorSubscribableChannel(executor)), handler(null)
+        );
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.channel.active").tag("channel", "outbound").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(registry.get("websocket.channel.queued").tag("channel", "outbound").gauge().value())
+                .isZero();
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should add messages waiting behind their chat to the queue depth of an ordered channel")
+    void shouldReportOrderedChannel() throws InterruptedException {
+        // given
+        VirtualThreadChannelExecutor executor = new VirtualThreadChannelExecutor("ws-inbound-", 0);
+        ChatOrderedChannelExecutor ordered = new ChatOrderedChannelExecutor(executor, message -> "room-1");
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(ordered);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        channel.subscribe(message -> {
+            started.countDown();
+            await(release);
+        });
+        channel.send(MessageBuilder.withPayload("first").build());
+        started.await(2, TimeUnit.SECONDS);
+        channel.send(MessageBuilder.withPayload("second").build());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketChannelMetrics subject = new WebSocketChannelMetrics(provider(channel), provider(null), handler(null));
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.channel.queued").tag("channel", "inbound").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(registry.get("websocket.channel.active").tag("channel", "inbound").gauge().value())
+                .isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should report open WebSocket sessions")
+    void shouldReportOpenSessions() throws Exception {
+        // given
+        SubProtocolWebSocketHandler webSocketHandler = new SubProtocolWebSocketHandler(
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel()
+        );
+        webSocketHandler.addProtocolHandler(new StompSubProtocolHandler());
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+        webSocketHandler.afterConnectionEstablished(session);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketChannelMetrics subject = new WebSocketChannelMetrics(
+                provider(null), provider(null), handler(webSocketHandler)
+        );
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.sessions").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should report no sessions before the WebSocket handler exists")
+    void shouldReportNoSessionsWithoutHandler() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketChannelMetrics subject = new WebSocketChannelMetrics(provider(null), provider(null), handler(null));
+
+        // when
+        subject.bindTo(registry);
+
+        // then
+        assertThat(registry.get("websocket.sessions").gauge().value()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.chatapp.chat.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketChannelPropertiesTest {
+
+    private WebSocketChannelProperties bind(Map<String, String> properties) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(properties));
+        return binder.bindOrCreate("app.websocket.channels", WebSocketChannelProperties.class);
+    }
+
+    @Test
+    @DisplayName("Should default both channels to a bounded pool")
+    void shouldUseDefaults() {
+        // when
+        WebSocketChannelProperties properties = bind(Map.of());
+
+        // then
+        assertThat(properties.inbound().mode()).isEqualTo(WebSocketChannelProperties.ExecutorMode.POOL);
+        assertThat(properties.inbound().corePoolSize()).isEqualTo(16);
+        assertThat(properties.inbound().queueCapacity()).isEqualTo(10_000);
+        assertThat(properties.outbound().mode()).isEqualTo(WebSocketChannelProperties.ExecutorMode.POOL);
+        assertThat(properties.outbound().preserveOrder()).isFalse();
+        assertThat(properties.orderByChat()).isTrue();
+        assertThat(properties.preservePublishOrder()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should bind virtual thread mode and limits per channel")
+    void shouldBindPerChannelSettings() {
+        // given
+        Map<String, String> source = Map.of(
+                "app.websocket.channels.inbound.mode", "virtual",
+                "app.websocket.channels.inbound.virtual-concurrency-limit", "200",
+                "app.websocket.channels.outbound.max-pool-size", "32",
+                "app.websocket.channels.outbound.preserve-order", "true",
+                "app.websocket.channels.order-by-chat", "false"
+        );
+
+        // when
+        WebSocketChannelProperties properties = bind(source);
+
+        // then
+        assertThat(properties.inbound().mode()).isEqualTo(WebSocketChannelProperties.ExecutorMode.VIRTUAL);
+        assertThat(properties.inbound().virtualConcurrencyLimit()).isEqualTo(200);
+        assertThat(properties.outbound().maxPoolSize()).isEqualTo(32);
+        assertThat(properties.outbound().preserveOrder()).isTrue();
+        assertThat(properties.orderByChat()).isFalse();
+        assertThat(properties.preservePublishOrder()).isTrue();
+    }
+}